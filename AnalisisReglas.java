@@ -0,0 +1,131 @@
+/*
+ * Estudia las reglas del Cinquillo-Oro simulando muchas partidas con todos los asientos jugando la
+ * misma estrategia, repartidas entre todos los núcleos con fork-join como en Torneo.
+ * Las partidas las juega Simulador, con la puntuación y los ganadores de Juego, y cada una se anota
+ * en unas EstadisticasReglas según sale, sin guardarla: la memoria no crece con el número de
+ * partidas. Con la misma semilla sale lo mismo sea cual sea el número de hilos.
+ * Uso: java AnalisisReglas [partidas] [semilla]
+ */
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class AnalisisReglas {
+
+    private static final int PARTIDAS_POR_TROZO = 2048;
+
+    private final FabricaPolitica estrategia;
+    private final ForkJoinPool pool;
+
+    /**
+     * Crea un nuevo análisis que usa todos los núcleos.
+     *
+     * @param estrategia La estrategia de todos los asientos, como
+     * FabricaPolitica.
+     */
+    public AnalisisReglas(FabricaPolitica estrategia) {
+        this(ForkJoinPool.commonPool(), estrategia);
+    }
+
+    /**
+     * Crea un nuevo análisis que usa un pool concreto.
+     *
+     * @param pool El pool donde se juegan las partidas, como ForkJoinPool.
+     * @param estrategia La estrategia de todos los asientos, como
+     * FabricaPolitica.
+     */
+    public AnalisisReglas(ForkJoinPool pool, FabricaPolitica estrategia) {
+        this.pool = pool;
+        this.estrategia = estrategia;
+    }
+
+    /**
+     * Juega un número de partidas en paralelo y devuelve sus estadísticas.
+     *
+     * @param numJugadores El número de jugadores, 3 o 4, como Entero.
+     * @param numPartidas El número de partidas, como long.
+     * @param semilla La semilla de la que salen todos los generadores, como
+     * long.
+     * @return Las estadísticas, como EstadisticasReglas.
+     */
+    public EstadisticasReglas analizar(int numJugadores, long numPartidas, long semilla) {
+        if (numJugadores != 3 && numJugadores != 4) {
+            throw new IllegalArgumentException("El juego es para 3 o 4 jugadores");
+        }
+        return pool.invoke(new Trozo(numJugadores, 0, numPartidas, new SplittableRandom(semilla)));
+    }
+
+    /**
+     * Juega en este hilo las partidas de un rango.
+     *
+     * @param numJugadores El número de jugadores, como Entero.
+     * @param partidas El número de partidas del rango, como long.
+     * @param random El generador del rango, como SplittableRandom.
+     * @return Las estadísticas del rango, como EstadisticasReglas.
+     */
+    private EstadisticasReglas jugarRango(int numJugadores, long partidas, SplittableRandom random) {
+        Politica[] politicas = new Politica[numJugadores];
+        for (int i = 0; i < numJugadores; i++) {
+            politicas[i] = estrategia.crear(random.split());
+        }
+        Simulador simulador = new Simulador(politicas);
+        EstadisticasReglas estadisticas = new EstadisticasReglas(numJugadores);
+        for (long p = 0; p < partidas; p++) {
+            estadisticas.anotar(simulador.jugarPartida(random));
+        }
+        return estadisticas;
+    }
+
+    /**
+     * Un rango de partidas que se parte en dos hasta que es lo bastante pequeño
+     * para jugarlo de seguido.
+     */
+    private class Trozo extends RecursiveTask<EstadisticasReglas> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int numJugadores;
+        private final long desde;
+        private final long hasta;
+        private final SplittableRandom random;
+
+        Trozo(int numJugadores, long desde, long hasta, SplittableRandom random) {
+            this.numJugadores = numJugadores;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.random = random;
+        }
+
+        @Override
+        protected EstadisticasReglas compute() {
+            if (hasta - desde <= PARTIDAS_POR_TROZO) {
+                return jugarRango(numJugadores, hasta - desde, random);
+            }
+            long mitad = (desde + hasta) >>> 1;
+            Trozo izquierda = new Trozo(numJugadores, desde, mitad, random.split());
+            Trozo derecha = new Trozo(numJugadores, mitad, hasta, random.split());
+            izquierda.fork();
+            EstadisticasReglas resultado = derecha.compute();
+            return resultado.combinar(izquierda.join());
+        }
+    }
+
+    /**
+     * Compara las reglas con 3 y con 4 jugadores que juegan al azar.
+     *
+     * @param args El número de partidas (1000000 si no se da) y la semilla
+     * (1 si no se da).
+     */
+    public static void main(String[] args) {
+        long numPartidas = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        long semilla = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        AnalisisReglas analisis = new AnalisisReglas(PoliticaAleatoria::new);
+        for (int numJugadores = 3; numJugadores <= 4; numJugadores++) {
+            long inicio = System.nanoTime();
+            EstadisticasReglas estadisticas = analisis.analizar(numJugadores, numPartidas, semilla);
+            System.out.print(estadisticas);
+            System.out.printf("(%.1f s)%n%n", (System.nanoTime() - inicio) / 1e9);
+        }
+    }
+}
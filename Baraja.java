@@ -1,36 +1,66 @@
 /*
 * Representa la baraja española pero con 8 y 9, en total 48 cartas, 4 palos, valores de las cartas de 1 a 12. 
-* Estructura: se utilizará un TAD adecuado
+* Estructura: se utilizará un TAD adecuado. Es una pila guardada en un array de identificadores de carta
+* (ver Carta.getId), así que meter, sacar y barajar no crean objetos. Una máscara de bits dice qué
+* cartas hay, para no dejar meter una carta dos veces.
 * Funcionalidad: barajar las cartas, devolver la carta situada encima del montón de cartas
  */
 
-import java.util.Random;
-import java.util.Stack;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 public class Baraja {
 
-    private Stack<Carta> baraja;
+    private final byte[] baraja;
+    private int numCartas;
+    // Bit i a 1 si la carta de identificador i está en la baraja
+    private long presentes;
+    private final RandomGenerator random;
 
     /**
      * Crea una nueva baraja y la llena con cartas españolas.
      */
     public Baraja() {
-        baraja = new Stack<>();
-        for (Carta.tipoPalo palo : Carta.tipoPalo.values()) {
-            for (int j = 1; j <= 12; j++) {
-                Carta card = new Carta(j, palo);
-                baraja.add(card);
-            }
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Crea una nueva baraja que siempre se baraja igual para la misma semilla.
+     *
+     * @param semilla La semilla del generador de números aleatorios, como
+     * long.
+     */
+    public Baraja(long semilla) {
+        this(new SplittableRandom(semilla));
+    }
+
+    /**
+     * Crea una nueva baraja que se baraja con un generador concreto.
+     *
+     * @param random El generador de números aleatorios, como RandomGenerator.
+     */
+    public Baraja(RandomGenerator random) {
+        this.random = random;
+        baraja = new byte[Carta.NUM_CARTAS];
+        for (int id = 0; id < Carta.NUM_CARTAS; id++) {
+            baraja[numCartas++] = (byte) id;
         }
+        presentes = EstadoCompacto.TODAS;
     }
 
     /**
      * Sirve para meter una carta en la baraja.
      *
      * @param carta La carta que quieres meter en la baraja.
+     * @throws IllegalArgumentException Si la carta ya está en la baraja.
      */
     public void meterCarta(Carta carta) {
-        this.baraja.push(carta);
+        long bit = 1L << carta.getId();
+        if ((presentes & bit) != 0) {
+            throw new IllegalArgumentException("La carta ya está en la baraja: " + carta);
+        }
+        presentes |= bit;
+        baraja[numCartas++] = (byte) carta.getId();
     }
 
     /**
@@ -38,24 +68,49 @@ public class Baraja {
      * posiciones aleatorias.
      */
     public void barajarCartas() {
-        Carta aux[] = new Carta[48];
-        int i = 0;
-        // Sacar las cartas de la pila
-        while (!baraja.isEmpty()) {
-            aux[i] = baraja.pop();
-            i++;
-        }
-        // Barajar
-        Random randomNum = new Random();
-        for (int mov = 0; mov < aux.length; mov++) {
-            int j = randomNum.nextInt(48);
-            Carta auxiliar = aux[j];
-            aux[j] = aux[mov];
-            aux[mov] = auxiliar;
+        barajarCartas(random);
+    }
+
+    /**
+     * Baraja la baraja de forma reproducible: con la misma semilla y las mismas
+     * cartas en el mismo orden, sale siempre el mismo orden.
+     *
+     * @param semilla La semilla del generador de números aleatorios, como
+     * long.
+     */
+    public void barajarCartas(long semilla) {
+        barajarCartas(new SplittableRandom(semilla));
+    }
+
+    /**
+     * Baraja la baraja con un generador de números aleatorios concreto, para
+     * que cada hilo pueda usar el suyo. Usa Fisher-Yates, así que todas las
+     * ordenaciones son igual de probables, y solo baraja las cartas que haya.
+     *
+     * @param randomNum El generador de números aleatorios, como
+     * RandomGenerator.
+     */
+    public void barajarCartas(RandomGenerator randomNum) {
+        long inicio = Metricas.inicio();
+        for (int i = numCartas - 1; i > 0; i--) {
+            int j = randomNum.nextInt(i + 1);
+            byte auxiliar = baraja[j];
+            baraja[j] = baraja[i];
+            baraja[i] = auxiliar;
         }
-        // Volver a meter las cartas en la pila
-        for (Carta carta : aux) {
-            meterCarta(carta);
+        Metricas.BARAJAR.registrarDesde(inicio);
+    }
+
+    /**
+     * Ordena las cartas que haya en la baraja por su identificador, para que
+     * barajar con una semilla no dependa de cómo se devolvieron las cartas.
+     */
+    public void ordenar() {
+        long quedan = presentes;
+        int i = 0;
+        while (quedan != 0) {
+            baraja[i++] = (byte) Long.numberOfTrailingZeros(quedan);
+            quedan &= quedan - 1;
         }
     }
 
@@ -65,7 +120,30 @@ public class Baraja {
      * @return La carta que se ha sacado
      */
     public Carta sacarCarta() {
-        return this.baraja.pop();
+        return Carta.of(sacarId());
+    }
+
+    /**
+     * Saca una carta de la baraja y devuelve solo su identificador.
+     *
+     * @return El identificador de la carta que se ha sacado, como Entero.
+     */
+    public int sacarId() {
+        if (numCartas == 0) {
+            throw new IllegalStateException("La baraja está vacía");
+        }
+        int id = baraja[--numCartas];
+        presentes &= ~(1L << id);
+        return id;
+    }
+
+    /**
+     * Devuelve el número de cartas que quedan en la baraja.
+     *
+     * @return El número de cartas, como Entero.
+     */
+    public int getNumCartas() {
+        return numCartas;
     }
 
     /**
@@ -74,6 +152,6 @@ public class Baraja {
      * @return false Si quedan cartas en la baraja, true si la baraja está vacía
      */
     public boolean estaVacia() {
-        return baraja.isEmpty();
+        return numCartas == 0;
     }
 }
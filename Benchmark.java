@@ -0,0 +1,267 @@
+/*
+ * Mide el rendimiento de las partes calientes del juego: barajar, repartir, comprobar y colocar
+ * cartas, jugar partidas enteras y pintar la mesa y las cartas.
+ * Cada medida se calienta primero y después se repite durante un tiempo fijo; se muestran los
+ * nanosegundos y los bytes reservados por operación (lo mismo que daría -prof gc).
+ * Uso: java Benchmark [filtro] [milisegundos por medida]
+ */
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.Stack;
+
+public class Benchmark {
+
+    /**
+     * Una operación a medir. Devuelve un valor para que el JIT no la pueda
+     * eliminar.
+     */
+    private interface Operacion {
+
+        long ejecutar();
+    }
+
+    private static final com.sun.management.ThreadMXBean HILOS
+            = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long sumidero;
+
+    private final String filtro;
+    private final long milisegundos;
+
+    /**
+     * Crea un nuevo benchmark.
+     *
+     * @param filtro Solo se miden las operaciones cuyo nombre lo contenga, como
+     * String.
+     * @param milisegundos El tiempo de cada medida, como long.
+     */
+    public Benchmark(String filtro, long milisegundos) {
+        this.filtro = filtro;
+        this.milisegundos = milisegundos;
+    }
+
+    public static void main(String[] args) {
+        String filtro = args.length > 0 ? args[0] : "";
+        long milisegundos = args.length > 1 ? Long.parseLong(args[1]) : 2000;
+        new Benchmark(filtro, milisegundos).ejecutarTodo();
+        if (sumidero == 42) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * Ejecuta todas las medidas que pasan el filtro.
+     */
+    public void ejecutarTodo() {
+        System.out.printf("%-36s %14s %14s%n", "Operación", "ns/op", "bytes/op");
+
+        SplittableRandom random = new SplittableRandom(1);
+        Baraja baraja = new Baraja(1);
+        medir("Baraja.barajarCartas", () -> {
+            baraja.barajarCartas(random);
+            return baraja.getNumCartas();
+        });
+        Stack<Carta> pila = new Stack<>();
+        for (int id = 0; id < Carta.NUM_CARTAS; id++) {
+            pila.push(Carta.of(id));
+        }
+        medir("Baraja.barajarCartas (Stack antiguo)", () -> barajarAntiguo(pila, random));
+
+        // El reparto de verdad, el que usan Juego y el Servidor; recoger devuelve las cartas a la baraja
+        Partida partida = new Partida(List.of("Jugador 1", "Jugador 2", "Jugador 3", "Jugador 4"), random);
+        partida.empezar();
+        medir("Partida.repartir (con recoger)", () -> {
+            partida.recoger();
+            partida.repartir();
+            return partida.getJugador(0).getCartasEnMano();
+        });
+
+        Mesa mesa = mesaAMedias();
+        medir("Mesa.puedeColocarCarta (x48)", () -> {
+            long colocables = 0;
+            for (int id = 0; id < Carta.NUM_CARTAS; id++) {
+                if (mesa.puedeColocarCarta(Carta.of(id))) {
+                    colocables++;
+                }
+            }
+            return colocables;
+        });
+
+        Mesa mesaVacia = new Mesa();
+        Baraja devueltas = new Baraja(2);
+        while (!devueltas.estaVacia()) {
+            devueltas.sacarId();
+        }
+        Carta.tipoPalo[] palos = Carta.tipoPalo.values();
+        medir("Mesa.colocar (mesa completa)", () -> {
+            long asDeOros = 0;
+            for (int palo = 0; palo < 4; palo++) {
+                Carta.tipoPalo tipo = palos[palo];
+                for (int numero = 5; numero <= 12; numero++) {
+                    asDeOros += mesaVacia.colocar(Carta.of(numero, tipo)) ? 1 : 0;
+                }
+                for (int numero = 4; numero >= 1; numero--) {
+                    asDeOros += mesaVacia.colocar(Carta.of(numero, tipo)) ? 1 : 0;
+                }
+            }
+            mesaVacia.vaciarMesa(devueltas);
+            while (!devueltas.estaVacia()) {
+                devueltas.sacarId();
+            }
+            return asDeOros;
+        });
+
+        Jugador conMano = new Jugador("Mano");
+        for (int id = 0; id < Carta.NUM_CARTAS; id += 4) {
+            conMano.insertarCarta(Carta.of(id));
+        }
+        medir("Jugador.puedeColocarAlgo", () -> conMano.puedeColocarAlgo(mesa) ? 1 : 0);
+
+        Simulador simulador = new Simulador(new PoliticaAleatoria(random), new PoliticaPrimeraCarta(),
+                new PoliticaAleatoria(random), new PoliticaPrimeraCarta());
+        medir("Simulador.jugarPartida", () -> simulador.jugarPartida(random).getRondas());
+        int[] puntuaciones = new int[simulador.getNumJugadores()];
+        // Sin ResultadoPartida: en régimen estable no debe crear nada (0 bytes/op)
+        medir("Simulador.jugarPartida (reutilizando)", () -> simulador.jugarPartida(random, puntuaciones));
+
+        EstadoCompacto estado = EstadoCompacto.desde(mesa, List.of(conMano));
+        medir("EstadoCompacto.puedeColocarAlgo", () -> estado.puedeColocarAlgo(0) ? 1 : 0);
+
+        // Lote de consultas sacadas de partidas reales: mesas y manos a mitad de ronda
+        int tamLote = 4096;
+        long[] colocadasLote = new long[tamLote];
+        long[] manosLote = new long[tamLote];
+        long[] legalesLote = new long[tamLote];
+        Mesa mesaLote = new Mesa();
+        for (int i = 0; i < tamLote; i++) {
+            if (mesaLote.getJugables() == 0 || random.nextInt(30) == 0) {
+                mesaLote = new Mesa();
+            }
+            long jugables = mesaLote.getJugables();
+            for (int salto = random.nextInt(Long.bitCount(jugables)); salto > 0; salto--) {
+                jugables &= jugables - 1;
+            }
+            mesaLote.colocar(Carta.of(Long.numberOfTrailingZeros(jugables)));
+            colocadasLote[i] = mesaLote.getColocadas();
+            manosLote[i] = random.nextLong() & ~colocadasLote[i] & ((1L << Carta.NUM_CARTAS) - 1);
+        }
+        medir("LoteJugadas (4096 consultas)", () -> {
+            LoteJugadas.jugadasLegales(colocadasLote, manosLote, legalesLote);
+            return legalesLote[tamLote - 1];
+        });
+        medir("LoteJugadas escalar (4096 consultas)", () -> {
+            LoteJugadas.jugadasLegalesEscalar(colocadasLote, manosLote, legalesLote, 0, tamLote);
+            return legalesLote[tamLote - 1];
+        });
+
+        // Una ronda entera desde el reparto: la simulación que más repite un bot
+        SimulacionRonda simulacion = new SimulacionRonda(SimulacionRonda.AL_AZAR);
+        int[] ordenRonda = {0, 1, 2, 3};
+        int[] cartasRonda = {12, 12, 12, 12};
+        long[] manosRonda = new long[4];
+        medir("SimulacionRonda (reparto y ronda)", () -> {
+            simulacion.repartir(0, -1, 0, cartasRonda, manosRonda, random);
+            return simulacion.jugar(0, manosRonda, ordenRonda, 0, random);
+        });
+
+        medir("Mesa.toString", () -> mesa.toString().length());
+        ByteBuffer salida = ByteBuffer.allocate(4096);
+        medir("Mesa.escribirEn (ByteBuffer)", () -> {
+            salida.clear();
+            mesa.escribirEn(salida, true);
+            return salida.position();
+        });
+        Carta carta = Carta.of(10, Carta.tipoPalo.ESPADAS);
+        medir("Carta.toString", () -> carta.toString().length());
+    }
+
+    /**
+     * Mide una operación si su nombre pasa el filtro y muestra el resultado.
+     *
+     * @param nombre El nombre de la operación, como String.
+     * @param operacion La operación a medir, como Operacion.
+     */
+    private void medir(String nombre, Operacion operacion) {
+        if (!nombre.contains(filtro)) {
+            return;
+        }
+        // Calentamiento: deja que el JIT compile la operación
+        repetir(operacion, milisegundos / 2);
+
+        long hilo = Thread.currentThread().getId();
+        long bytesAntes = HILOS.getThreadAllocatedBytes(hilo);
+        long inicio = System.nanoTime();
+        long veces = repetir(operacion, milisegundos);
+        long nanos = System.nanoTime() - inicio;
+        long bytes = HILOS.getThreadAllocatedBytes(hilo) - bytesAntes;
+
+        System.out.printf("%-36s %14.1f %14.1f%n", nombre, (double) nanos / veces, (double) bytes / veces);
+    }
+
+    /**
+     * Repite una operación durante un tiempo.
+     *
+     * @param operacion La operación, como Operacion.
+     * @param milisegundos El tiempo, como long.
+     * @return El número de veces que se ha ejecutado, como long.
+     */
+    private static long repetir(Operacion operacion, long milisegundos) {
+        long fin = System.nanoTime() + milisegundos * 1_000_000L;
+        long veces = 0;
+        long acumulado = 0;
+        do {
+            // Se comprueba el reloj cada 256 ejecuciones para no medirlo a él
+            for (int i = 0; i < 256; i++) {
+                acumulado += operacion.ejecutar();
+            }
+            veces += 256;
+        } while (System.nanoTime() < fin);
+        sumidero += acumulado;
+        return veces;
+    }
+
+    /**
+     * Crea una mesa con algunas cartas de cada palo.
+     *
+     * @return La mesa, como Mesa.
+     */
+    private static Mesa mesaAMedias() {
+        Mesa mesa = new Mesa();
+        for (Carta.tipoPalo palo : Carta.tipoPalo.values()) {
+            mesa.colocar(Carta.of(5, palo));
+            mesa.colocar(Carta.of(6, palo));
+            mesa.colocar(Carta.of(4, palo));
+        }
+        return mesa;
+    }
+
+    /**
+     * El barajado que usaba antes Baraja, para comparar: saca todas las cartas
+     * de la pila, cambia cada una por otra cualquiera y las vuelve a meter.
+     *
+     * @param pila La pila de cartas, como Stack de Carta.
+     * @param random El generador de números aleatorios, como SplittableRandom.
+     * @return El número de cartas, como long.
+     */
+    private static long barajarAntiguo(Stack<Carta> pila, SplittableRandom random) {
+        Carta aux[] = new Carta[48];
+        int i = 0;
+        while (!pila.isEmpty()) {
+            aux[i] = pila.pop();
+            i++;
+        }
+        for (int mov = 0; mov < aux.length; mov++) {
+            int j = random.nextInt(48);
+            Carta auxiliar = aux[j];
+            aux[j] = aux[mov];
+            aux[mov] = auxiliar;
+        }
+        for (Carta carta : aux) {
+            pila.push(carta);
+        }
+        return pila.size();
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Reparte los eventos de una partida a quien se suscriba, sin que la partida espere a nadie.
+ * Es un anillo de tamaño fijo sin cerrojos: publicar reserva una secuencia con un contador atómico y
+ * deja el evento en su hueco, y cada suscripción lleva su propia secuencia y lee del anillo cuando
+ * quiere. Si una suscripción se queda más de una vuelta atrás, no frena a nadie: se salta lo que ya
+ * se ha sobrescrito y lo cuenta como perdido.
+ * Una suscripción se puede leer a mano con sondear o darle un consumidor, que se ejecuta en su propio
+ * hilo: espera activa un rato y luego duerme a ratos cortos, para no cargar el hilo que publica.
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+public class BusEventos {
+
+    private static final int ESPERAS_ACTIVAS = 100;
+    private static final long NANOS_DORMIDO = 50_000;
+
+    private final AtomicReferenceArray<Evento> anillo;
+    private final int mascara;
+    private final AtomicLong siguiente = new AtomicLong();
+
+    /**
+     * Crea un nuevo bus.
+     *
+     * @param capacidad Los eventos que caben en el anillo, una potencia de 2,
+     * como Entero.
+     */
+    public BusEventos(int capacidad) {
+        if (capacidad < 2 || Integer.bitCount(capacidad) != 1) {
+            throw new IllegalArgumentException("La capacidad tiene que ser una potencia de 2: " + capacidad);
+        }
+        this.anillo = new AtomicReferenceArray<>(capacidad);
+        this.mascara = capacidad - 1;
+    }
+
+    /**
+     * Publica un evento. No espera nunca, y pueden publicar varios hilos a la
+     * vez.
+     *
+     * @param evento El evento, que no se ha publicado antes, como Evento.
+     * @return La secuencia del evento, como long.
+     */
+    public long publicar(Evento evento) {
+        if (evento.secuencia >= 0) {
+            throw new IllegalArgumentException("El evento ya se ha publicado");
+        }
+        long secuencia = siguiente.getAndIncrement();
+        evento.secuencia = secuencia;
+        anillo.set((int) secuencia & mascara, evento);
+        return secuencia;
+    }
+
+    /**
+     * Devuelve la secuencia que tendrá el próximo evento.
+     *
+     * @return La secuencia, como long.
+     */
+    public long getSiguiente() {
+        return siguiente.get();
+    }
+
+    /**
+     * Devuelve cuántos eventos caben en el anillo.
+     *
+     * @return La capacidad, como Entero.
+     */
+    public int getCapacidad() {
+        return mascara + 1;
+    }
+
+    /**
+     * Crea una suscripción que empieza por el próximo evento y se lee a mano
+     * con sondear.
+     *
+     * @return La suscripción, como Suscripcion.
+     */
+    public Suscripcion suscribir() {
+        return new Suscripcion(siguiente.get());
+    }
+
+    /**
+     * Crea una suscripción que empieza por el próximo evento y pasa cada uno a
+     * un consumidor en un hilo propio.
+     *
+     * @param nombre El nombre del hilo, como String.
+     * @param consumidor Quien recibe los eventos, como Consumer de Evento.
+     * @return La suscripción, como Suscripcion.
+     */
+    public Suscripcion suscribir(String nombre, Consumer<Evento> consumidor) {
+        Suscripcion suscripcion = suscribir();
+        Thread hilo = new Thread(() -> suscripcion.consumir(consumidor), nombre);
+        hilo.setDaemon(true);
+        suscripcion.hilo = hilo;
+        hilo.start();
+        return suscripcion;
+    }
+
+    /**
+     * Lo que lleva leído un suscriptor.
+     */
+    public class Suscripcion implements AutoCloseable {
+
+        private long secuencia;
+        private long perdidos;
+        private volatile boolean cerrada;
+        private Thread hilo;
+
+        private Suscripcion(long secuencia) {
+            this.secuencia = secuencia;
+        }
+
+        /**
+         * Pasa a un consumidor todos los eventos publicados que todavía no
+         * ha leído esta suscripción.
+         *
+         * @param consumidor Quien recibe los eventos, como Consumer de Evento.
+         * @return Cuántos eventos se han pasado, como Entero.
+         */
+        public synchronized int sondear(Consumer<Evento> consumidor) {
+            int leidos = 0;
+            while (true) {
+                Evento evento = anillo.get((int) secuencia & mascara);
+                if (evento == null || evento.secuencia < secuencia) {
+                    // Todavía no se ha publicado
+                    return leidos;
+                }
+                if (evento.secuencia > secuencia) {
+                    // Nos han dado una vuelta: se salta a lo más antiguo que sigue en el anillo
+                    long primero = Math.max(secuencia + 1, siguiente.get() - anillo.length());
+                    perdidos += primero - secuencia;
+                    secuencia = primero;
+                    continue;
+                }
+                secuencia++;
+                leidos++;
+                consumidor.accept(evento);
+            }
+        }
+
+        /**
+         * Lee eventos hasta que se cierra la suscripción.
+         */
+        private void consumir(Consumer<Evento> consumidor) {
+            int vacias = 0;
+            while (!cerrada) {
+                if (sondear(consumidor) > 0) {
+                    vacias = 0;
+                } else if (++vacias < ESPERAS_ACTIVAS) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(NANOS_DORMIDO);
+                }
+            }
+            // Lo que quede publicado antes de cerrar también se entrega
+            sondear(consumidor);
+        }
+
+        /**
+         * Devuelve la secuencia del próximo evento que leerá.
+         *
+         * @return La secuencia, como long.
+         */
+        public synchronized long getSecuencia() {
+            return secuencia;
+        }
+
+        /**
+         * Devuelve cuántos eventos se ha saltado por quedarse atrás.
+         *
+         * @return Los eventos perdidos, como long.
+         */
+        public synchronized long getPerdidos() {
+            return perdidos;
+        }
+
+        /**
+         * Deja de leer eventos. Si la suscripción tiene hilo, espera a que
+         * entregue lo que ya estaba publicado. Si se interrumpe la espera, deja
+         * de esperar y el hilo que cierra sigue marcado como interrumpido.
+         */
+        @Override
+        public void close() {
+            cerrada = true;
+            if (hilo != null && hilo != Thread.currentThread()) {
+                try {
+                    hilo.join();
+                } catch (InterruptedException exc) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
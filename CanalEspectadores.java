@@ -0,0 +1,259 @@
+/*
+ * Retransmite una mesa a muchos espectadores. Al unirse, cada espectador recibe una foto de la mesa,
+ * y después solo lo que cambia con cada evento de la partida. Cada mensaje se escribe una sola vez en
+ * un buffer y todos los espectadores reciben una vista de solo lectura de los mismos bytes, sin
+ * copiarlos.
+ * Los espectadores no ven las manos: del reparto solo se sabe cuántas cartas tiene cada uno.
+ * Mensajes, una línea de texto cada uno, con el mismo formato que el protocolo de Servidor:
+ *   VISTA <mesa> <numJugadores> <ronda> <minimo>-<maximo>... <cartas>... <puntos>...
+ *       la foto al unirse: un par por palo (0-0 si está vacío), las cartas en la mano y los puntos
+ *       de cada asiento; la ronda es 0 si todavía no ha empezado
+ *   RONDA <ronda> <asiento>...           orden de turno; el as de oros vale 2 * ronda
+ *   JUGADA <asiento> <id> <C|A|B>        la carta y por dónde se coloca en su palo: C el 5 (centro),
+ *                                        A por arriba, B por abajo
+ *   PASA <asiento>
+ *   ORO <asiento> <puntos>               quien ha colocado el as de oros y los puntos que gana
+ *   FINRONDA <ganador> <asientoAsDeOros o -1> <puntos>...
+ *   FIN <puntos>...
+ *   ABANDONADA                           la mesa se cierra sin terminar la partida
+ * Al cerrar el canal se suelta a todos los espectadores; si la partida no ha llegado a FIN, antes se
+ * les manda ABANDONADA.
+ * Recibe los eventos como Consumer de Evento, así que se puede suscribir a un BusEventos. Todos los
+ * métodos son synchronized: ningún espectador se pierde un evento entre la foto y lo que viene después.
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+public class CanalEspectadores implements Consumer<Evento> {
+
+    /**
+     * Quien recibe la retransmisión.
+     */
+    public interface Espectador {
+
+        /**
+         * Recibe un mensaje. No debe bloquearse: lo llama el hilo que reparte
+         * los eventos.
+         *
+         * @param mensaje Una vista de solo lectura del mensaje, con una línea
+         * terminada en '\n', como ByteBuffer.
+         */
+        void recibir(ByteBuffer mensaje);
+    }
+
+    private final int id;
+    private final int numJugadores;
+    // Se puede quitar un espectador mientras se le manda un mensaje (por ejemplo, si se desconecta)
+    private final List<Espectador> espectadores = new CopyOnWriteArrayList<>();
+    private final EstadoCompacto mesa;
+    private final int[] cartas;
+    private final int[] puntuaciones;
+    private final StringBuilder linea = new StringBuilder(64);
+    private int ronda;
+    private int asientoAsDeOros = -1;
+    private boolean terminada;
+    private boolean cerrado;
+    private ByteBuffer vista;
+    private long mensajes;
+
+    /**
+     * Crea un canal para una mesa.
+     *
+     * @param id El número de la mesa, como Entero.
+     * @param numJugadores El número de jugadores, 3 o 4, como Entero.
+     */
+    public CanalEspectadores(int id, int numJugadores) {
+        if (numJugadores != 3 && numJugadores != 4) {
+            throw new IllegalArgumentException("El juego es para 3 o 4 jugadores");
+        }
+        this.id = id;
+        this.numJugadores = numJugadores;
+        this.mesa = new EstadoCompacto(numJugadores);
+        this.cartas = new int[numJugadores];
+        this.puntuaciones = new int[numJugadores];
+    }
+
+    /**
+     * Une un espectador: recibe la foto de la mesa y, desde ahí, todos los
+     * cambios.
+     *
+     * @param espectador El espectador, como Espectador.
+     */
+    public synchronized void unir(Espectador espectador) {
+        if (cerrado) {
+            throw new IllegalStateException("La mesa " + id + " ya no se retransmite");
+        }
+        if (vista == null) {
+            vista = componerVista();
+        }
+        espectador.recibir(vista.asReadOnlyBuffer());
+        espectadores.add(espectador);
+    }
+
+    /**
+     * Quita un espectador.
+     *
+     * @param espectador El espectador, como Espectador.
+     */
+    public synchronized void dejar(Espectador espectador) {
+        espectadores.remove(espectador);
+    }
+
+    /**
+     * Cierra la retransmisión y suelta a todos los espectadores. Si la partida
+     * no ha terminado, antes les manda ABANDONADA.
+     *
+     * @return Los espectadores que miraban, como List de Espectador.
+     */
+    public synchronized List<Espectador> cerrar() {
+        List<Espectador> soltados = new ArrayList<>(espectadores);
+        if (cerrado) {
+            return soltados;
+        }
+        cerrado = true;
+        if (!terminada) {
+            linea.setLength(0);
+            linea.append("ABANDONADA");
+            mensajes++;
+            ByteBuffer mensaje = codificar();
+            for (Espectador espectador : soltados) {
+                espectador.recibir(mensaje.asReadOnlyBuffer());
+            }
+        }
+        espectadores.clear();
+        return soltados;
+    }
+
+    /**
+     * Devuelve cuántos espectadores hay.
+     *
+     * @return El número de espectadores, como Entero.
+     */
+    public synchronized int getNumEspectadores() {
+        return espectadores.size();
+    }
+
+    /**
+     * Devuelve cuántos mensajes se han compuesto, sin contar las fotos: uno
+     * por evento retransmitido, tenga los espectadores que tenga.
+     *
+     * @return El número de mensajes, como long.
+     */
+    public synchronized long getMensajes() {
+        return mensajes;
+    }
+
+    /**
+     * Anota un evento de la partida y manda a todos los espectadores lo que
+     * cambia.
+     *
+     * @param evento El evento, como Evento.
+     */
+    @Override
+    public synchronized void accept(Evento evento) {
+        linea.setLength(0);
+        switch (evento.getTipo()) {
+            case RONDA_EMPEZADA:
+                ronda = evento.getRonda();
+                asientoAsDeOros = -1;
+                mesa.vaciar();
+                linea.append("RONDA ").append(ronda);
+                for (int asiento : evento.getOrden()) {
+                    linea.append(' ').append(asiento);
+                }
+                break;
+            case CARTAS_REPARTIDAS:
+                // Las manos no se retransmiten: solo cuántas cartas tiene cada uno
+                long[] manos = evento.getManos();
+                for (int i = 0; i < numJugadores; i++) {
+                    cartas[i] = Long.bitCount(manos[i]);
+                }
+                break;
+            case CARTA_COLOCADA:
+                int carta = evento.getCarta().getId();
+                linea.append("JUGADA ").append(evento.getAsiento()).append(' ').append(carta).append(' ').append(extremo(carta));
+                mesa.colocarEnMesa(carta);
+                cartas[evento.getAsiento()]--;
+                break;
+            case PASE:
+                linea.append("PASA ").append(evento.getAsiento());
+                break;
+            case AS_DE_OROS_COLOCADO:
+                asientoAsDeOros = evento.getAsiento();
+                puntuaciones[evento.getAsiento()] += evento.getPuntos();
+                linea.append("ORO ").append(asientoAsDeOros).append(' ').append(evento.getPuntos());
+                break;
+            case RONDA_GANADA:
+                puntuaciones[evento.getAsiento()] += evento.getPuntos();
+                linea.append("FINRONDA ").append(evento.getAsiento()).append(' ').append(asientoAsDeOros);
+                anadirPuntos();
+                break;
+            case PARTIDA_TERMINADA:
+                System.arraycopy(evento.getPuntuaciones(), 0, puntuaciones, 0, numJugadores);
+                terminada = true;
+                linea.append("FIN");
+                anadirPuntos();
+                break;
+            default:
+                throw new IllegalArgumentException("Evento desconocido: " + evento.getTipo());
+        }
+        vista = null;
+        if (linea.length() == 0) {
+            return;
+        }
+        mensajes++;
+        ByteBuffer mensaje = codificar();
+        for (Espectador espectador : espectadores) {
+            espectador.recibir(mensaje.asReadOnlyBuffer());
+        }
+    }
+
+    /**
+     * Te dice por dónde entra una carta en su palo.
+     *
+     * @param id El identificador de la carta, como Entero.
+     * @return C si es el 5, B si va por abajo y A si va por arriba, como
+     * char.
+     */
+    private char extremo(int id) {
+        int palo = EstadoCompacto.palo(id);
+        if (mesa.getMinimo(palo) == 0) {
+            return 'C';
+        }
+        return EstadoCompacto.numero(id) < mesa.getMinimo(palo) ? 'B' : 'A';
+    }
+
+    private void anadirPuntos() {
+        for (int puntos : puntuaciones) {
+            linea.append(' ').append(puntos);
+        }
+    }
+
+    /**
+     * Compone la foto de la mesa tal como está ahora.
+     *
+     * @return El mensaje, como ByteBuffer.
+     */
+    private ByteBuffer componerVista() {
+        linea.setLength(0);
+        linea.append("VISTA ").append(id).append(' ').append(numJugadores).append(' ').append(ronda);
+        for (int palo = 0; palo < EstadoCompacto.NUM_PALOS; palo++) {
+            linea.append(' ').append(mesa.getMinimo(palo)).append('-').append(mesa.getMaximo(palo));
+        }
+        for (int n : cartas) {
+            linea.append(' ').append(n);
+        }
+        anadirPuntos();
+        return codificar();
+    }
+
+    private ByteBuffer codificar() {
+        linea.append('\n');
+        return ByteBuffer.wrap(linea.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+}
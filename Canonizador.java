@@ -0,0 +1,302 @@
+/*
+ * Forma canónica de una posición respecto a los palos: bastos, espadas y copas se comportan igual en la
+ * mesa, así que una posición y la que sale de intercambiar dos de esos palos se juegan igual. Oros no se
+ * toca porque el as de oros puntúa aparte.
+ * De las 6 formas de reordenar esos tres palos se elige la que deja la tupla (mesa, manos...) más
+ * pequeña, comparando como números sin signo. No hace falta probarlas todas: basta con ordenar los tres
+ * palos por su firma (sus 12 bits en la mesa y en cada mano, uno detrás de otro) y poner el de firma
+ * más pequeña en los bits más altos.
+ * Un Canonizador guarda la última forma canónica calculada y cómo se ha llegado a ella, para pasar
+ * cartas de la posición original a la canónica y al revés. No crea objetos, pero no es seguro usarlo
+ * desde varios hilos a la vez: cada hilo necesita el suyo.
+ */
+
+import java.util.List;
+
+public class Canonizador {
+
+    public static final int NUM_PERMUTACIONES = 6;
+    private static final int MAXIMO_MANOS = 4;
+    private static final int PALO = 0xFFF;
+    // Dónde acaba cada palo con cada permutación; oros (0) se queda en su sitio
+    private static final int[][] PERMUTACIONES = {
+        {0, 1, 2, 3}, {0, 1, 3, 2}, {0, 2, 1, 3}, {0, 2, 3, 1}, {0, 3, 1, 2}, {0, 3, 2, 1}
+    };
+    private static final int[] INVERSAS = new int[NUM_PERMUTACIONES];
+
+    static {
+        for (int p = 0; p < NUM_PERMUTACIONES; p++) {
+            int[] inversa = new int[4];
+            for (int palo = 0; palo < 4; palo++) {
+                inversa[PERMUTACIONES[p][palo]] = palo;
+            }
+            INVERSAS[p] = indice(inversa[1], inversa[2], inversa[3]);
+        }
+    }
+
+    private final long[] manos = new long[MAXIMO_MANOS];
+    private final long[] firmas = new long[4];
+    private int numManos;
+    private long mesa;
+    private int permutacion;
+
+    /**
+     * Calcula la forma canónica de una mesa y unas manos.
+     *
+     * @param mesa Las cartas colocadas en la mesa, como long.
+     * @param manos Las manos en el orden en que se quieren comparar, como
+     * array de long.
+     * @param numManos Cuántas manos del array se usan, hasta 4, como Entero.
+     * @return La permutación usada, como Entero.
+     */
+    public int canonizar(long mesa, long[] manos, int numManos) {
+        if (numManos > MAXIMO_MANOS) {
+            throw new IllegalArgumentException("Como mucho " + MAXIMO_MANOS + " manos");
+        }
+        for (int k = 0; k < numManos; k++) {
+            this.manos[k] = manos[k];
+        }
+        this.numManos = numManos;
+        this.mesa = mesa;
+        return canonizar();
+    }
+
+    /**
+     * Calcula la forma canónica de una posición, con las manos en orden de
+     * turno empezando por el jugador que tiene el turno.
+     *
+     * @param estado La mesa y las manos, como EstadoCompacto.
+     * @param orden Los asientos en orden de turno, como array de Entero.
+     * @param turno La posición en el orden del jugador que tiene el turno, como
+     * Entero.
+     * @return La permutación usada, como Entero.
+     */
+    public int canonizar(EstadoCompacto estado, int[] orden, int turno) {
+        int n = orden.length;
+        for (int k = 0; k < n; k++) {
+            manos[k] = estado.getMano(orden[(turno + k) % n]);
+        }
+        numManos = n;
+        mesa = estado.getCartasEnMesa();
+        return canonizar();
+    }
+
+    /**
+     * Calcula la forma canónica de una mesa y las manos de unos jugadores, en
+     * el orden de la lista.
+     *
+     * @param mesa La mesa, como Mesa.
+     * @param jugadores Los jugadores, como List de Jugador.
+     * @return La permutación usada, como Entero.
+     */
+    public int canonizar(Mesa mesa, List<Jugador> jugadores) {
+        if (jugadores.size() > MAXIMO_MANOS) {
+            throw new IllegalArgumentException("Como mucho " + MAXIMO_MANOS + " manos");
+        }
+        numManos = 0;
+        for (Jugador jugador : jugadores) {
+            manos[numManos++] = jugador.getMascaraMano();
+        }
+        this.mesa = mesa.getColocadas();
+        return canonizar();
+    }
+
+    private int canonizar() {
+        // La firma de cada palo: sus bits en la mesa y en cada mano, en orden de importancia
+        for (int palo = 1; palo < 4; palo++) {
+            int desplazamiento = palo * Carta.CARTAS_POR_PALO;
+            long firma = mesa >>> desplazamiento & PALO;
+            for (int k = 0; k < numManos; k++) {
+                firma = firma << Carta.CARTAS_POR_PALO | (manos[k] >>> desplazamiento & PALO);
+            }
+            firmas[palo] = firma;
+        }
+        // El palo de firma más grande va al hueco 1 y el de firma más pequeña al 3
+        int a = 1;
+        int b = 2;
+        int c = 3;
+        if (Long.compareUnsigned(firmas[a], firmas[b]) < 0) {
+            int aux = a;
+            a = b;
+            b = aux;
+        }
+        if (Long.compareUnsigned(firmas[b], firmas[c]) < 0) {
+            int aux = b;
+            b = c;
+            c = aux;
+        }
+        if (Long.compareUnsigned(firmas[a], firmas[b]) < 0) {
+            int aux = a;
+            a = b;
+            b = aux;
+        }
+        // a, b y c son los palos que acaban en los huecos 1, 2 y 3: se busca la inversa
+        permutacion = INVERSAS[indice(a, b, c)];
+        mesa = permutar(mesa, permutacion);
+        for (int k = 0; k < numManos; k++) {
+            manos[k] = permutar(manos[k], permutacion);
+        }
+        return permutacion;
+    }
+
+    /**
+     * Devuelve la mesa de la última forma canónica.
+     *
+     * @return Las cartas colocadas, como long.
+     */
+    public long getMesa() {
+        return mesa;
+    }
+
+    /**
+     * Devuelve una mano de la última forma canónica.
+     *
+     * @param k La posición de la mano, en el mismo orden en que se dieron,
+     * como Entero.
+     * @return La mano, como long.
+     */
+    public long getMano(int k) {
+        return manos[k];
+    }
+
+    /**
+     * Devuelve el número de manos de la última forma canónica.
+     *
+     * @return El número de manos, como Entero.
+     */
+    public int getNumManos() {
+        return numManos;
+    }
+
+    /**
+     * Devuelve la permutación de la última forma canónica.
+     *
+     * @return La permutación, como Entero.
+     */
+    public int getPermutacion() {
+        return permutacion;
+    }
+
+    /**
+     * Pasa una carta de la posición original a la canónica.
+     *
+     * @param id El identificador de la carta, como Entero.
+     * @return El identificador en la forma canónica, como Entero.
+     */
+    public int aCanonica(int id) {
+        return permutarCarta(id, permutacion);
+    }
+
+    /**
+     * Pasa una carta de la forma canónica a la posición original.
+     *
+     * @param id El identificador en la forma canónica, como Entero.
+     * @return El identificador de la carta, como Entero.
+     */
+    public int desdeCanonica(int id) {
+        return permutarCarta(id, INVERSAS[permutacion]);
+    }
+
+    /**
+     * Calcula una huella de 64 bits de la última forma canónica.
+     *
+     * @param extra Lo que haya que añadir a la clave aparte de las cartas,
+     * como long.
+     * @return La huella, como long.
+     */
+    public long huella(long extra) {
+        long huella = mezclar(numManos * 1_000_003L + extra);
+        huella = mezclar(huella ^ mesa);
+        for (int k = 0; k < numManos; k++) {
+            huella = mezclar(huella ^ manos[k]);
+        }
+        return huella;
+    }
+
+    /**
+     * Escribe la última forma canónica en un estado, con las manos en los
+     * asientos 0, 1...
+     *
+     * @param destino El estado, con tantos jugadores como manos, como
+     * EstadoCompacto.
+     */
+    public void escribirEn(EstadoCompacto destino) {
+        if (destino.getNumJugadores() != numManos) {
+            throw new IllegalArgumentException("El estado no tiene " + numManos + " jugadores");
+        }
+        destino.vaciar();
+        for (int k = 0; k < numManos; k++) {
+            destino.setMano(k, manos[k]);
+        }
+        // Cada palo se coloca desde el 5 hacia fuera, como en la mesa
+        for (int palo = 0; palo < 4; palo++) {
+            for (int numero = 5; numero <= Carta.CARTAS_POR_PALO; numero++) {
+                colocarSiEsta(destino, EstadoCompacto.id(numero, palo));
+            }
+            for (int numero = 4; numero >= 1; numero--) {
+                colocarSiEsta(destino, EstadoCompacto.id(numero, palo));
+            }
+        }
+    }
+
+    private void colocarSiEsta(EstadoCompacto destino, int id) {
+        if ((mesa >>> id & 1L) != 0) {
+            destino.colocarEnMesa(id);
+        }
+    }
+
+    /**
+     * Reordena los palos de una máscara de cartas.
+     *
+     * @param mascara Las cartas, como long.
+     * @param permutacion La permutación, entre 0 y 5, como Entero.
+     * @return Las cartas con los palos reordenados, como long.
+     */
+    public static long permutar(long mascara, int permutacion) {
+        int[] destino = PERMUTACIONES[permutacion];
+        long resultado = mascara & PALO;
+        for (int palo = 1; palo < 4; palo++) {
+            resultado |= (mascara >>> (palo * Carta.CARTAS_POR_PALO) & PALO) << (destino[palo] * Carta.CARTAS_POR_PALO);
+        }
+        return resultado;
+    }
+
+    /**
+     * Reordena el palo de una carta.
+     *
+     * @param id El identificador de la carta, como Entero.
+     * @param permutacion La permutación, entre 0 y 5, como Entero.
+     * @return El identificador de la carta con el palo cambiado, como Entero.
+     */
+    public static int permutarCarta(int id, int permutacion) {
+        return PERMUTACIONES[permutacion][id / Carta.CARTAS_POR_PALO] * Carta.CARTAS_POR_PALO + id % Carta.CARTAS_POR_PALO;
+    }
+
+    /**
+     * Devuelve la permutación que deshace otra.
+     *
+     * @param permutacion La permutación, entre 0 y 5, como Entero.
+     * @return Su inversa, como Entero.
+     */
+    public static int inversa(int permutacion) {
+        return INVERSAS[permutacion];
+    }
+
+    /**
+     * Busca la permutación que lleva los palos 1, 2 y 3 a los huecos dados.
+     */
+    private static int indice(int uno, int dos, int tres) {
+        for (int p = 0; p < NUM_PERMUTACIONES; p++) {
+            if (PERMUTACIONES[p][1] == uno && PERMUTACIONES[p][2] == dos && PERMUTACIONES[p][3] == tres) {
+                return p;
+            }
+        }
+        throw new IllegalArgumentException("No es una permutación de los palos");
+    }
+
+    private static long mezclar(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
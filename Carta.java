@@ -1,7 +1,12 @@
 /*
  * Representa una carta, formada por un número y su palo correspondiente
+ * Solo existen 48 instancias, creadas una vez: se obtienen con Carta.of y se pueden comparar con ==.
  */
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 public class Carta {
 
     private final int numero;
@@ -10,18 +15,66 @@ public class Carta {
         OROS, BASTOS, ESPADAS, COPAS
     };
     private final tipoPalo palo;
+    private final int id;
+    private final String texto;
+    private final String textoPlano;
+    private final byte[] bytes;
+    private final byte[] bytesPlanos;
+
+    public static final int NUM_CARTAS = 48;
+    public static final int CARTAS_POR_PALO = 12;
+
+    private static final tipoPalo[] PALOS = tipoPalo.values();
+    private static final Carta[] CARTAS = new Carta[NUM_CARTAS];
+
+    static {
+        for (tipoPalo palo : PALOS) {
+            for (int numero = 1; numero <= CARTAS_POR_PALO; numero++) {
+                Carta carta = new Carta(numero, palo);
+                CARTAS[carta.id] = carta;
+            }
+        }
+    }
 
     /**
-     * Crea una nueva carta.
+     * Crea una nueva carta. Solo se usa para llenar la tabla de cartas.
      *
      * @param numero El valor numérico Entero de la carta, entre 1 y 12.
      * @param palo El palo de la carta, puede ser OROS, BASTOS, ESPADAS o COPAS,
      * siempre como tipoPalo o Carta.tipoPalo.
      */
-    public Carta(int numero, tipoPalo palo) {
+    private Carta(int numero, tipoPalo palo) {
         this.numero = numero;
         this.palo = palo;
+        this.id = palo.ordinal() * CARTAS_POR_PALO + numero - 1;
+        this.texto = componerTexto(true);
+        this.textoPlano = componerTexto(false);
+        this.bytes = texto.getBytes(StandardCharsets.UTF_8);
+        this.bytesPlanos = textoPlano.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Devuelve la carta con un número y un palo.
+     *
+     * @param numero El valor numérico Entero de la carta, entre 1 y 12.
+     * @param palo El palo de la carta, como tipoPalo o Carta.tipoPalo.
+     * @return La única instancia de esa carta, como Carta.
+     */
+    public static Carta of(int numero, tipoPalo palo) {
+        if (numero < 1 || numero > CARTAS_POR_PALO) {
+            throw new IllegalArgumentException("Número de carta no válido: " + numero);
+        }
+        return CARTAS[palo.ordinal() * CARTAS_POR_PALO + numero - 1];
+    }
 
+    /**
+     * Devuelve la carta con un identificador.
+     *
+     * @param id El identificador de la carta, de 0 a 47, como Entero.
+     * @return La única instancia de esa carta, como Carta.
+     */
+    public static Carta of(int id) {
+        return CARTAS[id];
     }
 
     /**
@@ -43,12 +96,66 @@ public class Carta {
     }
 
     /**
-     * Pasa una carta a un formato de String.
+     * Devuelve el identificador de la carta, que se puede usar como índice de
+     * un array: palo * 12 + numero - 1.
+     *
+     * @return El identificador de la carta, de 0 a 47, como Entero.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Pasa una carta a un formato de String. El texto se compone una sola vez
+     * al crear la carta.
      *
      * @return El string, estilizado, de la carta.
      */
     @Override
     public String toString() {
+        return texto;
+    }
+
+    /**
+     * Devuelve el texto de la carta, con o sin los códigos de color ANSI.
+     *
+     * @param color true para el texto con colores, false para el texto plano
+     * (por ejemplo para ficheros de log).
+     * @return El texto de la carta, como String.
+     */
+    public String getTexto(boolean color) {
+        return color ? texto : textoPlano;
+    }
+
+    /**
+     * Escribe el texto de la carta en un Appendable, sin crear objetos.
+     *
+     * @param destino Donde se escribe, como Appendable.
+     * @param color true para el texto con colores, false para el texto plano.
+     * @throws IOException Si falla la escritura.
+     */
+    public void escribirEn(Appendable destino, boolean color) throws IOException {
+        destino.append(color ? texto : textoPlano);
+    }
+
+    /**
+     * Escribe el texto de la carta en UTF-8 en un ByteBuffer, sin crear
+     * objetos.
+     *
+     * @param destino Donde se escribe, como ByteBuffer.
+     * @param color true para el texto con colores, false para el texto plano.
+     */
+    public void escribirEn(ByteBuffer destino, boolean color) {
+        destino.put(color ? bytes : bytesPlanos);
+    }
+
+    /**
+     * Compone el texto de la carta.
+     *
+     * @param color true para incluir los códigos de color ANSI.
+     * @return El string, estilizado o no, de la carta.
+     */
+    private String componerTexto(boolean color) {
 
         String colorPalo = "";
         switch (this.palo) {
@@ -85,7 +192,11 @@ public class Carta {
         }
 
         StringBuilder sb = new StringBuilder();
-        sb.append(nombreNumero).append(" de ").append(colorPalo).append(this.palo.toString().toLowerCase()).append("\u001B[0m");
+        if (color) {
+            sb.append(nombreNumero).append(" de ").append(colorPalo).append(this.palo.toString().toLowerCase()).append("\u001B[0m");
+        } else {
+            sb.append(nombreNumero).append(" de ").append(this.palo.toString().toLowerCase());
+        }
 
         return sb.toString();
     }
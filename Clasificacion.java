@@ -0,0 +1,172 @@
+/*
+ * Clasificación de estrategias en puntos Elo, con su error típico, calculada a partir de los
+ * enfrentamientos de una Liga con el modelo de Bradley-Terry (el mismo que hay detrás del Elo).
+ * Al ajustar todos los resultados a la vez, en lugar de ir actualizando partida a partida, la
+ * clasificación no depende del orden en que se jugaron las partidas ni de cuántos hilos las jugaron.
+ * Las puntuaciones van centradas en 0.
+ */
+
+import java.util.Arrays;
+
+public class Clasificacion {
+
+    private static final double ESCALA_ELO = 400 / Math.log(10);
+    private static final int MAX_ITERACIONES = 10_000;
+
+    private final String[] nombres;
+    private final double[] elo;
+    private final double[] error;
+    private final double[] puntosPorPartida;
+    private final Integer[] orden;
+    private final long repartos;
+
+    /**
+     * Calcula la clasificación de unos resultados. A cada par de estrategias
+     * se le suma un empate ficticio para que ninguna puntuación se vaya al
+     * infinito si una estrategia lo gana o lo pierde todo.
+     *
+     * @param nombres El nombre de cada estrategia, como array de String.
+     * @param resultados Los enfrentamientos, como ResultadosLiga.
+     */
+    public Clasificacion(String[] nombres, ResultadosLiga resultados) {
+        int m = nombres.length;
+        this.nombres = nombres.clone();
+        this.repartos = resultados.getRepartos();
+        double[] victorias = new double[m];
+        double[][] partidas = new double[m][m];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < m; j++) {
+                if (i != j) {
+                    partidas[i][j] = resultados.getEnfrentamientos(i, j) + 1;
+                    victorias[i] += resultados.getResultado(i, j) + 0.5;
+                }
+            }
+        }
+
+        // Algoritmo MM de Hunter para la máxima verosimilitud de Bradley-Terry
+        double[] fuerza = new double[m];
+        Arrays.fill(fuerza, 1);
+        for (int iteracion = 0; iteracion < MAX_ITERACIONES; iteracion++) {
+            double cambio = 0;
+            double sumaLog = 0;
+            for (int i = 0; i < m; i++) {
+                double denominador = 0;
+                for (int j = 0; j < m; j++) {
+                    if (i != j) {
+                        denominador += partidas[i][j] / (fuerza[i] + fuerza[j]);
+                    }
+                }
+                double nueva = victorias[i] / denominador;
+                cambio = Math.max(cambio, Math.abs(Math.log(nueva / fuerza[i])));
+                fuerza[i] = nueva;
+                sumaLog += Math.log(nueva);
+            }
+            double media = Math.exp(sumaLog / m);
+            for (int i = 0; i < m; i++) {
+                fuerza[i] /= media;
+            }
+            if (cambio < 1e-10) {
+                break;
+            }
+        }
+
+        elo = new double[m];
+        error = new double[m];
+        puntosPorPartida = new double[m];
+        for (int i = 0; i < m; i++) {
+            elo[i] = Math.log(fuerza[i]) * ESCALA_ELO;
+            // Error típico a partir de la información de Fisher de cada estrategia
+            double informacion = 0;
+            for (int j = 0; j < m; j++) {
+                if (i != j) {
+                    double p = fuerza[i] / (fuerza[i] + fuerza[j]);
+                    informacion += partidas[i][j] * p * (1 - p);
+                }
+            }
+            error[i] = ESCALA_ELO / Math.sqrt(informacion);
+            puntosPorPartida[i] = resultados.getPuntos(i).getMedia();
+        }
+        orden = new Integer[m];
+        for (int i = 0; i < m; i++) {
+            orden[i] = i;
+        }
+        Arrays.sort(orden, (a, b) -> Double.compare(elo[b], elo[a]));
+    }
+
+    /**
+     * Devuelve la puntuación Elo de una estrategia.
+     *
+     * @param estrategia La estrategia, como Entero.
+     * @return La puntuación, como double.
+     */
+    public double getElo(int estrategia) {
+        return elo[estrategia];
+    }
+
+    /**
+     * Devuelve el error típico de la puntuación de una estrategia.
+     *
+     * @param estrategia La estrategia, como Entero.
+     * @return El error típico, en puntos Elo, como double.
+     */
+    public double getError(int estrategia) {
+        return error[estrategia];
+    }
+
+    /**
+     * Devuelve la estrategia que va en un puesto de la clasificación.
+     *
+     * @param puesto El puesto, empezando por 0, como Entero.
+     * @return La estrategia, como Entero.
+     */
+    public int getEstrategia(int puesto) {
+        return orden[puesto];
+    }
+
+    /**
+     * Devuelve el número de repartos con los que se ha calculado.
+     *
+     * @return El número de repartos, como long.
+     */
+    public long getRepartos() {
+        return repartos;
+    }
+
+    /**
+     * Te dice si el orden de la clasificación es estable: si cada estrategia
+     * está por encima de la siguiente con una diferencia mayor que z veces el
+     * error típico de la diferencia.
+     *
+     * @param z El número de errores típicos (1.96 para un 95 %), como double.
+     * @return true si todos los puestos están separados, false si no.
+     */
+    public boolean esEstable(double z) {
+        for (int puesto = 0; puesto + 1 < orden.length; puesto++) {
+            int a = orden[puesto];
+            int b = orden[puesto + 1];
+            double errorDiferencia = Math.sqrt(error[a] * error[a] + error[b] * error[b]);
+            if (elo[a] - elo[b] <= z * errorDiferencia) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Pasa la clasificación a un formato de String.
+     *
+     * @return Una línea por estrategia, de mejor a peor, con su Elo, el
+     * intervalo del 95 % y los puntos por partida, como String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Repartos: ").append(repartos).append('\n');
+        for (int puesto = 0; puesto < orden.length; puesto++) {
+            int e = orden[puesto];
+            sb.append(String.format("%d. %-20s %7.1f ± %5.1f Elo | %.3f puntos/partida%n",
+                    puesto + 1, nombres[e], elo[e], 1.96 * error[e], puntosPorPartida[e]));
+        }
+        return sb.toString();
+    }
+}
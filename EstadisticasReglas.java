@@ -0,0 +1,223 @@
+/*
+ * Acumula sobre la marcha las estadísticas de las reglas para muchas partidas de un mismo número de
+ * jugadores: cuánto gana quien abre, cuántas rondas dura una partida hasta que cae el as de oros (y
+ * cuánto vale entonces), y los puntos y victorias de cada asiento.
+ * Usa memoria fija sea cual sea el número de partidas. Cada hilo llena las suyas y al final se
+ * juntan con combinar, sin cerrojos.
+ */
+
+public class EstadisticasReglas {
+
+    private static final int LIMITE_RONDAS = 64;
+    private static final int LIMITE_PUNTOS = 512;
+
+    private final int numJugadores;
+    private long partidas;
+    private long ganadasPorQuienEmpieza;
+    private long rondas;
+    private long rondasGanadasAbriendo;
+    private final MediaOnline mediaRondas = new MediaOnline();
+    private final HistogramaEnteros histogramaRondas = new HistogramaEnteros(LIMITE_RONDAS);
+    private final long[] victorias;
+    private final long[] asDeOros;
+    private final MediaOnline[] mediaPuntos;
+    private final HistogramaEnteros[] histogramaPuntos;
+
+    /**
+     * Crea unas estadísticas vacías.
+     *
+     * @param numJugadores El número de jugadores de las partidas, como
+     * Entero.
+     */
+    public EstadisticasReglas(int numJugadores) {
+        this.numJugadores = numJugadores;
+        victorias = new long[numJugadores];
+        asDeOros = new long[numJugadores];
+        mediaPuntos = new MediaOnline[numJugadores];
+        histogramaPuntos = new HistogramaEnteros[numJugadores];
+        for (int i = 0; i < numJugadores; i++) {
+            mediaPuntos[i] = new MediaOnline();
+            histogramaPuntos[i] = new HistogramaEnteros(LIMITE_PUNTOS);
+        }
+    }
+
+    /**
+     * Añade una partida a las estadísticas.
+     *
+     * @param resultado El resultado de la partida, como ResultadoPartida.
+     */
+    public void anotar(ResultadoPartida resultado) {
+        if (resultado.getNumJugadores() != numJugadores) {
+            throw new IllegalArgumentException("La partida es de " + resultado.getNumJugadores() + " jugadores");
+        }
+        partidas++;
+        if (resultado.getAsientoInicial() >= 0 && resultado.esGanador(resultado.getAsientoInicial())) {
+            ganadasPorQuienEmpieza++;
+        }
+        rondas += resultado.getRondas();
+        rondasGanadasAbriendo += resultado.getRondasGanadasAbriendo();
+        mediaRondas.anotar(resultado.getRondas());
+        histogramaRondas.anotar(resultado.getRondas());
+        asDeOros[resultado.getAsientoAsDeOros()]++;
+        for (int i = 0; i < numJugadores; i++) {
+            if (resultado.esGanador(i)) {
+                victorias[i]++;
+            }
+            mediaPuntos[i].anotar(resultado.getPuntuacion(i));
+            histogramaPuntos[i].anotar(resultado.getPuntuacion(i));
+        }
+    }
+
+    /**
+     * Junta con estas estadísticas las de otro trozo de partidas.
+     *
+     * @param otras Las otras estadísticas, como EstadisticasReglas.
+     * @return Estas mismas estadísticas, como EstadisticasReglas.
+     */
+    public EstadisticasReglas combinar(EstadisticasReglas otras) {
+        if (otras.numJugadores != numJugadores) {
+            throw new IllegalArgumentException("Las estadísticas son de otro número de jugadores");
+        }
+        partidas += otras.partidas;
+        ganadasPorQuienEmpieza += otras.ganadasPorQuienEmpieza;
+        rondas += otras.rondas;
+        rondasGanadasAbriendo += otras.rondasGanadasAbriendo;
+        mediaRondas.combinar(otras.mediaRondas);
+        histogramaRondas.combinar(otras.histogramaRondas);
+        for (int i = 0; i < numJugadores; i++) {
+            victorias[i] += otras.victorias[i];
+            asDeOros[i] += otras.asDeOros[i];
+            mediaPuntos[i].combinar(otras.mediaPuntos[i]);
+            histogramaPuntos[i].combinar(otras.histogramaPuntos[i]);
+        }
+        return this;
+    }
+
+    /**
+     * Devuelve el número de jugadores de las partidas.
+     *
+     * @return El número de jugadores, como Entero.
+     */
+    public int getNumJugadores() {
+        return numJugadores;
+    }
+
+    /**
+     * Devuelve el número de partidas anotadas.
+     *
+     * @return El número de partidas, como long.
+     */
+    public long getPartidas() {
+        return partidas;
+    }
+
+    /**
+     * Devuelve la probabilidad de que quien abre la primera ronda gane (o
+     * empate en cabeza) la partida.
+     *
+     * @return La probabilidad, como double.
+     */
+    public double getProbabilidadGanaQuienEmpieza() {
+        return partidas == 0 ? 0 : (double) ganadasPorQuienEmpieza / partidas;
+    }
+
+    /**
+     * Devuelve la probabilidad de que quien abre una ronda la gane.
+     *
+     * @return La probabilidad, como double.
+     */
+    public double getProbabilidadGanaRondaQuienAbre() {
+        return rondas == 0 ? 0 : (double) rondasGanadasAbriendo / rondas;
+    }
+
+    /**
+     * Devuelve la media y la varianza del número de rondas por partida.
+     *
+     * @return Las rondas por partida, como MediaOnline.
+     */
+    public MediaOnline getRondas() {
+        return mediaRondas;
+    }
+
+    /**
+     * Devuelve la distribución del número de rondas hasta que cae el as de
+     * oros. En la ronda r el as de oros vale 2 * r puntos.
+     *
+     * @return El histograma de rondas por partida, como HistogramaEnteros.
+     */
+    public HistogramaEnteros getHistogramaRondas() {
+        return histogramaRondas;
+    }
+
+    /**
+     * Devuelve la proporción de partidas que ha ganado (o empatado en
+     * cabeza) un asiento.
+     *
+     * @param asiento El asiento, como Entero.
+     * @return La proporción, como double.
+     */
+    public double getProporcionVictorias(int asiento) {
+        return partidas == 0 ? 0 : (double) victorias[asiento] / partidas;
+    }
+
+    /**
+     * Devuelve la proporción de partidas en que un asiento ha colocado el as
+     * de oros.
+     *
+     * @param asiento El asiento, como Entero.
+     * @return La proporción, como double.
+     */
+    public double getProporcionAsDeOros(int asiento) {
+        return partidas == 0 ? 0 : (double) asDeOros[asiento] / partidas;
+    }
+
+    /**
+     * Devuelve la media y la varianza de los puntos de un asiento.
+     *
+     * @param asiento El asiento, como Entero.
+     * @return Los puntos del asiento, como MediaOnline.
+     */
+    public MediaOnline getPuntos(int asiento) {
+        return mediaPuntos[asiento];
+    }
+
+    /**
+     * Devuelve la distribución de los puntos de un asiento.
+     *
+     * @param asiento El asiento, como Entero.
+     * @return El histograma de puntos del asiento, como HistogramaEnteros.
+     */
+    public HistogramaEnteros getHistogramaPuntos(int asiento) {
+        return histogramaPuntos[asiento];
+    }
+
+    /**
+     * Pasa las estadísticas a un formato de String.
+     *
+     * @return Un informe de varias líneas, como String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(numJugadores).append(" jugadores, ").append(partidas).append(" partidas\n");
+        sb.append(String.format("Gana quien abre la partida: %.4f | gana la ronda quien la abre: %.4f%n",
+                getProbabilidadGanaQuienEmpieza(), getProbabilidadGanaRondaQuienAbre()));
+        sb.append("Rondas por partida: ").append(mediaRondas)
+                .append(" | mediana ").append(histogramaRondas.getCuantil(0.5))
+                .append(", p90 ").append(histogramaRondas.getCuantil(0.9))
+                .append(", p99 ").append(histogramaRondas.getCuantil(0.99))
+                .append(", máx ").append(histogramaRondas.getMaximo()).append('\n');
+        sb.append("Rondas hasta el as de oros (puntos que vale):");
+        for (int r = 1; r <= Math.min(histogramaRondas.getMaximo(), 10); r++) {
+            sb.append(String.format(" %d(%d)=%.4f", r, 2 * r, histogramaRondas.getFrecuencia(r)));
+        }
+        sb.append('\n');
+        for (int i = 0; i < numJugadores; i++) {
+            HistogramaEnteros h = histogramaPuntos[i];
+            sb.append(String.format("Asiento %d: puntos %s | p50 %d, p90 %d, p99 %d | victorias %.4f | as de oros %.4f%n",
+                    i, mediaPuntos[i], h.getCuantil(0.5), h.getCuantil(0.9), h.getCuantil(0.99),
+                    getProporcionVictorias(i), getProporcionAsDeOros(i)));
+        }
+        return sb.toString();
+    }
+}
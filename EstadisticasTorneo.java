@@ -0,0 +1,156 @@
+/*
+ * Acumula los resultados de un torneo por estrategia: partidas, victorias y puntos.
+ * Cada hilo llena sus propias estadísticas y al final se suman con sumar, sin cerrojos.
+ */
+
+public class EstadisticasTorneo {
+
+    private final long[] partidas;
+    private final long[] victorias;
+    private final long[] puntos;
+    private final long[] puntosAlCuadrado;
+    private long rondas;
+
+    /**
+     * Crea unas estadísticas vacías.
+     *
+     * @param numEstrategias El número de estrategias del torneo, como Entero.
+     */
+    public EstadisticasTorneo(int numEstrategias) {
+        partidas = new long[numEstrategias];
+        victorias = new long[numEstrategias];
+        puntos = new long[numEstrategias];
+        puntosAlCuadrado = new long[numEstrategias];
+    }
+
+    /**
+     * Añade una partida a las estadísticas.
+     *
+     * @param resultado El resultado de la partida, como ResultadoPartida.
+     * @param estrategiaDeAsiento La estrategia que jugaba en cada asiento, como
+     * array de Entero.
+     */
+    public void anotar(ResultadoPartida resultado, int[] estrategiaDeAsiento) {
+        for (int asiento = 0; asiento < resultado.getNumJugadores(); asiento++) {
+            int e = estrategiaDeAsiento[asiento];
+            long p = resultado.getPuntuacion(asiento);
+            partidas[e]++;
+            puntos[e] += p;
+            puntosAlCuadrado[e] += p * p;
+            if (resultado.esGanador(asiento)) {
+                victorias[e]++;
+            }
+        }
+        rondas += resultado.getRondas();
+    }
+
+    /**
+     * Suma otras estadísticas a estas.
+     *
+     * @param otras Las estadísticas a sumar, como EstadisticasTorneo.
+     * @return Estas mismas estadísticas, como EstadisticasTorneo.
+     */
+    public EstadisticasTorneo sumar(EstadisticasTorneo otras) {
+        for (int e = 0; e < partidas.length; e++) {
+            partidas[e] += otras.partidas[e];
+            victorias[e] += otras.victorias[e];
+            puntos[e] += otras.puntos[e];
+            puntosAlCuadrado[e] += otras.puntosAlCuadrado[e];
+        }
+        rondas += otras.rondas;
+        return this;
+    }
+
+    /**
+     * Devuelve el número de estrategias.
+     *
+     * @return El número de estrategias, como Entero.
+     */
+    public int getNumEstrategias() {
+        return partidas.length;
+    }
+
+    /**
+     * Devuelve cuántas partidas ha jugado una estrategia.
+     *
+     * @param estrategia La estrategia, como Entero.
+     * @return El número de partidas, como long.
+     */
+    public long getPartidas(int estrategia) {
+        return partidas[estrategia];
+    }
+
+    /**
+     * Devuelve cuántas partidas ha ganado (o empatado en cabeza) una
+     * estrategia.
+     *
+     * @param estrategia La estrategia, como Entero.
+     * @return El número de victorias, como long.
+     */
+    public long getVictorias(int estrategia) {
+        return victorias[estrategia];
+    }
+
+    /**
+     * Devuelve los puntos totales de una estrategia.
+     *
+     * @param estrategia La estrategia, como Entero.
+     * @return Los puntos totales, como long.
+     */
+    public long getPuntos(int estrategia) {
+        return puntos[estrategia];
+    }
+
+    /**
+     * Devuelve el total de rondas jugadas en el torneo.
+     *
+     * @return El número de rondas, como long.
+     */
+    public long getRondas() {
+        return rondas;
+    }
+
+    /**
+     * Devuelve la media de puntos por partida de una estrategia.
+     *
+     * @param estrategia La estrategia, como Entero.
+     * @return La media de puntos, como double.
+     */
+    public double getMediaPuntos(int estrategia) {
+        return partidas[estrategia] == 0 ? 0 : (double) puntos[estrategia] / partidas[estrategia];
+    }
+
+    /**
+     * Devuelve la desviación típica de los puntos por partida de una
+     * estrategia.
+     *
+     * @param estrategia La estrategia, como Entero.
+     * @return La desviación típica, como double.
+     */
+    public double getDesviacionPuntos(int estrategia) {
+        long n = partidas[estrategia];
+        if (n < 2) {
+            return 0;
+        }
+        double media = getMediaPuntos(estrategia);
+        double varianza = ((double) puntosAlCuadrado[estrategia] - n * media * media) / (n - 1);
+        return Math.sqrt(Math.max(varianza, 0));
+    }
+
+    /**
+     * Pasa las estadísticas a un formato de String.
+     *
+     * @return Una línea por estrategia, como String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int e = 0; e < partidas.length; e++) {
+            sb.append("Estrategia ").append(e).append(": ")
+                    .append(partidas[e]).append(" partidas, ")
+                    .append(victorias[e]).append(" victorias, ")
+                    .append(String.format("%.3f", getMediaPuntos(e))).append(" puntos de media\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,423 @@
+/*
+ * Representa el estado de una ronda en unas pocas palabras de memoria.
+ * Estructura: cada carta tiene un identificador de 0 a 47 (palo * 12 + numero - 1), cada mano es
+ * un long con un bit por carta y cada palo de la mesa se guarda como el número más bajo y el más
+ * alto colocados (0 si el palo está vacío).
+ * Funcionalidad: saber qué cartas se pueden colocar, colocar una carta, convertir desde y hacia
+ * Mesa y Jugador. Ninguna operación de turno crea objetos.
+ */
+
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+
+public class EstadoCompacto {
+
+    public static final int NUM_CARTAS = Carta.NUM_CARTAS;
+    public static final int CARTAS_POR_PALO = Carta.CARTAS_POR_PALO;
+    public static final int NUM_PALOS = 4;
+    public static final int AS_DE_OROS = 0;
+    public static final long TODAS = (1L << NUM_CARTAS) - 1;
+
+    private final long[] manos;
+    private final int[] minimo;
+    private final int[] maximo;
+    private long jugables;
+
+    /**
+     * Crea un nuevo estado con la mesa vacía y las manos vacías.
+     *
+     * @param numJugadores El número de jugadores, como Entero.
+     */
+    public EstadoCompacto(int numJugadores) {
+        manos = new long[numJugadores];
+        minimo = new int[NUM_PALOS];
+        maximo = new int[NUM_PALOS];
+        vaciarMesa();
+    }
+
+    /**
+     * Devuelve el identificador de una carta.
+     *
+     * @param carta La carta, como Carta.
+     * @return El identificador de la carta, de 0 a 47, como Entero.
+     */
+    public static int id(Carta carta) {
+        return carta.getId();
+    }
+
+    /**
+     * Devuelve el identificador de una carta a partir de su número y palo.
+     *
+     * @param numero El número de la carta, entre 1 y 12, como Entero.
+     * @param palo El palo de la carta, de 0 a 3, como Entero.
+     * @return El identificador de la carta, como Entero.
+     */
+    public static int id(int numero, int palo) {
+        return palo * CARTAS_POR_PALO + numero - 1;
+    }
+
+    /**
+     * Devuelve el número de la carta con ese identificador.
+     *
+     * @param id El identificador de la carta, como Entero.
+     * @return El número de la carta, entre 1 y 12, como Entero.
+     */
+    public static int numero(int id) {
+        return id % CARTAS_POR_PALO + 1;
+    }
+
+    /**
+     * Devuelve el palo de la carta con ese identificador.
+     *
+     * @param id El identificador de la carta, como Entero.
+     * @return El ordinal del palo, de 0 a 3, como Entero.
+     */
+    public static int palo(int id) {
+        return id / CARTAS_POR_PALO;
+    }
+
+    /**
+     * Devuelve la Carta que corresponde a un identificador.
+     *
+     * @param id El identificador de la carta, como Entero.
+     * @return La carta, como Carta.
+     */
+    public static Carta carta(int id) {
+        return Carta.of(id);
+    }
+
+    /**
+     * Convierte una colección de cartas en una máscara de bits.
+     *
+     * @param cartas Las cartas, como Collection de Carta.
+     * @return La máscara con un bit por carta, como long.
+     */
+    public static long mascara(Collection<Carta> cartas) {
+        long mascara = 0;
+        for (Carta carta : cartas) {
+            mascara |= 1L << id(carta);
+        }
+        return mascara;
+    }
+
+    /**
+     * Crea un estado compacto a partir de una mesa y de las manos de los
+     * jugadores.
+     *
+     * @param mesa La mesa, como Mesa.
+     * @param jugadores Los jugadores, en el orden de los asientos, como List de
+     * Jugador.
+     * @return El estado equivalente, como EstadoCompacto.
+     */
+    public static EstadoCompacto desde(Mesa mesa, List<Jugador> jugadores) {
+        EstadoCompacto estado = new EstadoCompacto(jugadores.size());
+        for (int palo = 0; palo < NUM_PALOS; palo++) {
+            Deque<Carta> monton = mesa.mesa[palo];
+            if (!monton.isEmpty()) {
+                // El primero del montón es el más alto y el último el más bajo
+                estado.minimo[palo] = monton.getLast().getNumero();
+                estado.maximo[palo] = monton.getFirst().getNumero();
+            }
+        }
+        estado.recalcularJugables();
+        for (int i = 0; i < jugadores.size(); i++) {
+            estado.manos[i] = jugadores.get(i).getMascaraMano();
+        }
+        return estado;
+    }
+
+    /**
+     * Vuelca este estado en una mesa y en las manos de los jugadores. La mesa y
+     * las manos deben estar vacías.
+     *
+     * @param mesa La mesa vacía, como Mesa.
+     * @param jugadores Los jugadores con la mano vacía, en el orden de los
+     * asientos, como List de Jugador.
+     */
+    public void volcarEn(Mesa mesa, List<Jugador> jugadores) {
+        for (int palo = 0; palo < NUM_PALOS; palo++) {
+            if (minimo[palo] != 0) {
+                // Desde el 5 hacia los extremos, como se colocan en el juego
+                for (int numero = 5; numero <= maximo[palo]; numero++) {
+                    mesa.colocar(carta(id(numero, palo)));
+                }
+                for (int numero = 4; numero >= minimo[palo]; numero--) {
+                    mesa.colocar(carta(id(numero, palo)));
+                }
+            }
+        }
+        for (int i = 0; i < manos.length; i++) {
+            long mano = manos[i];
+            while (mano != 0) {
+                jugadores.get(i).insertarCarta(carta(Long.numberOfTrailingZeros(mano)));
+                mano &= mano - 1;
+            }
+        }
+    }
+
+    /**
+     * Devuelve el número de jugadores.
+     *
+     * @return El número de jugadores, como Entero.
+     */
+    public int getNumJugadores() {
+        return manos.length;
+    }
+
+    /**
+     * Devuelve la mano de un jugador.
+     *
+     * @param jugador El asiento del jugador, como Entero.
+     * @return La máscara de bits de su mano, como long.
+     */
+    public long getMano(int jugador) {
+        return manos[jugador];
+    }
+
+    /**
+     * Cambia la mano de un jugador.
+     *
+     * @param jugador El asiento del jugador, como Entero.
+     * @param mano La máscara de bits de su nueva mano, como long.
+     */
+    public void setMano(int jugador, long mano) {
+        manos[jugador] = mano;
+    }
+
+    /**
+     * Devuelve el número más bajo colocado de un palo.
+     *
+     * @param palo El ordinal del palo, como Entero.
+     * @return El número más bajo, o 0 si no hay cartas de ese palo, como
+     * Entero.
+     */
+    public int getMinimo(int palo) {
+        return minimo[palo];
+    }
+
+    /**
+     * Devuelve el número más alto colocado de un palo.
+     *
+     * @param palo El ordinal del palo, como Entero.
+     * @return El número más alto, o 0 si no hay cartas de ese palo, como
+     * Entero.
+     */
+    public int getMaximo(int palo) {
+        return maximo[palo];
+    }
+
+    /**
+     * Devuelve las cartas que hay colocadas en la mesa.
+     *
+     * @return La máscara de cartas de la mesa, como long.
+     */
+    public long getCartasEnMesa() {
+        long enMesa = 0;
+        for (int palo = 0; palo < NUM_PALOS; palo++) {
+            if (minimo[palo] != 0) {
+                long tramo = (1L << (maximo[palo] - minimo[palo] + 1)) - 1;
+                enMesa |= tramo << id(minimo[palo], palo);
+            }
+        }
+        return enMesa;
+    }
+
+    /**
+     * Devuelve las cartas que se pueden colocar ahora mismo en la mesa, las
+     * tenga quien las tenga.
+     *
+     * @return La máscara de cartas colocables, como long.
+     */
+    public long getJugables() {
+        return jugables;
+    }
+
+    /**
+     * Devuelve las cartas de la mano de un jugador que se pueden colocar.
+     *
+     * @param jugador El asiento del jugador, como Entero.
+     * @return La máscara de jugadas legales, como long.
+     */
+    public long jugadasLegales(int jugador) {
+        return manos[jugador] & jugables;
+    }
+
+    /**
+     * Te dice si se puede colocar una carta sobre la mesa.
+     *
+     * @param id El identificador de la carta, como Entero.
+     * @return true si se puede colocar, false si no.
+     */
+    public boolean puedeColocarCarta(int id) {
+        return (jugables >>> id & 1L) != 0;
+    }
+
+    /**
+     * Te dice si un jugador puede colocar alguna carta de su mano.
+     *
+     * @param jugador El asiento del jugador, como Entero.
+     * @return true si puede colocar alguna carta, false si no puede.
+     */
+    public boolean puedeColocarAlgo(int jugador) {
+        return (manos[jugador] & jugables) != 0;
+    }
+
+    /**
+     * Te dice si la mano de un jugador está vacía.
+     *
+     * @param jugador El asiento del jugador, como Entero.
+     * @return true si no le quedan cartas, false si le quedan.
+     */
+    public boolean manoVacia(int jugador) {
+        return manos[jugador] == 0;
+    }
+
+    /**
+     * Quita una carta de la mano de un jugador y la coloca en la mesa. La carta
+     * tiene que poder colocarse.
+     *
+     * @param jugador El asiento del jugador, como Entero.
+     * @param id El identificador de la carta, como Entero.
+     * @return true si la carta es el as de oros, false si no lo es.
+     */
+    public boolean colocar(int jugador, int id) {
+        manos[jugador] &= ~(1L << id);
+        colocarEnMesa(id);
+        return id == AS_DE_OROS;
+    }
+
+    /**
+     * Coloca una carta en la mesa sin quitarla de ninguna mano.
+     *
+     * @param id El identificador de la carta, como Entero.
+     */
+    public void colocarEnMesa(int id) {
+        int palo = palo(id);
+        int numero = numero(id);
+        if (minimo[palo] == 0) {
+            minimo[palo] = numero;
+            maximo[palo] = numero;
+        } else if (numero < minimo[palo]) {
+            minimo[palo] = numero;
+        } else {
+            maximo[palo] = numero;
+        }
+        jugables = (jugables & ~mascaraPalo(palo)) | jugablesPalo(palo);
+    }
+
+    /**
+     * Deshace una jugada: quita la carta de la mesa y la devuelve a la mano del
+     * jugador. La carta tiene que ser la última colocada de su palo por ese
+     * extremo.
+     *
+     * @param jugador El asiento del jugador, como Entero.
+     * @param id El identificador de la carta, como Entero.
+     * @throws IllegalStateException Si la carta no se puede quitar de la mesa.
+     */
+    public void deshacer(int jugador, int id) {
+        quitarDeMesa(id);
+        manos[jugador] |= 1L << id;
+    }
+
+    /**
+     * Quita de la mesa una carta que está en uno de los extremos de su palo.
+     * El 5 solo se puede quitar cuando es la única carta de su palo.
+     *
+     * @param id El identificador de la carta, como Entero.
+     * @throws IllegalStateException Si la carta no está en la mesa o no se
+     * puede quitar.
+     */
+    public void quitarDeMesa(int id) {
+        int palo = palo(id);
+        int numero = numero(id);
+        if (minimo[palo] == numero && maximo[palo] == numero) {
+            minimo[palo] = 0;
+            maximo[palo] = 0;
+        } else if (numero == 5 || minimo[palo] == 0) {
+            throw new IllegalStateException("La carta " + id + " no se puede quitar de la mesa");
+        } else if (numero == minimo[palo]) {
+            minimo[palo]++;
+        } else if (numero == maximo[palo]) {
+            maximo[palo]--;
+        } else {
+            throw new IllegalStateException("La carta " + id + " no está en un extremo de la mesa");
+        }
+        jugables = (jugables & ~mascaraPalo(palo)) | jugablesPalo(palo);
+    }
+
+    /**
+     * Quita todas las cartas de la mesa.
+     */
+    public void vaciarMesa() {
+        for (int palo = 0; palo < NUM_PALOS; palo++) {
+            minimo[palo] = 0;
+            maximo[palo] = 0;
+        }
+        recalcularJugables();
+    }
+
+    /**
+     * Vacía la mesa y todas las manos.
+     */
+    public void vaciar() {
+        vaciarMesa();
+        for (int i = 0; i < manos.length; i++) {
+            manos[i] = 0;
+        }
+    }
+
+    /**
+     * Copia otro estado sobre este, sin crear objetos.
+     *
+     * @param otro El estado a copiar, con el mismo número de jugadores, como
+     * EstadoCompacto.
+     */
+    public void copiarDe(EstadoCompacto otro) {
+        System.arraycopy(otro.manos, 0, manos, 0, manos.length);
+        System.arraycopy(otro.minimo, 0, minimo, 0, NUM_PALOS);
+        System.arraycopy(otro.maximo, 0, maximo, 0, NUM_PALOS);
+        jugables = otro.jugables;
+    }
+
+    /**
+     * Devuelve la máscara con todas las cartas de un palo.
+     *
+     * @param palo El ordinal del palo, como Entero.
+     * @return La máscara del palo, como long.
+     */
+    public static long mascaraPalo(int palo) {
+        return 0xFFFL << (palo * CARTAS_POR_PALO);
+    }
+
+    /**
+     * Calcula las cartas colocables de un palo: el 5 si el palo está vacío, o
+     * las vecinas de los extremos si no.
+     *
+     * @param palo El ordinal del palo, como Entero.
+     * @return La máscara de cartas colocables del palo, como long.
+     */
+    private long jugablesPalo(int palo) {
+        if (minimo[palo] == 0) {
+            return 1L << id(5, palo);
+        }
+        long resultado = 0;
+        if (minimo[palo] > 1) {
+            resultado |= 1L << id(minimo[palo] - 1, palo);
+        }
+        if (maximo[palo] < CARTAS_POR_PALO) {
+            resultado |= 1L << id(maximo[palo] + 1, palo);
+        }
+        return resultado;
+    }
+
+    /**
+     * Recalcula la máscara de cartas colocables de todos los palos.
+     */
+    private void recalcularJugables() {
+        jugables = 0;
+        for (int palo = 0; palo < NUM_PALOS; palo++) {
+            jugables |= jugablesPalo(palo);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Algo que ha pasado en una partida, para quien quiera seguirla sin leer la consola: registros,
+ * métricas, espectadores o la interfaz. Los eventos no cambian una vez creados y se publican en un
+ * BusEventos, que les pone el número de secuencia.
+ * Cada tipo usa solo algunos datos; los demás valen -1 o null:
+ * RONDA_EMPEZADA: ronda, orden de turno y puntos del as de oros.
+ * CARTAS_REPARTIDAS: ronda y mano de cada asiento.
+ * CARTA_COLOCADA: ronda, asiento y carta.
+ * PASE: ronda y asiento.
+ * AS_DE_OROS_COLOCADO: ronda, asiento y puntos que gana.
+ * RONDA_GANADA: ronda, asiento y puntos que gana.
+ * PARTIDA_TERMINADA: rondas jugadas y puntuación de cada asiento.
+ */
+
+import java.util.Arrays;
+
+public final class Evento {
+
+    public enum tipoEvento {
+        RONDA_EMPEZADA, CARTAS_REPARTIDAS, CARTA_COLOCADA, PASE, AS_DE_OROS_COLOCADO, RONDA_GANADA, PARTIDA_TERMINADA
+    }
+
+    private final tipoEvento tipo;
+    private final int ronda;
+    private final int asiento;
+    private final int carta;
+    private final int puntos;
+    private final int[] asientos;
+    private final long[] manos;
+    // La pone el bus al publicar el evento, antes de que nadie más lo vea
+    long secuencia = -1;
+
+    private Evento(tipoEvento tipo, int ronda, int asiento, int carta, int puntos, int[] asientos, long[] manos) {
+        this.tipo = tipo;
+        this.ronda = ronda;
+        this.asiento = asiento;
+        this.carta = carta;
+        this.puntos = puntos;
+        this.asientos = asientos;
+        this.manos = manos;
+    }
+
+    /**
+     * Crea el evento de principio de ronda.
+     *
+     * @param ronda El número de la ronda, empezando en 1, como Entero.
+     * @param orden Los asientos en orden de turno, como array de Entero.
+     * @param puntosAsDeOros Lo que vale el as de oros en la ronda, como
+     * Entero.
+     * @return El evento, como Evento.
+     */
+    public static Evento rondaEmpezada(int ronda, int[] orden, int puntosAsDeOros) {
+        return new Evento(tipoEvento.RONDA_EMPEZADA, ronda, -1, -1, puntosAsDeOros, orden.clone(), null);
+    }
+
+    /**
+     * Crea el evento del reparto.
+     *
+     * @param ronda El número de la ronda, como Entero.
+     * @param manos La mano de cada asiento, como array de long.
+     * @return El evento, como Evento.
+     */
+    public static Evento cartasRepartidas(int ronda, long[] manos) {
+        return new Evento(tipoEvento.CARTAS_REPARTIDAS, ronda, -1, -1, -1, null, manos.clone());
+    }
+
+    /**
+     * Crea el evento de una carta colocada.
+     *
+     * @param ronda El número de la ronda, como Entero.
+     * @param asiento El asiento que la coloca, como Entero.
+     * @param carta La carta, como Carta.
+     * @return El evento, como Evento.
+     */
+    public static Evento cartaColocada(int ronda, int asiento, Carta carta) {
+        return new Evento(tipoEvento.CARTA_COLOCADA, ronda, asiento, carta.getId(), -1, null, null);
+    }
+
+    /**
+     * Crea el evento de un pase.
+     *
+     * @param ronda El número de la ronda, como Entero.
+     * @param asiento El asiento que pasa, como Entero.
+     * @return El evento, como Evento.
+     */
+    public static Evento pase(int ronda, int asiento) {
+        return new Evento(tipoEvento.PASE, ronda, asiento, -1, -1, null, null);
+    }
+
+    /**
+     * Crea el evento del as de oros colocado.
+     *
+     * @param ronda El número de la ronda, como Entero.
+     * @param asiento El asiento que lo coloca, como Entero.
+     * @param puntos Los puntos que gana, como Entero.
+     * @return El evento, como Evento.
+     */
+    public static Evento asDeOrosColocado(int ronda, int asiento, int puntos) {
+        return new Evento(tipoEvento.AS_DE_OROS_COLOCADO, ronda, asiento, EstadoCompacto.AS_DE_OROS, puntos, null, null);
+    }
+
+    /**
+     * Crea el evento del final de una ronda.
+     *
+     * @param ronda El número de la ronda, como Entero.
+     * @param asiento El asiento que se ha quedado sin cartas, como Entero.
+     * @param puntos Los puntos que gana, como Entero.
+     * @return El evento, como Evento.
+     */
+    public static Evento rondaGanada(int ronda, int asiento, int puntos) {
+        return new Evento(tipoEvento.RONDA_GANADA, ronda, asiento, -1, puntos, null, null);
+    }
+
+    /**
+     * Crea el evento del final de la partida.
+     *
+     * @param rondas Las rondas jugadas, como Entero.
+     * @param puntuaciones La puntuación de cada asiento, como array de Entero.
+     * @return El evento, como Evento.
+     */
+    public static Evento partidaTerminada(int rondas, int[] puntuaciones) {
+        return new Evento(tipoEvento.PARTIDA_TERMINADA, rondas, -1, -1, -1, puntuaciones.clone(), null);
+    }
+
+    /**
+     * Devuelve el número de secuencia que le ha dado el bus.
+     *
+     * @return La secuencia, o -1 si no se ha publicado, como long.
+     */
+    public long getSecuencia() {
+        return secuencia;
+    }
+
+    /**
+     * Devuelve el tipo del evento.
+     *
+     * @return El tipo, como tipoEvento.
+     */
+    public tipoEvento getTipo() {
+        return tipo;
+    }
+
+    /**
+     * Devuelve la ronda del evento, o las rondas jugadas si la partida ha
+     * terminado.
+     *
+     * @return La ronda, como Entero.
+     */
+    public int getRonda() {
+        return ronda;
+    }
+
+    /**
+     * Devuelve el asiento del jugador del evento.
+     *
+     * @return El asiento, o -1 si no hay, como Entero.
+     */
+    public int getAsiento() {
+        return asiento;
+    }
+
+    /**
+     * Devuelve la carta colocada.
+     *
+     * @return La carta, o null si no hay, como Carta.
+     */
+    public Carta getCarta() {
+        return carta < 0 ? null : Carta.of(carta);
+    }
+
+    /**
+     * Devuelve los puntos del evento: lo que vale el as de oros al empezar la
+     * ronda, o lo que se gana con el as de oros o con la ronda.
+     *
+     * @return Los puntos, o -1 si no hay, como Entero.
+     */
+    public int getPuntos() {
+        return puntos;
+    }
+
+    /**
+     * Devuelve el orden de turno del principio de ronda.
+     *
+     * @return Los asientos en orden de turno, o null si no hay, como array de
+     * Entero.
+     */
+    public int[] getOrden() {
+        return tipo == tipoEvento.RONDA_EMPEZADA ? asientos.clone() : null;
+    }
+
+    /**
+     * Devuelve las manos repartidas.
+     *
+     * @return La mano de cada asiento, o null si no hay, como array de long.
+     */
+    public long[] getManos() {
+        return manos == null ? null : manos.clone();
+    }
+
+    /**
+     * Devuelve las puntuaciones del final de la partida.
+     *
+     * @return La puntuación de cada asiento, o null si no hay, como array de
+     * Entero.
+     */
+    public int[] getPuntuaciones() {
+        return tipo == tipoEvento.PARTIDA_TERMINADA ? asientos.clone() : null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder texto = new StringBuilder();
+        texto.append('#').append(secuencia).append(' ').append(tipo).append(" ronda=").append(ronda);
+        if (asiento >= 0) {
+            texto.append(" asiento=").append(asiento);
+        }
+        if (carta >= 0) {
+            texto.append(" carta=").append(Carta.of(carta).getTexto(false));
+        }
+        if (puntos >= 0) {
+            texto.append(" puntos=").append(puntos);
+        }
+        if (asientos != null) {
+            texto.append(tipo == tipoEvento.RONDA_EMPEZADA ? " orden=" : " puntuaciones=").append(Arrays.toString(asientos));
+        }
+        if (manos != null) {
+            texto.append(" cartas=[");
+            for (int i = 0; i < manos.length; i++) {
+                texto.append(i == 0 ? "" : ", ").append(Long.bitCount(manos[i]));
+            }
+            texto.append(']');
+        }
+        return texto.toString();
+    }
+}
@@ -0,0 +1,18 @@
+/*
+ * Crea las políticas de una estrategia. El Torneo crea una política nueva por hilo,
+ * así que una política puede guardar estado sin sincronizarse.
+ */
+
+import java.util.random.RandomGenerator;
+
+public interface FabricaPolitica {
+
+    /**
+     * Crea una política nueva.
+     *
+     * @param random El generador de números aleatorios propio del hilo que va a
+     * usar la política, como RandomGenerator.
+     * @return La política, como Politica.
+     */
+    Politica crear(RandomGenerator random);
+}
@@ -0,0 +1,131 @@
+/*
+ * Cuenta cuántas veces sale cada valor entero entre 0 y un límite. Los valores que llegan al límite
+ * van a un último cubo de desbordamiento. Como los puntos y las rondas de una partida son enteros
+ * pequeños, los cuantiles salen exactos con una memoria fija, sin necesidad de aproximar.
+ * Dos histogramas de hilos distintos se juntan con combinar.
+ */
+
+public class HistogramaEnteros {
+
+    private final long[] cuentas;
+    private long total;
+
+    /**
+     * Crea un histograma vacío.
+     *
+     * @param limite El primer valor que ya va al cubo de desbordamiento, como
+     * Entero.
+     */
+    public HistogramaEnteros(int limite) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("El límite debe ser positivo: " + limite);
+        }
+        cuentas = new long[limite + 1];
+    }
+
+    /**
+     * Anota un valor.
+     *
+     * @param valor El valor, no negativo, como Entero.
+     */
+    public void anotar(int valor) {
+        if (valor < 0) {
+            throw new IllegalArgumentException("Valor negativo: " + valor);
+        }
+        cuentas[Math.min(valor, cuentas.length - 1)]++;
+        total++;
+    }
+
+    /**
+     * Junta con este histograma las cuentas de otro del mismo límite.
+     *
+     * @param otro El otro histograma, como HistogramaEnteros.
+     * @return Este mismo histograma, como HistogramaEnteros.
+     */
+    public HistogramaEnteros combinar(HistogramaEnteros otro) {
+        if (otro.cuentas.length != cuentas.length) {
+            throw new IllegalArgumentException("Los histogramas tienen límites distintos");
+        }
+        for (int i = 0; i < cuentas.length; i++) {
+            cuentas[i] += otro.cuentas[i];
+        }
+        total += otro.total;
+        return this;
+    }
+
+    /**
+     * Devuelve el límite del histograma.
+     *
+     * @return El límite, como Entero.
+     */
+    public int getLimite() {
+        return cuentas.length - 1;
+    }
+
+    /**
+     * Devuelve cuántos valores se han anotado.
+     *
+     * @return El número de valores, como long.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Devuelve cuántas veces se ha anotado un valor. Para el límite devuelve
+     * todos los valores desbordados.
+     *
+     * @param valor El valor, como Entero.
+     * @return Las veces, como long.
+     */
+    public long getCuenta(int valor) {
+        return valor < 0 ? 0 : cuentas[Math.min(valor, cuentas.length - 1)];
+    }
+
+    /**
+     * Devuelve la proporción de valores iguales a uno dado.
+     *
+     * @param valor El valor, como Entero.
+     * @return La proporción, entre 0 y 1, como double.
+     */
+    public double getFrecuencia(int valor) {
+        return total == 0 ? 0 : (double) getCuenta(valor) / total;
+    }
+
+    /**
+     * Devuelve el menor valor que deja por debajo (o igual) al menos una
+     * proporción de los valores.
+     *
+     * @param q La proporción, entre 0 y 1, como double.
+     * @return El cuantil, o el límite si cae en el desbordamiento, como
+     * Entero.
+     */
+    public int getCuantil(double q) {
+        if (total == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(q * total));
+        long acumulado = 0;
+        for (int i = 0; i < cuentas.length; i++) {
+            acumulado += cuentas[i];
+            if (acumulado >= objetivo) {
+                return i;
+            }
+        }
+        return cuentas.length - 1;
+    }
+
+    /**
+     * Devuelve el mayor valor anotado.
+     *
+     * @return El máximo, o -1 si no hay valores, como Entero.
+     */
+    public int getMaximo() {
+        for (int i = cuentas.length - 1; i >= 0; i--) {
+            if (cuentas[i] != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -1,100 +1,79 @@
 /**
  * Representa la interfaz del juego del Cinquillo-Oro, en este proyecto va a ser una entrada/salida en modo texto
  * Se recomienda una implementación modular.
+ * Implementaciones: IUConsola escribe cada mensaje en cuanto llega, IUBuffer junta todo lo que se
+ * muestra hasta que hay que leer algo y lo escribe de una vez (opcionalmente desde otro hilo), e
+ * IUSilenciosa no muestra nada y contesta con una Politica por jugador.
+ * Aquí solo está lo que necesita Juego; leer números o textos del teclado es cosa de IUConsola.
+ * Juego también avisa de cada ronda, jugada y pase por asiento, para las interfaces que no leen lo
+ * que se muestra.
  */
 
 import java.util.Collection;
-import java.util.InputMismatchException;
-import java.util.Scanner;
 import java.util.LinkedList;
 
-public class IU {
-
-    private final Scanner teclado;
+public interface IU {
 
     /**
-     * Crea una nueva interfaz de usuario.
+     * Muestra un mensaje por pantalla.
+     *
+     * @param msg El mensaje a mostrar, como String.
      */
-    public IU() {
-        teclado = new Scanner(System.in).useDelimiter("\r?\n");
-    }
+    void mostrarMensaje(String msg);
+
+    void mostrarMensaje(String msg, Object... args);
 
     /**
-     * Lee un num. de teclado
+     * Muestra las cartas que hay sobre la mesa.
      *
-     * @param msg El mensaje a visualizar.
-     * @return El num., como entero
+     * @param mesa La mesa de juego, como Mesa.
      */
-    public int leeNum(String msg) {
-        do {
-            System.out.print(msg);
-
-            try {
-                return teclado.nextInt();
-            } catch (InputMismatchException exc) {
-                teclado.next();
-                System.out.println("Entrada no válida. Debe ser un entero.");
-            }
-        } while (true);
-    }
+    void mostrarMesa(Mesa mesa);
 
     /**
-     * Lee un String.
+     * Muestra la mano del jugador.
      *
-     * @param msg Un mensaje que se mostrará por pantalla, como String.
-     * @return El texto leído, como String.
+     * @param jugador El jugador del que se quiere mostrar la mano, como
+     * Jugador.
      */
-    public String leeString(String msg) {
-        System.out.print(msg);
-        return teclado.next();
-    }
-
-    public String leeString(String msg, Object... args) {
-        System.out.printf(msg, args);
-        return teclado.next();
-    }
+    void mostrarMano(Jugador jugador);
 
     /**
-     * Muestra un mensaje por pantalla.
+     * Lee una posición de un carta en la mano de un jugador.
      *
-     * @param msg El mensaje a mostrar, como String.
+     * @param asiento El asiento del jugador, como Entero.
+     * @param jugador El jugador de cuya mano se quiere leer la posición de una
+     * carta, como Jugador.
+     * @return El número leído, como Entero.
      */
-    public void mostrarMensaje(String msg) {
-        System.out.println(msg);
-    }
+    int leePosCartaMano(int asiento, Jugador jugador);
 
-    public void mostrarMensaje(String msg, Object... args) {
-        System.out.printf(msg, args);
+    /**
+     * Avisa de que empieza una ronda, ya repartida.
+     *
+     * @param orden Los asientos en orden de turno, empezando por el primer
+     * jugador, como array de Entero.
+     * @param puntosAsDeOros Lo que vale el as de oros en esta ronda, como
+     * Entero.
+     */
+    default void empezarRonda(int[] orden, int puntosAsDeOros) {
     }
 
     /**
-     * Muestra la mano del jugador.
+     * Avisa de que un jugador ha colocado una carta.
      *
-     * @param jugador El jugador del que se quiere mostrar la mano, como
-     * Jugador.
+     * @param asiento El asiento del jugador, como Entero.
+     * @param carta La carta colocada, como Carta.
      */
-    public void mostrarMano(Jugador jugador) {
-        mostrarMensaje("Elige una carta tecleando un número");
-        for (Carta carta : jugador.getMano()) {
-            StringBuilder apartadoCarta = new StringBuilder();
-            apartadoCarta.append("\t").append(jugador.getMano().indexOf(carta)).append(": ").append(carta.toString());
-            mostrarMensaje(apartadoCarta.toString());
-        }
+    default void jugada(int asiento, Carta carta) {
     }
 
     /**
-     * Lee una posición de un carta en la mano de un jugador.
+     * Avisa de que un jugador no ha podido colocar ninguna carta.
      *
-     * @param jugador El jugador de cuya mano se quiere leer la posición de una
-     * carta, como Jugador.
-     * @return El número leído, como Entero.
+     * @param asiento El asiento del jugador, como Entero.
      */
-    public int leePosCartaMano(Jugador jugador) {
-        int index;
-        do {
-            index = leeNum("Introduce un número válido: ");
-        } while (index < 0 || index >= jugador.getMano().size());
-        return index;
+    default void pase(int asiento) {
     }
 
     /**
@@ -103,20 +82,7 @@ public class IU {
      * @return Los datos recopilados de los jugadores, como Collection de
      * String.
      */
-    public Collection<String> pedirDatosJugadores() {
-        Collection<String> nombresJugadores = new LinkedList<>();
-        mostrarMensaje("Este es un juego para 3 o 4 jugadores.");
-        int num = 0;
-        do {
-            num = leeNum("¿Cuántos jugadores van a jugar? ");
-        } while (num != 3 && num != 4);
-        for (int i = 0; i < num; i++) {
-            String nombre = leeString("Introduzca los datos del jugador " + (i + 1) + ": ");
-            nombresJugadores.add(nombre);
-        }
-        return nombresJugadores;
-
-    }
+    Collection<String> pedirDatosJugadores();
 
     /**
      * Muestra los datos de un jugador por pantalla.
@@ -124,39 +90,26 @@ public class IU {
      * @param jugador El jugador del que se quieren mostrar los datos, como
      * Jugador.
      */
-    public void mostrarJugador(Jugador jugador) {
-        System.out.println(jugador.toString());
-    }
+    void mostrarJugador(Jugador jugador);
 
     /**
      * Muestra a todos los jugadores.
      *
      * @param jugadores La colección de jugadores, como Collection de Jugador.
      */
-    public void mostrarJugadores(Collection<Jugador> jugadores) {
-        for (Jugador j : jugadores) {
-            mostrarJugador(j);
-        }
-    }
+    void mostrarJugadores(Collection<Jugador> jugadores);
 
     /**
      * Muestra los nombres y la puntuación de los jugadores ganadores.
      *
      * @param ganadores La lista de jugadores ganadores.
      */
-    public void mostrarGanadores(LinkedList<Jugador> ganadores) {
-        if (ganadores.size() == 1) {
-            mostrarMensaje(ganadores.getFirst().getNombre() + " ha ganado con " + ganadores.getFirst().getPuntuacion() + " puntos");
-        } else {
-            StringBuilder str = new StringBuilder();
-            str.append("Ha habido un empate a ").append(ganadores.getFirst().getPuntuacion()).append(" puntos entre los siguientes jugadores:\n");
-            while (!ganadores.isEmpty()) {
-                str.append(ganadores.removeFirst().getNombre());
-                if (!ganadores.isEmpty()) {
-                    str.append(" - ");
-                }
-            }
-            mostrarMensaje(str.toString());
-        }
+    void mostrarGanadores(LinkedList<Jugador> ganadores);
+
+    /**
+     * Escribe lo que se haya mostrado y todavía no haya salido. Las
+     * implementaciones que escriben al momento no hacen nada.
+     */
+    default void vaciar() {
     }
 }
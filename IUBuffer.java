@@ -0,0 +1,124 @@
+/**
+ * Interfaz de texto que junta todo lo que se muestra en un buffer reutilizable y lo escribe de una
+ * sola vez cuando hay que leer algo del teclado (o al llamar a vaciar). Así, cada turno (cabecera,
+ * mesa y mano) sale en una sola escritura.
+ * En modo asíncrono la escritura la hace un hilo aparte y el juego no espera a la consola.
+ */
+
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+public class IUBuffer extends IUConsola {
+
+    private static final byte[] FIN = new byte[0];
+
+    private final StringBuilder buffer = new StringBuilder(4096);
+    private final BlockingQueue<byte[]> pendientes;
+    private final Thread escritor;
+
+    /**
+     * Crea una nueva interfaz con buffer que usa el teclado y la pantalla.
+     *
+     * @param asincrona true para escribir desde otro hilo, false para escribir
+     * desde el hilo del juego.
+     */
+    public IUBuffer(boolean asincrona) {
+        this(System.in, System.out, asincrona);
+    }
+
+    /**
+     * Crea una nueva interfaz con buffer.
+     *
+     * @param entrada De donde se lee, como InputStream.
+     * @param salida Donde se escribe, como PrintStream.
+     * @param asincrona true para escribir desde otro hilo, false para escribir
+     * desde el hilo del juego.
+     */
+    public IUBuffer(InputStream entrada, PrintStream salida, boolean asincrona) {
+        super(entrada, salida);
+        if (asincrona) {
+            pendientes = new ArrayBlockingQueue<>(64);
+            escritor = new Thread(this::escribirPendientes, "IUBuffer-escritor");
+            escritor.setDaemon(true);
+            escritor.start();
+        } else {
+            pendientes = null;
+            escritor = null;
+        }
+    }
+
+    @Override
+    protected void escribir(String texto) {
+        buffer.append(texto);
+    }
+
+    @Override
+    protected void antesDeLeer() {
+        vaciar();
+    }
+
+    /**
+     * Escribe de una vez todo lo que hay en el buffer y lo deja vacío para
+     * reutilizarlo.
+     */
+    @Override
+    public void vaciar() {
+        if (buffer.length() == 0) {
+            return;
+        }
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        buffer.setLength(0);
+        if (pendientes == null) {
+            long inicio = Metricas.inicio();
+            salida.write(bytes, 0, bytes.length);
+            salida.flush();
+            Metricas.SALIDA.registrarDesde(inicio);
+        } else {
+            try {
+                // Si el escritor va muy atrasado se espera: la memoria no crece sin límite
+                pendientes.put(bytes);
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Escribe todo lo pendiente y, en modo asíncrono, espera a que el hilo
+     * escritor termine.
+     */
+    public void cerrar() {
+        vaciar();
+        if (pendientes != null) {
+            try {
+                pendientes.put(FIN);
+                escritor.join();
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Bucle del hilo escritor: escribe cada bloque en cuanto llega.
+     */
+    private void escribirPendientes() {
+        try {
+            byte[] bytes;
+            while ((bytes = pendientes.take()) != FIN) {
+                long inicio = Metricas.inicio();
+                salida.write(bytes, 0, bytes.length);
+                if (pendientes.isEmpty()) {
+                    salida.flush();
+                }
+                Metricas.SALIDA.registrarDesde(inicio);
+            }
+            salida.flush();
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
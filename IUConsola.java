@@ -0,0 +1,250 @@
+/**
+ * Interfaz de texto del Cinquillo-Oro: lee del teclado y escribe cada mensaje en cuanto se muestra.
+ * Todo lo que se escribe pasa por escribir, y antes de leer se llama a antesDeLeer, para que otras
+ * interfaces de texto (IUBuffer) puedan cambiar cómo sale la salida sin repetir el resto.
+ */
+
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.Collection;
+import java.util.InputMismatchException;
+import java.util.Scanner;
+import java.util.LinkedList;
+
+public class IUConsola implements IU {
+
+    private final Scanner teclado;
+    protected final PrintStream salida;
+    private boolean colores = true;
+
+    /**
+     * Crea una nueva interfaz de usuario.
+     */
+    public IUConsola() {
+        this(System.in, System.out);
+    }
+
+    /**
+     * Crea una nueva interfaz de usuario que lee y escribe en otros flujos.
+     *
+     * @param entrada De donde se lee, como InputStream.
+     * @param salida Donde se escribe, como PrintStream.
+     */
+    public IUConsola(InputStream entrada, PrintStream salida) {
+        this.teclado = new Scanner(entrada).useDelimiter("\r?\n");
+        this.salida = salida;
+    }
+
+    /**
+     * Activa o desactiva los códigos de color ANSI, por ejemplo para consolas
+     * que no los entienden o para guardar la salida en un fichero.
+     *
+     * @param colores true para escribir con colores, false para texto plano.
+     */
+    public void setColores(boolean colores) {
+        this.colores = colores;
+    }
+
+    /**
+     * Te dice si se escribe con colores.
+     *
+     * @return true si se escribe con colores, false si no.
+     */
+    public boolean getColores() {
+        return colores;
+    }
+
+    /**
+     * Escribe un texto tal cual. Todo lo que muestra la interfaz pasa por
+     * aquí.
+     *
+     * @param texto El texto, como String.
+     */
+    protected void escribir(String texto) {
+        long inicio = Metricas.inicio();
+        salida.print(texto);
+        Metricas.SALIDA.registrarDesde(inicio);
+    }
+
+    /**
+     * Escribe un texto quitándole los códigos de color si están desactivados.
+     *
+     * @param texto El texto, como String.
+     */
+    private void escribirTexto(String texto) {
+        escribir(colores ? texto : quitarColores(texto));
+    }
+
+    /**
+     * Quita los códigos de color ANSI (ESC [ ... m) de un texto. Si no tiene
+     * ninguno devuelve el mismo texto, sin copiarlo.
+     *
+     * @param texto El texto, como String.
+     * @return El texto sin códigos de color, como String.
+     */
+    static String quitarColores(String texto) {
+        int inicio = texto.indexOf('\u001B');
+        if (inicio < 0) {
+            return texto;
+        }
+        StringBuilder sb = new StringBuilder(texto.length());
+        int i = 0;
+        while (inicio >= 0) {
+            sb.append(texto, i, inicio);
+            int fin = inicio + 1;
+            if (fin < texto.length() && texto.charAt(fin) == '[') {
+                fin++;
+                while (fin < texto.length() && texto.charAt(fin) != 'm') {
+                    fin++;
+                }
+            }
+            i = Math.min(fin + 1, texto.length());
+            inicio = texto.indexOf('\u001B', i);
+        }
+        sb.append(texto, i, texto.length());
+        return sb.toString();
+    }
+
+    /**
+     * Se llama justo antes de leer del teclado.
+     */
+    protected void antesDeLeer() {
+    }
+
+    /**
+     * Lee la siguiente entrada del teclado, midiendo cuánto se espera.
+     *
+     * @return Lo leído, como String.
+     */
+    private String leerLinea() {
+        long inicio = Metricas.inicio();
+        String linea = teclado.next();
+        Metricas.ESPERA_ENTRADA.registrarDesde(inicio);
+        return linea;
+    }
+
+    /**
+     * Lee un num. de teclado
+     *
+     * @param msg El mensaje a visualizar.
+     * @return El num., como entero
+     */
+    public int leeNum(String msg) {
+        do {
+            escribirTexto(msg);
+            antesDeLeer();
+
+            long inicio = Metricas.inicio();
+            try {
+                int num = teclado.nextInt();
+                Metricas.ESPERA_ENTRADA.registrarDesde(inicio);
+                return num;
+            } catch (InputMismatchException exc) {
+                teclado.next();
+                Metricas.ESPERA_ENTRADA.registrarDesde(inicio);
+                escribir("Entrada no válida. Debe ser un entero.\n");
+            }
+        } while (true);
+    }
+
+    /**
+     * Lee un String.
+     *
+     * @param msg Un mensaje que se mostrará por pantalla, como String.
+     * @return El texto leído, como String.
+     */
+    public String leeString(String msg) {
+        escribirTexto(msg);
+        antesDeLeer();
+        return leerLinea();
+    }
+
+    public String leeString(String msg, Object... args) {
+        escribirTexto(String.format(msg, args));
+        antesDeLeer();
+        return leerLinea();
+    }
+
+    @Override
+    public void mostrarMensaje(String msg) {
+        escribirTexto(msg);
+        escribir("\n");
+    }
+
+    @Override
+    public void mostrarMensaje(String msg, Object... args) {
+        escribirTexto(String.format(msg, args));
+    }
+
+    @Override
+    public void mostrarMesa(Mesa mesa) {
+        // La mesa solo vuelve a componer los palos que han cambiado
+        escribir(mesa.getTexto(colores));
+        escribir("\n");
+    }
+
+    @Override
+    public void mostrarMano(Jugador jugador) {
+        StringBuilder apartadoMano = new StringBuilder("Elige una carta tecleando un número\n");
+        int indice = 0;
+        for (Carta carta : jugador.getMano()) {
+            apartadoMano.append("\t").append(indice++).append(": ").append(carta.getTexto(colores)).append("\n");
+        }
+        escribir(apartadoMano.toString());
+    }
+
+    @Override
+    public int leePosCartaMano(int asiento, Jugador jugador) {
+        int index;
+        do {
+            index = leeNum("Introduce un número válido: ");
+        } while (index < 0 || index >= jugador.getCartasEnMano());
+        return index;
+    }
+
+    @Override
+    public Collection<String> pedirDatosJugadores() {
+        Collection<String> nombresJugadores = new LinkedList<>();
+        mostrarMensaje("Este es un juego para 3 o 4 jugadores.");
+        int num = 0;
+        do {
+            num = leeNum("¿Cuántos jugadores van a jugar? ");
+        } while (num != 3 && num != 4);
+        for (int i = 0; i < num; i++) {
+            String nombre = leeString("Introduzca los datos del jugador " + (i + 1) + ": ");
+            nombresJugadores.add(nombre);
+        }
+        return nombresJugadores;
+
+    }
+
+    @Override
+    public void mostrarJugador(Jugador jugador) {
+        mostrarMensaje(jugador.toString());
+    }
+
+    @Override
+    public void mostrarJugadores(Collection<Jugador> jugadores) {
+        for (Jugador j : jugadores) {
+            mostrarJugador(j);
+        }
+    }
+
+    @Override
+    public void mostrarGanadores(LinkedList<Jugador> ganadores) {
+        if (ganadores.size() == 1) {
+            mostrarMensaje(ganadores.getFirst().getNombre() + " ha ganado con " + ganadores.getFirst().getPuntuacion() + " puntos");
+        } else {
+            StringBuilder str = new StringBuilder();
+            str.append("Ha habido un empate a ").append(ganadores.getFirst().getPuntuacion()).append(" puntos entre los siguientes jugadores:\n");
+            while (!ganadores.isEmpty()) {
+                str.append(ganadores.removeFirst().getNombre());
+                if (!ganadores.isEmpty()) {
+                    str.append(" - ");
+                }
+            }
+            mostrarMensaje(str.toString());
+        }
+        vaciar();
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Interfaz que no muestra nada: sirve para jugar un Juego entero sin consola, por ejemplo en
+ * pruebas o en un servidor. Los nombres de los jugadores se dan al crearla y cada asiento elige
+ * carta con su Politica, que ve la última mesa que el juego ha mandado mostrar. Los avisos de ronda,
+ * jugada y pase que da Juego se pasan a todas las políticas, como hace Simulador.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+
+public class IUSilenciosa implements IU {
+
+    private final List<String> nombres;
+    private final Politica[] politicas;
+    private Mesa mesa;
+
+    /**
+     * Crea una nueva interfaz silenciosa.
+     *
+     * @param nombres Los nombres de los jugadores, 3 o 4, como Collection de
+     * String.
+     * @param politicas La política de cada jugador, en el mismo orden que los
+     * nombres, como Politica.
+     */
+    public IUSilenciosa(Collection<String> nombres, Politica... politicas) {
+        if (nombres.size() != politicas.length) {
+            throw new IllegalArgumentException("Hace falta una política por jugador");
+        }
+        this.nombres = new ArrayList<>(nombres);
+        this.politicas = politicas.clone();
+    }
+
+    @Override
+    public void mostrarMensaje(String msg) {
+    }
+
+    @Override
+    public void mostrarMensaje(String msg, Object... args) {
+    }
+
+    /**
+     * No muestra nada, pero se queda con la mesa para que las políticas la
+     * puedan ver.
+     *
+     * @param mesa La mesa de juego, como Mesa.
+     */
+    @Override
+    public void mostrarMesa(Mesa mesa) {
+        this.mesa = mesa;
+    }
+
+    @Override
+    public void mostrarMano(Jugador jugador) {
+    }
+
+    /**
+     * Pide la carta a la política del asiento.
+     *
+     * @param asiento El asiento del jugador, como Entero.
+     * @param jugador El jugador al que le toca, como Jugador.
+     * @return El índice de la carta elegida, como Entero.
+     */
+    @Override
+    public int leePosCartaMano(int asiento, Jugador jugador) {
+        if (asiento < 0 || asiento >= politicas.length || mesa == null) {
+            throw new IllegalStateException("No se sabe cómo juega " + jugador.getNombre());
+        }
+        return politicas[asiento].elegirCarta(jugador, mesa);
+    }
+
+    @Override
+    public void empezarRonda(int[] orden, int puntosAsDeOros) {
+        for (int i = 0; i < politicas.length; i++) {
+            politicas[i].empezarRonda(i, orden, puntosAsDeOros);
+        }
+    }
+
+    @Override
+    public void jugada(int asiento, Carta carta) {
+        for (Politica politica : politicas) {
+            politica.jugada(asiento, carta);
+        }
+    }
+
+    @Override
+    public void pase(int asiento) {
+        for (Politica politica : politicas) {
+            politica.pase(asiento);
+        }
+    }
+
+    @Override
+    public Collection<String> pedirDatosJugadores() {
+        return new LinkedList<>(nombres);
+    }
+
+    @Override
+    public void mostrarJugador(Jugador jugador) {
+    }
+
+    @Override
+    public void mostrarJugadores(Collection<Jugador> jugadores) {
+    }
+
+    @Override
+    public void mostrarGanadores(LinkedList<Jugador> ganadores) {
+    }
+}
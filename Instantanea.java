@@ -0,0 +1,155 @@
+/*
+ * Representa el estado completo de una Partida en un momento dado: las cartas de la mesa, las manos,
+ * las puntuaciones, el orden de turno y lo que vale el as de oros. Se obtiene con
+ * Partida.instantanea y se vuelve a él con Partida.restaurar, tantas veces como se quiera.
+ * Es inmutable. Las cartas van en máscaras de bits, y las puntuaciones y el orden de la ronda se
+ * comparten con las instantáneas anteriores mientras no cambian, así que cada instantánea solo
+ * copia las manos.
+ */
+
+public class Instantanea {
+
+    private final long colocadas;
+    private final long[] manos;
+    private final int[] puntuaciones;
+    private final int[] orden;
+    private final int asientoDeTurno;
+    private final int puntosAsDeOros;
+    private final int rondas;
+    private final int asientoAsDeOrosRonda;
+    private final boolean colocadoAsOros;
+    private final boolean terminada;
+
+    /**
+     * Crea una nueva instantánea. Los arrays no se copian: quien la crea no
+     * debe volver a modificarlos.
+     *
+     * @param colocadas Las cartas de la mesa, como long.
+     * @param manos La mano de cada asiento, como array de long.
+     * @param puntuaciones La puntuación de cada asiento, como array de Entero.
+     * @param orden Los asientos en el orden de turno de la ronda, como array
+     * de Entero.
+     * @param asientoDeTurno El asiento al que le toca, como Entero.
+     * @param puntosAsDeOros Lo que vale el as de oros, como Entero.
+     * @param rondas El número de rondas terminadas, como Entero.
+     * @param asientoAsDeOrosRonda El asiento que ha colocado el as de oros en
+     * esta ronda, o -1, como Entero.
+     * @param colocadoAsOros true si ya se ha colocado el as de oros.
+     * @param terminada true si la partida ha terminado.
+     */
+    Instantanea(long colocadas, long[] manos, int[] puntuaciones, int[] orden, int asientoDeTurno,
+            int puntosAsDeOros, int rondas, int asientoAsDeOrosRonda, boolean colocadoAsOros, boolean terminada) {
+        this.colocadas = colocadas;
+        this.manos = manos;
+        this.puntuaciones = puntuaciones;
+        this.orden = orden;
+        this.asientoDeTurno = asientoDeTurno;
+        this.puntosAsDeOros = puntosAsDeOros;
+        this.rondas = rondas;
+        this.asientoAsDeOrosRonda = asientoAsDeOrosRonda;
+        this.colocadoAsOros = colocadoAsOros;
+        this.terminada = terminada;
+    }
+
+    /**
+     * Devuelve el número de jugadores.
+     *
+     * @return El número de jugadores, como Entero.
+     */
+    public int getNumJugadores() {
+        return manos.length;
+    }
+
+    /**
+     * Devuelve las cartas que había sobre la mesa.
+     *
+     * @return La máscara de cartas colocadas, un bit por identificador de
+     * carta, como long.
+     */
+    public long getColocadas() {
+        return colocadas;
+    }
+
+    /**
+     * Devuelve la mano de un asiento.
+     *
+     * @param asiento El asiento, como Entero.
+     * @return La máscara de la mano, un bit por identificador de carta, como
+     * long.
+     */
+    public long getMano(int asiento) {
+        return manos[asiento];
+    }
+
+    /**
+     * Devuelve la puntuación de un asiento.
+     *
+     * @param asiento El asiento, como Entero.
+     * @return La puntuación, como Entero.
+     */
+    public int getPuntuacion(int asiento) {
+        return puntuaciones[asiento];
+    }
+
+    /**
+     * Devuelve el asiento que juega en una posición del orden de la ronda.
+     *
+     * @param turno La posición en el orden, empezando por 0, como Entero.
+     * @return El asiento, como Entero.
+     */
+    public int getOrden(int turno) {
+        return orden[turno];
+    }
+
+    /**
+     * Devuelve el asiento al que le tocaba colocar una carta.
+     *
+     * @return El asiento, como Entero.
+     */
+    public int getAsientoDeTurno() {
+        return asientoDeTurno;
+    }
+
+    /**
+     * Devuelve lo que valía el as de oros.
+     *
+     * @return Los puntos del as de oros, como Entero.
+     */
+    public int getPuntosAsDeOros() {
+        return puntosAsDeOros;
+    }
+
+    /**
+     * Devuelve el número de rondas terminadas.
+     *
+     * @return El número de rondas, como Entero.
+     */
+    public int getRondas() {
+        return rondas;
+    }
+
+    /**
+     * Te dice si la partida había terminado.
+     *
+     * @return true si había terminado, false si no.
+     */
+    public boolean estaTerminada() {
+        return terminada;
+    }
+
+    int getAsientoAsDeOrosRonda() {
+        return asientoAsDeOrosRonda;
+    }
+
+    boolean isColocadoAsOros() {
+        return colocadoAsOros;
+    }
+
+    int[] compartirPuntuaciones() {
+        return puntuaciones;
+    }
+
+    int[] compartirOrden() {
+        return orden;
+    }
+}
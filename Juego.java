@@ -1,19 +1,27 @@
 /**
  * Representa el juego del Cinquillo-Oro, con sus reglas (definidas en el documento Primera entrega).
  * Se recomienda una implementación modular.
+ * Las reglas están en Partida: Juego solo pide los nombres y las cartas a la IU, llama a colocar y
+ * muestra lo que Partida le cuenta como Oyente. Así la consola, el Servidor y los eventos siguen las
+ * mismas reglas.
+ * Si se le da un BusEventos, la partida publica lo que va pasando como Evento para quien quiera seguirla
+ * sin leer la consola. Si se le da un RegistroPartidas, guarda cada partida con sus manos y sus jugadas.
  */
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 public class Juego {
 
     private final IU iu;
-    private final Baraja baraja;
-    private final LinkedList<Jugador> jugadores;
-    private final int puntosPartida = 4;
-    private int puntosAsDeOros = 2;
+    private final RandomGenerator random;
+    private Partida partida;
+    private BusEventos eventos;
+    private RegistroPartidas registro;
 
     /**
      * Crea un nuevo juego.
@@ -22,46 +30,41 @@ public class Juego {
      * es.uvigo.esei.aed1.iu.IU)
      */
     public Juego(IU iu) {
-        this.iu = iu;
-        baraja = new Baraja();
-        jugadores = new LinkedList<>();
+        this(iu, new SplittableRandom());
     }
 
     /**
-     * Reparte todas las cartas a todos los jugadores.
+     * Crea un nuevo juego que baraja y elige al primer jugador con un
+     * generador dado.
      *
-     * @param numJugadores EL número de jugadores de la partida
+     * @param iu La interfaz de usuario del juego, como IU.
+     * @param random El generador, como RandomGenerator.
      */
-    public void repartirCartas(int numJugadores) {
-        int posJugador = 0;
-        while (!baraja.estaVacia()) {
-            Jugador receptor = jugadores.get(posJugador);
-            receptor.insertarCarta(baraja.sacarCarta());
-            if (posJugador == numJugadores - 1) {
-                posJugador = 0;
-            } else {
-                posJugador++;
-            }
-        }
+    public Juego(IU iu, RandomGenerator random) {
+        this.iu = iu;
+        this.random = random;
     }
 
     /**
-     * Limpia las manos de los jugadores.
+     * Hace que lo que va pasando en la partida se publique en un bus de
+     * eventos.
+     *
+     * @param eventos El bus, o null para no publicar nada, como BusEventos.
      */
-    public void limpiarJugadores() {
-        for (Jugador jugador : this.jugadores) {
-            jugador.vaciarMano(this.baraja);
-        }
+    public void setEventos(BusEventos eventos) {
+        this.eventos = eventos;
     }
 
     /**
-     * Resetea la mesa de juego, quitando todas las cartas.
+     * Hace que las partidas que se jueguen se guarden en un registro. Juego no
+     * tiene semilla, así que se guardan con RegistroPartidas.SIN_SEMILLA y se
+     * reproducen con las manos repartidas y las jugadas.
      *
-     * @param mesa La mesa de juego, como Mesa.
+     * @param registro El registro, o null para no guardar nada, como
+     * RegistroPartidas.
      */
-    public void resetBaraja(Mesa mesa) {
-        mesa.vaciarMesa(this.baraja);
-        limpiarJugadores();
+    public void setRegistro(RegistroPartidas registro) {
+        this.registro = registro;
     }
 
     /**
@@ -69,15 +72,25 @@ public class Juego {
      *
      * @return La lista de ganadores, como LinkedList
      */
-    public LinkedList listarGanadores() {
-        LinkedList<Jugador> ganadores = new LinkedList();
+    public LinkedList<Jugador> listarGanadores() {
+        return partida == null ? new LinkedList<>() : partida.getGanadores();
+    }
+
+    /**
+     * Crea una lista con los jugadores que tienen la puntuación más alta.
+     *
+     * @param jugadores Los jugadores de la partida, como Collection de Jugador.
+     * @return La lista de ganadores, como LinkedList de Jugador.
+     */
+    static LinkedList<Jugador> ganadores(Collection<Jugador> jugadores) {
+        LinkedList<Jugador> ganadores = new LinkedList<>();
         int maxPuntuacion = 0;
-        for (Jugador j1 : this.jugadores) {
-            if (j1.getPuntuacion() < maxPuntuacion) {
+        for (Jugador j1 : jugadores) {
+            if (j1.getPuntuacion() > maxPuntuacion) {
                 maxPuntuacion = j1.getPuntuacion();
             }
         }
-        for (Jugador j2 : this.jugadores) {
+        for (Jugador j2 : jugadores) {
             if (j2.getPuntuacion() == maxPuntuacion) {
                 ganadores.add(j2);
             }
@@ -85,90 +98,171 @@ public class Juego {
         return ganadores;
     }
 
+    /**
+     * Te dice si la carta elegida por el jugador de turno se puede colocar,
+     * midiendo cuánto tarda la comprobación.
+     *
+     * @param jugador El jugador de turno, como Jugador.
+     * @param indiceCarta El índice de la carta en la mano, como Entero.
+     * @return true si se puede colocar, false si no.
+     */
+    private boolean cartaValida(Jugador jugador, int indiceCarta) {
+        long inicio = Metricas.inicio();
+        boolean valida = indiceCarta >= 0 && indiceCarta < jugador.getCartasEnMano()
+                && partida.getMesa().puedeColocarCarta(jugador.devolverCarta(indiceCarta));
+        Metricas.VALIDACION_CARTA.registrarDesde(inicio);
+        return valida;
+    }
+
+    /**
+     * Marca los jugadores que tienen la puntuación más alta, con el mismo
+     * criterio que ganadores pero sin crear ninguna lista.
+     *
+     * @param jugadores Los jugadores de la partida, como array de Jugador.
+     * @param ganadores Donde se marca cada ganador, en la misma posición que
+     * en jugadores, como array de booleanos.
+     */
+    static void marcarGanadores(Jugador[] jugadores, boolean[] ganadores) {
+        int maxPuntuacion = 0;
+        for (Jugador j1 : jugadores) {
+            if (j1.getPuntuacion() > maxPuntuacion) {
+                maxPuntuacion = j1.getPuntuacion();
+            }
+        }
+        for (int i = 0; i < jugadores.length; i++) {
+            ganadores[i] = jugadores[i].getPuntuacion() == maxPuntuacion;
+        }
+    }
+
     /**
      * Juega una partida. La partida acaba cuando alguien saca el as de oros. Al
      * terminar esa ronda, la partida acabará y aparecerán los ganadores en
      * pantalla.
      */
     public void jugar() {
-        Collection<String> players = iu.pedirDatosJugadores();
-        Iterator<String> it = players.iterator();
-        Mesa mesa = new Mesa();
+        partida = new Partida(iu.pedirDatosJugadores(), random);
+        partida.setOyente(new Seguimiento());
+        partida.setEventos(eventos);
+        if (registro != null) {
+            registro.empezarPartida(RegistroPartidas.SIN_SEMILLA, partida.getNumJugadores());
+        }
+        partida.empezar();
 
-        while (it.hasNext()) {
-            Jugador jugador = new Jugador(it.next());
-            jugadores.add(jugador);
+        while (!partida.estaTerminada()) {
+            long inicioTurno = Metricas.inicio();
+            // Partida pasa sola a quien no puede colocar: al de turno siempre le queda alguna carta
+            int asiento = partida.getAsientoDeTurno();
+            Jugador jugador = partida.getJugador(asiento);
+            mostrarTurno(jugador);
+            this.iu.mostrarMano(jugador);
+            int indiceCarta = this.iu.leePosCartaMano(asiento, jugador);
+            // Comprobar que pueda colocar ESA carta
+            while (!cartaValida(jugador, indiceCarta)) {
+                Metricas.JUGADAS_NO_VALIDAS.incrementar();
+                this.iu.mostrarMensaje("\u001B[31m\uD83E\uDD21 No puedes jugar esa carta\u001B[0m");
+                indiceCarta = this.iu.leePosCartaMano(asiento, jugador);
+            }
+            partida.colocar(indiceCarta);
+            Metricas.TURNO.registrarDesde(inicioTurno);
         }
+        Metricas.PARTIDAS.incrementar();
+        Metricas.RONDAS_POR_PARTIDA.registrar(partida.getRondas());
 
-        boolean acabarPartida = false;
-
-        do {
-            boolean colocadoAsOros;
-            // Elegir primer jugador
-            int min_num = 0;
-            int max_num = players.size();
-            int rand_num = (int) (Math.random() * (max_num - min_num));
-
-            Jugador primerJugador = jugadores.get(rand_num);
-            jugadores.addFirst(jugadores.remove(rand_num));
-
-            // Barajar y repartir
-            baraja.barajarCartas();
-            repartirCartas(players.size());
-
-            // Mostrar primer jugador
-            iu.mostrarJugadores(jugadores);
-            System.out.println("\n");
-
-            iu.mostrarMensaje("El primer jugador es: " + primerJugador.getNombre());
-
-            do {
-                // Mostrar mesa y turno
-                this.iu.mostrarMensaje("Turno de \u001B[35m" + jugadores.getFirst().getNombre() + "\u001B[0m");
-                System.out.println(mesa);
-
-                // Comprobar posibilidad de colocar alguna carta
-                if (jugadores.getFirst().puedeColocarAlgo(mesa)) {
-                    // Pudo colocar :D
-                    // Pide el índice de la carta en la mano, mostrándola
-                    int indiceCarta;
-                    this.iu.mostrarMano(jugadores.getFirst());
-                    indiceCarta = this.iu.leePosCartaMano(jugadores.getFirst());
-                    // Comprobar que pueda colocar ESA carta
-                    while (!mesa.puedeColocarCarta(jugadores.getFirst().devolverCarta(indiceCarta))) {
-                        this.iu.mostrarMensaje("\u001B[31m\uD83E\uDD21 No puedes jugar esa carta\u001B[0m");
-                        indiceCarta = this.iu.leePosCartaMano(jugadores.getFirst());
-                    }
-
-                    // Se coloca la carta en la mesa y se borra de la mano del jugador
-                    colocadoAsOros = jugadores.getFirst().colocarCarta(mesa, indiceCarta);
-
-                    if (colocadoAsOros) {
-                        jugadores.getFirst().sumarPuntos(this.puntosAsDeOros);
-                        acabarPartida = true;
-                    }
-                } else {
-                    // No pudo colocar :(
-                    this.iu.mostrarMensaje("\u001B[31m No puedes jugar ninguna carta\u001B[0m");
-                }
-                // Se comprueba que la mano del jugador actual no esté vacía para pasar al siguiente
-                if (!jugadores.getFirst().manoVacia()) {
-                    this.iu.mostrarMensaje("\n\u001B[34m\uD83D\uDC64\u001B[0m Siguiente jugador");
-                    jugadores.addLast(jugadores.removeFirst());
-                }
-            } while (!jugadores.getFirst().manoVacia());
+        iu.mostrarGanadores(listarGanadores());
 
-            // Se muestra al ganador de la ronda y se le suman 4 puntos por ganar
-            this.iu.mostrarMensaje("\n\u001B[33m\uD83C\uDFC6\u001B[0m El ganador de la ronda es: \u001B[35m" + jugadores.getFirst().getNombre());
-            jugadores.getFirst().sumarPuntos(this.puntosPartida);
+    }
 
-            resetBaraja(mesa);
+    /**
+     * Muestra de quién es el turno y la mesa.
+     *
+     * @param jugador El jugador de turno, como Jugador.
+     */
+    private void mostrarTurno(Jugador jugador) {
+        this.iu.mostrarMensaje("Turno de \u001B[35m" + jugador.getNombre() + "\u001B[0m");
+        this.iu.mostrarMesa(partida.getMesa());
+    }
 
-            this.puntosAsDeOros += 2;
+    /**
+     * Muestra y anota en el registro lo que va pasando en la partida.
+     */
+    private class Seguimiento implements Partida.Oyente {
 
-        } while (!acabarPartida);
+        // Puntuaciones al empezar la ronda, para guardar en el registro lo ganado en ella
+        private int[] puntosAlEmpezar = new int[0];
 
-        iu.mostrarGanadores(listarGanadores());
+        @Override
+        public void rondaEmpezada(int ronda, int[] orden) {
+            List<Jugador> enOrden = new ArrayList<>(orden.length);
+            long[] manos = new long[orden.length];
+            puntosAlEmpezar = new int[orden.length];
+            for (int i = 0; i < orden.length; i++) {
+                enOrden.add(partida.getJugador(orden[i]));
+                manos[i] = partida.getJugador(i).getMascaraMano();
+                puntosAlEmpezar[i] = partida.getJugador(i).getPuntuacion();
+            }
+            if (registro != null) {
+                registro.empezarRonda(orden, manos);
+            }
+            iu.empezarRonda(orden, partida.getPuntosAsDeOros());
+            iu.mostrarJugadores(enOrden);
+            iu.mostrarMensaje("\n");
+            iu.mostrarMensaje("El primer jugador es: " + enOrden.get(0).getNombre());
+        }
 
+        @Override
+        public void jugada(int asiento, Carta carta) {
+            Metricas.JUGADAS.incrementar();
+            if (registro != null) {
+                registro.jugada(carta.getId());
+            }
+            iu.jugada(asiento, carta);
+            siguiente(asiento);
+        }
+
+        @Override
+        public void pase(int asiento) {
+            Metricas.PASES.incrementar();
+            if (registro != null) {
+                registro.pase();
+            }
+            iu.pase(asiento);
+            mostrarTurno(partida.getJugador(asiento));
+            iu.mostrarMensaje("\u001B[31m No puedes jugar ninguna carta\u001B[0m");
+            siguiente(asiento);
+        }
+
+        /**
+         * Avisa de que pasa el turno, salvo que el jugador haya ganado la ronda.
+         */
+        private void siguiente(int asiento) {
+            if (!partida.getJugador(asiento).manoVacia()) {
+                iu.mostrarMensaje("\n\u001B[34m\uD83D\uDC64\u001B[0m Siguiente jugador");
+            }
+        }
+
+        @Override
+        public void rondaTerminada(int ganador, int asientoAsDeOros) {
+            Metricas.RONDAS.incrementar();
+            // Se muestra al ganador de la ronda, que ya tiene sumados los puntos por ganar
+            iu.mostrarMensaje("\n\u001B[33m\uD83C\uDFC6\u001B[0m El ganador de la ronda es: \u001B[35m" + partida.getJugador(ganador).getNombre());
+            if (registro != null) {
+                int[] puntosRonda = new int[puntosAlEmpezar.length];
+                for (int i = 0; i < puntosRonda.length; i++) {
+                    puntosRonda[i] = partida.getJugador(i).getPuntuacion() - puntosAlEmpezar[i];
+                }
+                registro.terminarRonda(puntosRonda);
+            }
+        }
+
+        @Override
+        public void partidaTerminada() {
+            if (registro != null) {
+                int[] puntuaciones = new int[partida.getNumJugadores()];
+                for (int i = 0; i < puntuaciones.length; i++) {
+                    puntuaciones[i] = partida.getJugador(i).getPuntuacion();
+                }
+                registro.terminarPartida(puntuaciones);
+            }
+        }
     }
 }
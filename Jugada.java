@@ -0,0 +1,103 @@
+/*
+ * Representa una carta colocada por un jugador, que se puede deshacer y volver a hacer en tiempo
+ * constante. Se obtiene con Jugador.jugar. Las jugadas se deshacen en orden inverso al que se
+ * hicieron: solo se puede quitar una carta que esté en un extremo de su palo.
+ * Los puntos del as de oros los suma quien maneja el juego, así que tampoco se deshacen aquí.
+ */
+
+public class Jugada {
+
+    private final Jugador jugador;
+    private final Mesa mesa;
+    private final Carta carta;
+    private final boolean asDeOros;
+    private boolean deshecha;
+
+    /**
+     * Crea una nueva jugada ya hecha.
+     *
+     * @param jugador El jugador que ha colocado la carta, como Jugador.
+     * @param mesa La mesa donde se ha colocado, como Mesa.
+     * @param carta La carta colocada, como Carta.
+     * @param asDeOros true si la carta es el as de oros, false si no.
+     */
+    Jugada(Jugador jugador, Mesa mesa, Carta carta, boolean asDeOros) {
+        this.jugador = jugador;
+        this.mesa = mesa;
+        this.carta = carta;
+        this.asDeOros = asDeOros;
+    }
+
+    /**
+     * Devuelve el jugador que ha colocado la carta.
+     *
+     * @return El jugador, como Jugador.
+     */
+    public Jugador getJugador() {
+        return jugador;
+    }
+
+    /**
+     * Devuelve la carta colocada.
+     *
+     * @return La carta, como Carta.
+     */
+    public Carta getCarta() {
+        return carta;
+    }
+
+    /**
+     * Te dice si la carta colocada es el as de oros.
+     *
+     * @return true si es el as de oros, false si no.
+     */
+    public boolean esAsDeOros() {
+        return asDeOros;
+    }
+
+    /**
+     * Te dice si la jugada está deshecha.
+     *
+     * @return true si está deshecha, false si está hecha.
+     */
+    public boolean estaDeshecha() {
+        return deshecha;
+    }
+
+    /**
+     * Quita la carta de la mesa y la devuelve a la mano del jugador.
+     *
+     * @throws IllegalStateException Si la jugada ya estaba deshecha o la carta
+     * ya no está en un extremo de su palo.
+     */
+    public void deshacer() {
+        if (deshecha) {
+            throw new IllegalStateException("La jugada ya está deshecha");
+        }
+        mesa.deshacer(carta);
+        jugador.insertarCarta(carta);
+        deshecha = true;
+    }
+
+    /**
+     * Vuelve a colocar en la mesa la carta de una jugada deshecha.
+     *
+     * @throws IllegalStateException Si la jugada no estaba deshecha o la carta
+     * ya no se puede colocar.
+     */
+    public void rehacer() {
+        if (!deshecha) {
+            throw new IllegalStateException("La jugada no está deshecha");
+        }
+        if (!jugador.tieneCarta(carta) || !mesa.puedeColocarCarta(carta)) {
+            throw new IllegalStateException("La carta " + carta + " ya no se puede colocar");
+        }
+        jugador.colocarCarta(mesa, jugador.indiceDe(carta));
+        deshecha = false;
+    }
+
+    @Override
+    public String toString() {
+        return jugador.getNombre() + ": " + carta.getTexto(false) + (deshecha ? " (deshecha)" : "");
+    }
+}
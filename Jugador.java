@@ -4,13 +4,48 @@
  * Funcionalidad: Añadir carta a la mano, convertir a String el objeto Jugador (toString)
  */
 
-import java.util.LinkedList;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
 
 public class Jugador {
 
     private final String nombre;
-    private final LinkedList<Carta> mano;
     private int puntuacion;
+    // La mano es la máscara: un bit por identificador de carta. Como el identificador va por palo y
+    // número, el índice de una carta es cuántas cartas de la mano tienen un identificador menor
+    private long mascaraMano;
+    // Los identificadores de la mano en orden, para ir de índice a carta; se rehace solo si la mano
+    // ha cambiado desde la última vez
+    private final byte[] ordenadas = new byte[Carta.NUM_CARTAS];
+    private boolean ordenadasAlDia = true;
+    private final List<Carta> mano = new VistaMano();
+
+    /**
+     * Vista de solo lectura de la mano, ordenada por palo y número.
+     */
+    private class VistaMano extends AbstractList<Carta> implements RandomAccess {
+
+        @Override
+        public Carta get(int index) {
+            return devolverCarta(index);
+        }
+
+        @Override
+        public int size() {
+            return Long.bitCount(mascaraMano);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Carta && tieneCarta((Carta) o);
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            return o instanceof Carta ? indiceDe((Carta) o) : -1;
+        }
+    }
 
     /**
      * Crea un nuevo jugador.
@@ -19,7 +54,6 @@ public class Jugador {
      */
     public Jugador(String nombre) {
         this.nombre = nombre;
-        this.mano = new LinkedList<>();
         this.puntuacion = 0;
     }
 
@@ -33,21 +67,31 @@ public class Jugador {
     }
 
     /**
-     * Devuelve la mano del jugador.
+     * Devuelve la mano del jugador, ordenada por palo y número.
      *
-     * @return La lista de cartas que el jugador tiene en su mano, como
-     * LinkedList.
+     * @return La lista de cartas que el jugador tiene en su mano, de solo
+     * lectura, como List.
      */
-    public LinkedList<Carta> getMano() {
+    public List<Carta> getMano() {
         return mano;
     }
     
+    /**
+     * Devuelve las cartas de la mano como máscara de bits.
+     *
+     * @return La máscara de la mano, un bit por identificador de carta, como
+     * long.
+     */
+    public long getMascaraMano() {
+        return mascaraMano;
+    }
+
     /**
      * Devuelve el número de cartas que tiene el jugador en su mano.
      * @return el número de cartas que tiene el jugador en su mano, como Entero.
      */
     public int getCartasEnMano() {
-        return mano.size();
+        return Long.bitCount(mascaraMano);
     }
 
     /**
@@ -66,7 +110,19 @@ public class Jugador {
      * jugador está vacía
      */
     public boolean manoVacia() {
-        return getMano().isEmpty();
+        return mascaraMano == 0;
+    }
+
+    /**
+     * Deja al jugador listo para otra partida, con la puntuación a 0.
+     *
+     * @throws IllegalStateException Si todavía tiene cartas en la mano.
+     */
+    public void reiniciar() {
+        if (mascaraMano != 0) {
+            throw new IllegalStateException(nombre + " todavía tiene cartas en la mano");
+        }
+        this.puntuacion = 0;
     }
 
     /**
@@ -85,7 +141,46 @@ public class Jugador {
      *
      */
     public void insertarCarta(Carta laCarta) {
-        this.mano.add(laCarta);
+        long bit = 1L << laCarta.getId();
+        if ((mascaraMano & bit) != 0) {
+            throw new IllegalArgumentException("La carta ya está en la mano: " + laCarta);
+        }
+        this.mascaraMano |= bit;
+        this.ordenadasAlDia = false;
+    }
+
+    /**
+     * Te dice si una carta está en la mano del jugador.
+     *
+     * @param carta La carta, como Carta.
+     * @return true si la tiene, false si no.
+     */
+    public boolean tieneCarta(Carta carta) {
+        return (mascaraMano >>> carta.getId() & 1L) != 0;
+    }
+
+    /**
+     * Devuelve el índice de una carta en la mano del jugador.
+     *
+     * @param carta La carta, como Carta.
+     * @return El índice de la carta, o -1 si no la tiene, como Entero.
+     */
+    public int indiceDe(Carta carta) {
+        return indiceDe(carta.getId());
+    }
+
+    /**
+     * Devuelve el índice de una carta en la mano del jugador a partir de su
+     * identificador.
+     *
+     * @param id El identificador de la carta, de 0 a 47, como Entero.
+     * @return El índice de la carta, o -1 si no la tiene, como Entero.
+     */
+    public int indiceDe(int id) {
+        if ((mascaraMano >>> id & 1L) == 0) {
+            return -1;
+        }
+        return Long.bitCount(mascaraMano & ((1L << id) - 1));
     }
 
     /**
@@ -96,7 +191,17 @@ public class Jugador {
      * @return La carta correspondiente a ese índice, como Carta.
      */
     public Carta devolverCarta(int index) {
-        return getMano().get(index);
+        if (index < 0 || index >= getCartasEnMano()) {
+            throw new IndexOutOfBoundsException("No hay ninguna carta en la posición " + index);
+        }
+        if (!ordenadasAlDia) {
+            int i = 0;
+            for (long resto = mascaraMano; resto != 0; resto &= resto - 1) {
+                ordenadas[i++] = (byte) Long.numberOfTrailingZeros(resto);
+            }
+            ordenadasAlDia = true;
+        }
+        return Carta.of(ordenadas[index]);
     }
 
     /**
@@ -107,13 +212,7 @@ public class Jugador {
      * @return true si puede colocar alguna carta, false si no puede.
      */
     public boolean puedeColocarAlgo(Mesa laMesa) {
-        boolean canPlace = false;
-        int cardIndex = 0;
-        do {
-            canPlace = laMesa.puedeColocarCarta(this.mano.get(cardIndex));
-            cardIndex++;
-        } while (!canPlace && cardIndex < this.mano.size());
-        return canPlace;
+        return laMesa.jugadasLegales(this) != 0;
     }
 
     /**
@@ -126,7 +225,38 @@ public class Jugador {
      * @return true si la carta colocada es el as de oros, false si no lo es.
      */
     public boolean colocarCarta(Mesa mesa, int indice) {
-        return mesa.colocar(mano.remove(indice));
+        Carta carta = devolverCarta(indice);
+        this.mascaraMano &= ~(1L << carta.getId());
+        this.ordenadasAlDia = false;
+        return mesa.colocar(carta);
+    }
+
+    /**
+     * Coloca una carta en la mesa, quitándola de la mano del jugador, y
+     * devuelve la jugada para poder deshacerla.
+     *
+     * @param mesa La mesa donde se va a colocar la carta, como Mesa.
+     * @param indice El índice en la lista de cartas que tiene el jugador en su
+     * mano, como Entero.
+     * @return La jugada hecha, como Jugada.
+     */
+    public Jugada jugar(Mesa mesa, int indice) {
+        Carta carta = devolverCarta(indice);
+        return new Jugada(this, mesa, carta, colocarCarta(mesa, indice));
+    }
+
+    /**
+     * Deja en la mano del jugador exactamente unas cartas y pone su
+     * puntuación, sin pasar por la baraja.
+     *
+     * @param cartas Las cartas de la mano, un bit por identificador de carta,
+     * como long.
+     * @param puntuacion La puntuación, como Entero.
+     */
+    void restaurar(long cartas, int puntuacion) {
+        this.mascaraMano = cartas;
+        this.ordenadasAlDia = false;
+        this.puntuacion = puntuacion;
     }
 
     /**
@@ -135,9 +265,11 @@ public class Jugador {
      * @param baraja La baraja donde se guardarán las cartas, como Baraja.
      */
     public void vaciarMano(Baraja baraja) {
-        while (!this.mano.isEmpty()) {
-            baraja.meterCarta(this.mano.remove());
+        for (long resto = mascaraMano; resto != 0; resto &= resto - 1) {
+            baraja.meterCarta(Carta.of(Long.numberOfTrailingZeros(resto)));
         }
+        this.mascaraMano = 0;
+        this.ordenadasAlDia = true;
     }
 
     /**
@@ -0,0 +1,171 @@
+/*
+ * Lee los ficheros de RegistroPartidas proyectándolos en memoria y reproduce las partidas sobre
+ * un EstadoCompacto, sin crear objetos Carta ni Jugador. Quien lee recibe cada paso a través de
+ * un Visitante y puede consultar el estado de la mesa en ese momento.
+ * Cada fichero puede ocupar como mucho 2 GB.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class LectorRegistro {
+
+    /**
+     * Recibe los pasos de las partidas que se van reproduciendo. El estado se
+     * reutiliza entre partidas: hay que copiarlo si se quiere guardar.
+     */
+    public interface Visitante {
+
+        default void empezarPartida(long semilla, int numJugadores) {
+        }
+
+        default void empezarRonda(EstadoCompacto estado, int[] orden) {
+        }
+
+        default void jugada(EstadoCompacto estado, int asiento, int id) {
+        }
+
+        default void pase(EstadoCompacto estado, int asiento) {
+        }
+
+        default void terminarRonda(EstadoCompacto estado, int[] puntosRonda) {
+        }
+
+        default void terminarPartida(int[] puntuaciones) {
+        }
+    }
+
+    private final MappedByteBuffer datos;
+    private final EstadoCompacto[] estados = new EstadoCompacto[5];
+    private final int[][] ordenes = new int[5][];
+    private final int[][] puntos = new int[5][];
+
+    /**
+     * Abre un fichero de registro y lo proyecta en memoria.
+     *
+     * @param fichero La ruta del fichero, como Path.
+     * @throws IOException Si no se puede leer el fichero o no es un registro.
+     */
+    public LectorRegistro(Path fichero) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IOException("El registro ocupa más de 2 GB: " + fichero);
+            }
+            datos = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+        if (datos.remaining() < 4 || datos.getInt(0) != RegistroPartidas.CABECERA) {
+            throw new IOException("No es un registro de partidas: " + fichero);
+        }
+        for (int n = 3; n <= 4; n++) {
+            estados[n] = new EstadoCompacto(n);
+            ordenes[n] = new int[n];
+            puntos[n] = new int[n];
+        }
+    }
+
+    /**
+     * Reproduce todas las partidas del fichero.
+     *
+     * @param visitante Quien recibe los pasos de las partidas, como Visitante.
+     * @return El número de partidas leídas, como long.
+     */
+    public long reproducir(Visitante visitante) {
+        ByteBuffer in = datos.duplicate();
+        in.position(4);
+        long partidas = 0;
+        while (in.hasRemaining()) {
+            reproducirPartida(in, visitante);
+            partidas++;
+        }
+        return partidas;
+    }
+
+    /**
+     * Cuenta las partidas del fichero sin reproducirlas.
+     *
+     * @return El número de partidas, como long.
+     */
+    public long contarPartidas() {
+        return reproducir(new Visitante() {
+        });
+    }
+
+    /**
+     * Reproduce una partida desde la posición actual del buffer.
+     *
+     * @param in Los datos, colocados al principio de una partida, como
+     * ByteBuffer.
+     * @param visitante Quien recibe los pasos de la partida, como Visitante.
+     */
+    private void reproducirPartida(ByteBuffer in, Visitante visitante) {
+        esperar(in, RegistroPartidas.PARTIDA);
+        long semilla = in.getLong();
+        int n = in.get();
+        if (n != 3 && n != 4) {
+            throw new IllegalStateException("Número de jugadores no válido en la posición " + (in.position() - 1));
+        }
+        EstadoCompacto estado = estados[n];
+        int[] orden = ordenes[n];
+        int[] marcador = puntos[n];
+        visitante.empezarPartida(semilla, n);
+
+        byte marca = in.get();
+        while (marca == RegistroPartidas.RONDA) {
+            estado.vaciar();
+            for (int i = 0; i < n; i++) {
+                orden[i] = in.get();
+            }
+            for (int i = 0; i < n; i++) {
+                long alto = in.getShort() & 0xFFFFL;
+                long bajo = in.getInt() & 0xFFFFFFFFL;
+                estado.setMano(i, alto << 32 | bajo);
+            }
+            visitante.empezarRonda(estado, orden);
+
+            int turno = 0;
+            byte jugada = in.get();
+            while (jugada != RegistroPartidas.FIN_RONDA) {
+                int asiento = orden[turno];
+                if (jugada == RegistroPartidas.PASE) {
+                    visitante.pase(estado, asiento);
+                } else {
+                    estado.colocar(asiento, jugada);
+                    visitante.jugada(estado, asiento, jugada);
+                }
+                if (!estado.manoVacia(asiento)) {
+                    turno = turno + 1 == n ? 0 : turno + 1;
+                }
+                jugada = in.get();
+            }
+            for (int i = 0; i < n; i++) {
+                marcador[i] = in.getShort();
+            }
+            visitante.terminarRonda(estado, marcador);
+            marca = in.get();
+        }
+        if (marca != RegistroPartidas.FIN_PARTIDA) {
+            throw new IllegalStateException("Marca inesperada en la posición " + (in.position() - 1));
+        }
+        for (int i = 0; i < n; i++) {
+            marcador[i] = in.getInt();
+        }
+        visitante.terminarPartida(marcador);
+    }
+
+    /**
+     * Lee un byte y comprueba que es la marca esperada.
+     *
+     * @param in Los datos, como ByteBuffer.
+     * @param marca La marca esperada, como byte.
+     */
+    private static void esperar(ByteBuffer in, byte marca) {
+        byte leido = in.get();
+        if (leido != marca) {
+            throw new IllegalStateException("Marca inesperada en la posición " + (in.position() - 1));
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Compara varias estrategias (políticas) y las clasifica en puntos Elo.
+ * Todas las mesas posibles de 3 o 4 estrategias distintas juegan los mismos repartos en formato
+ * duplicado: cada reparto se juega una vez por rotación de asientos, así que cada estrategia juega
+ * cada mano desde cada sitio y la suerte del reparto se cancela. Por cada reparto y mesa se suman
+ * los puntos de cada estrategia en todas las rotaciones y se compara cada par de estrategias.
+ * Los repartos se juegan por tandas en paralelo con fork-join; tras cada tanda se recalcula la
+ * Clasificacion y se para en cuanto el orden es estable, sin llegar al máximo de repartos.
+ * Cada reparto sale de su propia semilla, así que el resultado es el mismo con cualquier número de
+ * hilos, siempre que las estrategias no dependan del reloj: PoliticaISMCTS busca durante un tiempo
+ * fijo, y con ella el resultado cambia de una ejecución a otra.
+ * Uso: java Liga [repartos máximos] [semilla]
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class Liga {
+
+    private static final int REPARTOS_POR_TROZO = 64;
+
+    private final int numJugadores;
+    private final String[] nombres;
+    private final FabricaPolitica[] estrategias;
+    private final int[][] mesas;
+    private final ForkJoinPool pool;
+    private long repartosPorTanda = 2048;
+    private long minRepartos = 2048;
+    private long maxRepartos = 1 << 20;
+    private double z = 1.96;
+
+    /**
+     * Crea una nueva liga que usa todos los núcleos.
+     *
+     * @param numJugadores El número de jugadores por mesa, 3 o 4, como
+     * Entero.
+     * @param nombres El nombre de cada estrategia, como array de String.
+     * @param estrategias Las estrategias, al menos tantas como jugadores por
+     * mesa, como array de FabricaPolitica.
+     */
+    public Liga(int numJugadores, String[] nombres, FabricaPolitica[] estrategias) {
+        this(ForkJoinPool.commonPool(), numJugadores, nombres, estrategias);
+    }
+
+    /**
+     * Crea una nueva liga que usa un pool concreto.
+     *
+     * @param pool El pool donde se juegan las partidas, como ForkJoinPool.
+     * @param numJugadores El número de jugadores por mesa, 3 o 4, como
+     * Entero.
+     * @param nombres El nombre de cada estrategia, como array de String.
+     * @param estrategias Las estrategias, al menos tantas como jugadores por
+     * mesa, como array de FabricaPolitica.
+     */
+    public Liga(ForkJoinPool pool, int numJugadores, String[] nombres, FabricaPolitica[] estrategias) {
+        if (numJugadores != 3 && numJugadores != 4) {
+            throw new IllegalArgumentException("El juego es para 3 o 4 jugadores");
+        }
+        if (nombres.length != estrategias.length) {
+            throw new IllegalArgumentException("Hace falta un nombre por estrategia");
+        }
+        if (estrategias.length < numJugadores) {
+            throw new IllegalArgumentException("Hacen falta al menos " + numJugadores + " estrategias");
+        }
+        this.pool = pool;
+        this.numJugadores = numJugadores;
+        this.nombres = nombres.clone();
+        this.estrategias = estrategias.clone();
+        List<int[]> combinaciones = new ArrayList<>();
+        combinar(new int[numJugadores], 0, 0, combinaciones);
+        this.mesas = combinaciones.toArray(new int[0][]);
+    }
+
+    /**
+     * Cambia cuántos repartos se juegan entre cálculo y cálculo de la
+     * clasificación.
+     *
+     * @param repartosPorTanda Los repartos por tanda, como long.
+     */
+    public void setRepartosPorTanda(long repartosPorTanda) {
+        this.repartosPorTanda = repartosPorTanda;
+    }
+
+    /**
+     * Cambia los límites de repartos: no se para antes del mínimo aunque la
+     * clasificación sea estable, ni se sigue después del máximo.
+     *
+     * @param minRepartos El mínimo de repartos, como long.
+     * @param maxRepartos El máximo de repartos, como long.
+     */
+    public void setLimites(long minRepartos, long maxRepartos) {
+        if (minRepartos > maxRepartos) {
+            throw new IllegalArgumentException("El mínimo de repartos es mayor que el máximo");
+        }
+        this.minRepartos = minRepartos;
+        this.maxRepartos = maxRepartos;
+    }
+
+    /**
+     * Cambia cuántos errores típicos tienen que separar dos puestos para dar
+     * la clasificación por estable.
+     *
+     * @param z Los errores típicos, 1.96 para un 95 %, como double.
+     */
+    public void setConfianza(double z) {
+        this.z = z;
+    }
+
+    /**
+     * Devuelve cuántas mesas distintas juega cada reparto.
+     *
+     * @return El número de mesas, como Entero.
+     */
+    public int getNumMesas() {
+        return mesas.length;
+    }
+
+    /**
+     * Juega tandas de repartos hasta que la clasificación es estable o se
+     * llega al máximo de repartos.
+     *
+     * @param semilla La semilla de la que salen todos los repartos, como long.
+     * @return La clasificación final, como Clasificacion.
+     */
+    public Clasificacion jugar(long semilla) {
+        ResultadosLiga total = new ResultadosLiga(estrategias.length);
+        Clasificacion clasificacion = new Clasificacion(nombres, total);
+        long hechos = 0;
+        while (hechos < maxRepartos) {
+            long tanda = Math.min(repartosPorTanda, maxRepartos - hechos);
+            total.combinar(pool.invoke(new Trozo(hechos, hechos + tanda, semilla)));
+            hechos += tanda;
+            clasificacion = new Clasificacion(nombres, total);
+            if (hechos >= minRepartos && clasificacion.esEstable(z)) {
+                break;
+            }
+        }
+        return clasificacion;
+    }
+
+    /**
+     * Juega en este hilo los repartos de un rango, en todas las mesas y todas
+     * las rotaciones.
+     *
+     * @param desde El primer reparto del rango, como long.
+     * @param hasta El reparto siguiente al último del rango, como long.
+     * @param semilla La semilla de la liga, como long.
+     * @return Los resultados del rango, como ResultadosLiga.
+     */
+    private ResultadosLiga jugarRango(long desde, long hasta, long semilla) {
+        SplittableRandom random = new SplittableRandom(mezclar(semilla, ~desde));
+        Politica[] politicas = new Politica[estrategias.length];
+        for (int e = 0; e < estrategias.length; e++) {
+            politicas[e] = estrategias[e].crear(random.split());
+        }
+        // En la rotación r de una mesa, el asiento s lo ocupa su estrategia (s + r) % n
+        Simulador[][] simuladores = new Simulador[mesas.length][numJugadores];
+        for (int m = 0; m < mesas.length; m++) {
+            for (int r = 0; r < numJugadores; r++) {
+                Politica[] sentados = new Politica[numJugadores];
+                for (int s = 0; s < numJugadores; s++) {
+                    sentados[s] = politicas[mesas[m][(s + r) % numJugadores]];
+                }
+                simuladores[m][r] = new Simulador(sentados);
+            }
+        }
+
+        ResultadosLiga resultados = new ResultadosLiga(estrategias.length);
+        long[] suma = new long[numJugadores];
+        for (long reparto = desde; reparto < hasta; reparto++) {
+            long semillaReparto = mezclar(semilla, reparto);
+            for (int m = 0; m < mesas.length; m++) {
+                Arrays.fill(suma, 0);
+                for (int r = 0; r < numJugadores; r++) {
+                    ResultadoPartida resultado = simuladores[m][r].jugarPartida(semillaReparto);
+                    for (int s = 0; s < numJugadores; s++) {
+                        int posicion = (s + r) % numJugadores;
+                        suma[posicion] += resultado.getPuntuacion(s);
+                        resultados.anotarPuntos(mesas[m][posicion], resultado.getPuntuacion(s));
+                    }
+                }
+                for (int a = 0; a < numJugadores; a++) {
+                    for (int b = a + 1; b < numJugadores; b++) {
+                        resultados.anotarEnfrentamiento(mesas[m][a], mesas[m][b], suma[a], suma[b]);
+                    }
+                }
+            }
+            resultados.anotarReparto();
+        }
+        return resultados;
+    }
+
+    /**
+     * Un rango de repartos que se parte en dos hasta que es lo bastante
+     * pequeño para jugarlo de seguido.
+     */
+    private class Trozo extends RecursiveTask<ResultadosLiga> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long desde;
+        private final long hasta;
+        private final long semilla;
+
+        Trozo(long desde, long hasta, long semilla) {
+            this.desde = desde;
+            this.hasta = hasta;
+            this.semilla = semilla;
+        }
+
+        @Override
+        protected ResultadosLiga compute() {
+            if (hasta - desde <= REPARTOS_POR_TROZO) {
+                return jugarRango(desde, hasta, semilla);
+            }
+            long mitad = (desde + hasta) >>> 1;
+            Trozo izquierda = new Trozo(desde, mitad, semilla);
+            Trozo derecha = new Trozo(mitad, hasta, semilla);
+            izquierda.fork();
+            ResultadosLiga resultado = derecha.compute();
+            return resultado.combinar(izquierda.join());
+        }
+    }
+
+    /**
+     * Llena la lista con todas las combinaciones de estrategias de una mesa.
+     *
+     * @param actual La combinación que se está formando, como array de
+     * Entero.
+     * @param posicion La siguiente posición a llenar, como Entero.
+     * @param desde La primera estrategia que se puede poner, como Entero.
+     * @param combinaciones Donde se guardan, como List.
+     */
+    private void combinar(int[] actual, int posicion, int desde, List<int[]> combinaciones) {
+        if (posicion == actual.length) {
+            combinaciones.add(actual.clone());
+            return;
+        }
+        for (int e = desde; e < estrategias.length; e++) {
+            actual[posicion] = e;
+            combinar(actual, posicion + 1, e + 1, combinaciones);
+        }
+    }
+
+    /**
+     * Saca una semilla independiente para cada reparto (mezcla de SplitMix64).
+     *
+     * @param semilla La semilla de la liga, como long.
+     * @param reparto El número de reparto, como long.
+     * @return La semilla del reparto, como long.
+     */
+    private static long mezclar(long semilla, long reparto) {
+        long z = semilla + (reparto + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Clasifica las estrategias que hay en el proyecto en mesas de 3.
+     *
+     * @param args El máximo de repartos (65536 si no se da) y la semilla (1 si
+     * no se da).
+     */
+    public static void main(String[] args) {
+        long maxRepartos = args.length > 0 ? Long.parseLong(args[0]) : 65536;
+        long semilla = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        String[] nombres = {"Aleatoria", "PrimeraCarta", "ISMCTS 200us"};
+        FabricaPolitica[] estrategias = {
+            PoliticaAleatoria::new,
+            random -> new PoliticaPrimeraCarta(),
+            random -> new PoliticaISMCTS(random, 200, 1)
+        };
+        Liga liga = new Liga(3, nombres, estrategias);
+        liga.setRepartosPorTanda(256);
+        liga.setLimites(256, Math.max(256, maxRepartos));
+        long inicio = System.nanoTime();
+        Clasificacion clasificacion = liga.jugar(semilla);
+        System.out.print(clasificacion);
+        System.out.printf("Estable: %s (%.1f s)%n", clasificacion.esEstable(1.96), (System.nanoTime() - inicio) / 1e9);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Calcula de golpe las jugadas legales de muchas consultas (una mano en una mesa) guardadas en arrays
+ * de long, sin crear Mesa ni Jugador: para servicios que preguntan por miles de mesas a la vez.
+ * La mesa va empaquetada como la máscara de sus cartas colocadas (Mesa.getColocadas,
+ * EstadoCompacto.getCartasEnMesa) y la mano como la máscara de sus cartas (Jugador.getMascaraMano).
+ * El cálculo por lotes no tiene saltos: las vecinas de todas las cartas colocadas salen con dos
+ * desplazamientos, y el 5 de un palo es colocable justo cuando no está en la mesa, porque en un palo
+ * con cartas siempre está el 5. Así el bucle es una serie de operaciones de bits sobre arrays que el
+ * compilador JIT puede vectorizar. La versión escalar sigue las reglas palo a palo, como Mesa, y da
+ * exactamente lo mismo; sirve de referencia y de respaldo.
+ */
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public final class LoteJugadas {
+
+    private static final long TODAS = (1L << Carta.NUM_CARTAS) - 1;
+    // Un bit por palo: el as (el más bajo), el rey (el más alto) y el 5
+    private static final long ASES = 0x001001001001L;
+    private static final long REYES = ASES << (Carta.CARTAS_POR_PALO - 1);
+    private static final long CINCOS = ASES << 4;
+    private static final int CONSULTAS_POR_TROZO = 1 << 14;
+
+    private LoteJugadas() {
+    }
+
+    /**
+     * Devuelve las cartas que se pueden colocar en una mesa, sin saltos.
+     *
+     * @param colocadas Las cartas de la mesa, un bit por carta, como long.
+     * @return Las cartas colocables, un bit por carta, como long.
+     */
+    public static long jugables(long colocadas) {
+        long vecinas = ((colocadas << 1) & ~ASES) | ((colocadas >>> 1) & ~REYES);
+        return (vecinas | CINCOS) & ~colocadas & TODAS;
+    }
+
+    /**
+     * Calcula las jugadas legales de un rango de consultas en un solo bucle.
+     *
+     * @param colocadas Las cartas de la mesa de cada consulta, como array de
+     * long.
+     * @param manos La mano de cada consulta, como array de long.
+     * @param legales Donde se dejan las jugadas legales de cada consulta; 0
+     * quiere decir que le toca pasar, como array de long.
+     * @param desde La primera consulta, como Entero.
+     * @param hasta La consulta siguiente a la última, como Entero.
+     */
+    public static void jugadasLegales(long[] colocadas, long[] manos, long[] legales, int desde, int hasta) {
+        comprobar(colocadas, manos, legales, desde, hasta);
+        for (int i = desde; i < hasta; i++) {
+            long p = colocadas[i];
+            long vecinas = ((p << 1) & ~ASES) | ((p >>> 1) & ~REYES);
+            legales[i] = manos[i] & (vecinas | CINCOS) & ~p;
+        }
+    }
+
+    /**
+     * Calcula las jugadas legales de todas las consultas.
+     *
+     * @param colocadas Las cartas de la mesa de cada consulta, como array de
+     * long.
+     * @param manos La mano de cada consulta, como array de long.
+     * @param legales Donde se dejan las jugadas legales de cada consulta, como
+     * array de long.
+     */
+    public static void jugadasLegales(long[] colocadas, long[] manos, long[] legales) {
+        jugadasLegales(colocadas, manos, legales, 0, colocadas.length);
+    }
+
+    /**
+     * Calcula las jugadas legales de todas las consultas repartiéndolas entre
+     * los núcleos del pool común. Para lotes pequeños no compensa y se hace
+     * en este hilo.
+     *
+     * @param colocadas Las cartas de la mesa de cada consulta, como array de
+     * long.
+     * @param manos La mano de cada consulta, como array de long.
+     * @param legales Donde se dejan las jugadas legales de cada consulta, como
+     * array de long.
+     */
+    public static void jugadasLegalesEnParalelo(long[] colocadas, long[] manos, long[] legales) {
+        comprobar(colocadas, manos, legales, 0, colocadas.length);
+        ForkJoinPool.commonPool().invoke(new Trozo(colocadas, manos, legales, 0, colocadas.length));
+    }
+
+    /**
+     * Calcula las jugadas legales de un rango de consultas palo a palo, con
+     * las mismas reglas que Mesa. Da lo mismo que jugadasLegales.
+     *
+     * @param colocadas Las cartas de la mesa de cada consulta, como array de
+     * long.
+     * @param manos La mano de cada consulta, como array de long.
+     * @param legales Donde se dejan las jugadas legales de cada consulta, como
+     * array de long.
+     * @param desde La primera consulta, como Entero.
+     * @param hasta La consulta siguiente a la última, como Entero.
+     */
+    public static void jugadasLegalesEscalar(long[] colocadas, long[] manos, long[] legales, int desde, int hasta) {
+        comprobar(colocadas, manos, legales, desde, hasta);
+        for (int i = desde; i < hasta; i++) {
+            legales[i] = manos[i] & jugablesEscalar(colocadas[i]);
+        }
+    }
+
+    /**
+     * Cuenta las consultas a las que les toca pasar (sin jugadas legales) y
+     * las marca.
+     *
+     * @param legales Las jugadas legales de cada consulta, como array de long.
+     * @param pasa Donde se marca si cada consulta tiene que pasar, o null para
+     * solo contarlas, como array de booleanos.
+     * @return El número de consultas que tienen que pasar, como Entero.
+     */
+    public static int contarPases(long[] legales, boolean[] pasa) {
+        int pases = 0;
+        for (int i = 0; i < legales.length; i++) {
+            boolean sinJugada = legales[i] == 0;
+            if (pasa != null) {
+                pasa[i] = sinJugada;
+            }
+            pases += sinJugada ? 1 : 0;
+        }
+        return pases;
+    }
+
+    /**
+     * Devuelve las cartas que se pueden colocar en una mesa mirando palo a
+     * palo dónde empieza y acaba su tramo.
+     *
+     * @param colocadas Las cartas de la mesa, un bit por carta, como long.
+     * @return Las cartas colocables, un bit por carta, como long.
+     */
+    static long jugablesEscalar(long colocadas) {
+        long jugables = 0;
+        for (int palo = 0; palo < 4; palo++) {
+            int base = palo * Carta.CARTAS_POR_PALO;
+            int tramo = (int) (colocadas >>> base) & 0xFFF;
+            if (tramo == 0) {
+                jugables |= 1L << (base + 4);
+            } else {
+                int minimo = Integer.numberOfTrailingZeros(tramo);
+                int maximo = 31 - Integer.numberOfLeadingZeros(tramo);
+                if (minimo > 0) {
+                    jugables |= 1L << (base + minimo - 1);
+                }
+                if (maximo < Carta.CARTAS_POR_PALO - 1) {
+                    jugables |= 1L << (base + maximo + 1);
+                }
+            }
+        }
+        return jugables;
+    }
+
+    private static void comprobar(long[] colocadas, long[] manos, long[] legales, int desde, int hasta) {
+        if (manos.length < hasta || colocadas.length < hasta || legales.length < hasta || desde < 0 || desde > hasta) {
+            throw new IllegalArgumentException("Rango de consultas no válido: " + desde + ".." + hasta);
+        }
+    }
+
+    /**
+     * Un rango de consultas que se parte en dos hasta que es lo bastante
+     * pequeño para hacerlo de seguido.
+     */
+    private static class Trozo extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long[] colocadas;
+        private final long[] manos;
+        private final long[] legales;
+        private final int desde;
+        private final int hasta;
+
+        Trozo(long[] colocadas, long[] manos, long[] legales, int desde, int hasta) {
+            this.colocadas = colocadas;
+            this.manos = manos;
+            this.legales = legales;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde <= CONSULTAS_POR_TROZO) {
+                jugadasLegales(colocadas, manos, legales, desde, hasta);
+                return;
+            }
+            int mitad = (desde + hasta) >>> 1;
+            invokeAll(new Trozo(colocadas, manos, legales, desde, mitad),
+                    new Trozo(colocadas, manos, legales, mitad, hasta));
+        }
+    }
+}
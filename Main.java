@@ -1,6 +1,7 @@
 public class Main {
     public static void main(String[] args) {
-        IU iu = new IU();
+        Metricas.exportarSegunPropiedades();
+        IU iu = new IUBuffer(false);
         Juego cinquillo = new Juego(iu);
         cinquillo.jugar();
     }   
@@ -0,0 +1,93 @@
+/*
+ * Media y varianza de una serie de valores calculadas sobre la marcha (algoritmo de Welford), sin
+ * guardar los valores: la memoria no depende de cuántos se anoten.
+ * Dos medias de hilos distintos se juntan con combinar (fórmula de Chan), así que cada hilo puede
+ * llevar la suya sin cerrojos.
+ */
+
+public class MediaOnline {
+
+    private long cuenta;
+    private double media;
+    private double m2;
+
+    /**
+     * Anota un valor.
+     *
+     * @param valor El valor, como double.
+     */
+    public void anotar(double valor) {
+        cuenta++;
+        double delta = valor - media;
+        media += delta / cuenta;
+        m2 += delta * (valor - media);
+    }
+
+    /**
+     * Junta con esta media los valores de otra.
+     *
+     * @param otra La otra media, como MediaOnline.
+     * @return Esta misma media, como MediaOnline.
+     */
+    public MediaOnline combinar(MediaOnline otra) {
+        if (otra.cuenta == 0) {
+            return this;
+        }
+        long total = cuenta + otra.cuenta;
+        double delta = otra.media - media;
+        media += delta * otra.cuenta / total;
+        m2 += otra.m2 + delta * delta * cuenta * otra.cuenta / total;
+        cuenta = total;
+        return this;
+    }
+
+    /**
+     * Devuelve cuántos valores se han anotado.
+     *
+     * @return El número de valores, como long.
+     */
+    public long getCuenta() {
+        return cuenta;
+    }
+
+    /**
+     * Devuelve la media de los valores.
+     *
+     * @return La media, o 0 si no hay valores, como double.
+     */
+    public double getMedia() {
+        return media;
+    }
+
+    /**
+     * Devuelve la varianza muestral de los valores.
+     *
+     * @return La varianza, o 0 si hay menos de 2 valores, como double.
+     */
+    public double getVarianza() {
+        return cuenta < 2 ? 0 : m2 / (cuenta - 1);
+    }
+
+    /**
+     * Devuelve la desviación típica muestral de los valores.
+     *
+     * @return La desviación típica, como double.
+     */
+    public double getDesviacion() {
+        return Math.sqrt(getVarianza());
+    }
+
+    /**
+     * Devuelve el error típico de la media.
+     *
+     * @return El error típico, o 0 si no hay valores, como double.
+     */
+    public double getErrorTipico() {
+        return cuenta == 0 ? 0 : getDesviacion() / Math.sqrt(cuenta);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.4f ± %.4f (n=%d)", media, getErrorTipico(), cuenta);
+    }
+}
@@ -6,22 +6,39 @@
     * Funcionalidad: saber si es posible colocar una carta en la mesa, colocar una carta en la mesa, mostrar la mesa
  */
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Deque;
+import java.util.ArrayDeque;
 import java.util.Iterator;
-import java.util.LinkedList;
 
 public class Mesa {
 
+    private static final Carta.tipoPalo[] PALOS = Carta.tipoPalo.values();
+
     Deque<Carta>[] mesa;
+    // Frontera: las (como mucho 8) cartas que se pueden colocar ahora, un bit por carta
+    private long jugables;
+    // Las cartas que hay sobre la mesa, un bit por carta
+    private long colocadas;
+    // Texto ya compuesto de cada fila (índice palo, o 4 + palo sin colores) y de la mesa entera;
+    // null si hay que volver a componerlo porque el palo ha cambiado
+    private final String[] textoFilas = new String[8];
+    private final byte[][] bytesFilas = new byte[8][];
+    private final String[] textoMesa = new String[2];
 
     /**
      * Crea una nueva mesa de juego.
      */
+    @SuppressWarnings("unchecked")
     public Mesa() {
-        mesa = new Deque[4];
+        mesa = (Deque<Carta>[]) new Deque<?>[4];
         for (int i = 0; i < mesa.length; i++) {
-            mesa[i] = new LinkedList<>();
+            // Con sitio para todo el palo: colocar y vaciar no vuelven a reservar memoria
+            mesa[i] = new ArrayDeque<>(Carta.CARTAS_POR_PALO);
         }
+        recalcularJugables();
     }
 
     /**
@@ -35,6 +52,43 @@ public class Mesa {
                 baraja.meterCarta(monton.removeFirst());
             }
         }
+        colocadas = 0;
+        recalcularJugables();
+        for (int palo = 0; palo < mesa.length; palo++) {
+            invalidarTexto(palo);
+        }
+    }
+
+    /**
+     * Devuelve las cartas que se pueden colocar ahora mismo en la mesa.
+     *
+     * @return La máscara de cartas colocables, un bit por identificador de
+     * carta, como long.
+     */
+    public long getJugables() {
+        return jugables;
+    }
+
+    /**
+     * Devuelve las cartas que hay sobre la mesa.
+     *
+     * @return La máscara de cartas colocadas, un bit por identificador de
+     * carta, como long.
+     */
+    public long getColocadas() {
+        return colocadas;
+    }
+
+    /**
+     * Devuelve las cartas de la mano de un jugador que se pueden colocar en la
+     * mesa.
+     *
+     * @param jugador El jugador, como Jugador.
+     * @return La máscara de jugadas legales, un bit por identificador de carta,
+     * como long.
+     */
+    public long jugadasLegales(Jugador jugador) {
+        return jugador.getMascaraMano() & jugables;
     }
 
     /**
@@ -44,25 +98,7 @@ public class Mesa {
      * @return true si la carta se puede colocar, false si no se puede colocar.
      */
     public boolean puedeColocarCarta(Carta carta) {
-        boolean canPlace = false;
-
-        Deque<Carta> monton = mesa[carta.getPalo().ordinal()];
-
-        if (monton.isEmpty()) {
-            if (carta.getNumero() == 5) {
-                canPlace = true;
-            }
-        } else {
-            if (carta.getPalo() == monton.getFirst().getPalo()) {
-                if (monton.getFirst().getNumero() == carta.getNumero() - 1) {
-                    canPlace = true;
-                }
-                if (monton.getLast().getNumero() == carta.getNumero() + 1) {
-                    canPlace = true;
-                }
-            }
-        }
-        return canPlace;
+        return (jugables >>> carta.getId() & 1L) != 0;
     }
 
     /**
@@ -81,28 +117,198 @@ public class Mesa {
                 mesa[carta.getPalo().ordinal()].addLast(carta);
             }
         }
+        colocadas |= 1L << carta.getId();
+        actualizarJugables(carta.getPalo().ordinal());
+        invalidarTexto(carta.getPalo().ordinal());
         return (carta.getNumero() == 1 && carta.getPalo() == Carta.tipoPalo.OROS);
     }
 
     /**
-     * Crea un String que contiene las cartas ya jugadas que hay sobre la mesa.
+     * Quita de la mesa una carta que está en uno de los extremos de su palo,
+     * deshaciendo su colocación.
      *
-     * @return Las cartas jugadas ya apiladas sobre la mesa, como String.
+     * @param carta La carta que se quiere quitar, como Carta.
+     * @throws IllegalStateException Si la carta no está en un extremo de su
+     * palo, o es un 5 que todavía tiene cartas al lado.
      */
-    @Override
-    public String toString() {
-        StringBuilder sb = new StringBuilder();
+    public void deshacer(Carta carta) {
+        int palo = carta.getPalo().ordinal();
+        Deque<Carta> monton = mesa[palo];
+        if (carta.getNumero() == 5 && monton.size() > 1) {
+            // Con cartas solo por un lado el 5 también es un extremo del montón, pero no se puede quitar
+            throw new IllegalStateException("El " + carta + " es lo último que se quita de su palo");
+        }
+        if (monton.peekFirst() == carta) {
+            monton.removeFirst();
+        } else if (monton.peekLast() == carta) {
+            monton.removeLast();
+        } else {
+            throw new IllegalStateException("La carta " + carta + " no está en un extremo de la mesa");
+        }
+        colocadas &= ~(1L << carta.getId());
+        actualizarJugables(palo);
+        invalidarTexto(palo);
+    }
 
-        for (int i = 0; i < mesa.length; i++) {
-            sb.append("Palo ").append(i + 1).append(":( ");
-            Iterator<Carta> itr = mesa[i].iterator();
+    /**
+     * Deja sobre la mesa exactamente unas cartas, sin pasar por la baraja. Las
+     * cartas de cada palo deben ser seguidas y contener el 5.
+     *
+     * @param cartas Las cartas a colocar, un bit por identificador de carta,
+     * como long.
+     */
+    void restaurar(long cartas) {
+        for (int palo = 0; palo < mesa.length; palo++) {
+            mesa[palo].clear();
+            invalidarTexto(palo);
+        }
+        colocadas = 0;
+        recalcularJugables();
+        for (int palo = 0; palo < mesa.length; palo++) {
+            Carta.tipoPalo tipo = PALOS[palo];
+            for (int numero = 5; numero <= Carta.CARTAS_POR_PALO && (cartas >>> Carta.of(numero, tipo).getId() & 1L) != 0; numero++) {
+                colocar(Carta.of(numero, tipo));
+            }
+            for (int numero = 4; numero >= 1 && (cartas >>> Carta.of(numero, tipo).getId() & 1L) != 0; numero--) {
+                colocar(Carta.of(numero, tipo));
+            }
+        }
+        if (colocadas != cartas) {
+            throw new IllegalArgumentException("Esas cartas no pueden estar sobre la mesa");
+        }
+    }
+
+    /**
+     * Recalcula las cartas colocables de un palo a partir de los extremos de
+     * su montón: el 5 si está vacío, o las vecinas del primero y el último.
+     *
+     * @param palo El ordinal del palo, como Entero.
+     */
+    private void actualizarJugables(int palo) {
+        Carta.tipoPalo tipo = PALOS[palo];
+        Deque<Carta> monton = mesa[palo];
+        long frontera = 0;
+        if (monton.isEmpty()) {
+            frontera = 1L << Carta.of(5, tipo).getId();
+        } else {
+            if (monton.getFirst().getNumero() < Carta.CARTAS_POR_PALO) {
+                frontera |= 1L << (monton.getFirst().getId() + 1);
+            }
+            if (monton.getLast().getNumero() > 1) {
+                frontera |= 1L << (monton.getLast().getId() - 1);
+            }
+        }
+        long todoElPalo = 0xFFFL << (palo * Carta.CARTAS_POR_PALO);
+        jugables = (jugables & ~todoElPalo) | frontera;
+    }
+
+    /**
+     * Recalcula las cartas colocables de todos los palos.
+     */
+    private void recalcularJugables() {
+        for (int palo = 0; palo < mesa.length; palo++) {
+            actualizarJugables(palo);
+        }
+    }
+
+    /**
+     * Olvida el texto compuesto de un palo y el de la mesa entera.
+     *
+     * @param palo El ordinal del palo, como Entero.
+     */
+    private void invalidarTexto(int palo) {
+        textoFilas[palo] = null;
+        textoFilas[4 + palo] = null;
+        bytesFilas[palo] = null;
+        bytesFilas[4 + palo] = null;
+        textoMesa[0] = null;
+        textoMesa[1] = null;
+    }
+
+    /**
+     * Devuelve el texto de la fila de un palo, componiéndolo solo si el palo
+     * ha cambiado desde la última vez.
+     *
+     * @param palo El ordinal del palo, como Entero.
+     * @param color true para el texto con colores, false para el texto plano.
+     * @return La fila, acabada en salto de línea, como String.
+     */
+    private String fila(int palo, boolean color) {
+        int indice = color ? palo : 4 + palo;
+        String texto = textoFilas[indice];
+        if (texto == null) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Palo ").append(palo + 1).append(":( ");
+            Iterator<Carta> itr = mesa[palo].iterator();
             while (itr.hasNext()) {
-                sb.append(itr.next()).append("; ");
+                sb.append(itr.next().getTexto(color)).append("; ");
             }
             sb.append(")");
             sb.append("\n");
+            texto = sb.toString();
+            textoFilas[indice] = texto;
         }
-        return sb.toString();
+        return texto;
+    }
+
+    /**
+     * Devuelve el texto de la mesa, con o sin los códigos de color ANSI. Solo
+     * se vuelven a componer los palos que han cambiado.
+     *
+     * @param color true para el texto con colores, false para el texto plano.
+     * @return Las cartas jugadas ya apiladas sobre la mesa, como String.
+     */
+    public String getTexto(boolean color) {
+        int indice = color ? 0 : 1;
+        String texto = textoMesa[indice];
+        if (texto == null) {
+            texto = fila(0, color) + fila(1, color) + fila(2, color) + fila(3, color);
+            textoMesa[indice] = texto;
+        }
+        return texto;
+    }
+
+    /**
+     * Escribe la mesa en un Appendable, sin volver a componer los palos que
+     * no han cambiado.
+     *
+     * @param destino Donde se escribe, como Appendable.
+     * @param color true para el texto con colores, false para el texto plano.
+     * @throws IOException Si falla la escritura.
+     */
+    public void escribirEn(Appendable destino, boolean color) throws IOException {
+        for (int palo = 0; palo < mesa.length; palo++) {
+            destino.append(fila(palo, color));
+        }
+    }
+
+    /**
+     * Escribe la mesa en UTF-8 en un ByteBuffer, sin volver a codificar los
+     * palos que no han cambiado.
+     *
+     * @param destino Donde se escribe, como ByteBuffer.
+     * @param color true para el texto con colores, false para el texto plano.
+     */
+    public void escribirEn(ByteBuffer destino, boolean color) {
+        for (int palo = 0; palo < mesa.length; palo++) {
+            int indice = color ? palo : 4 + palo;
+            byte[] bytes = bytesFilas[indice];
+            if (bytes == null) {
+                bytes = fila(palo, color).getBytes(StandardCharsets.UTF_8);
+                bytesFilas[indice] = bytes;
+            }
+            destino.put(bytes);
+        }
+    }
+
+    /**
+     * Crea un String que contiene las cartas ya jugadas que hay sobre la mesa.
+     *
+     * @return Las cartas jugadas ya apiladas sobre la mesa, como String.
+     */
+    @Override
+    public String toString() {
+        return getTexto(true);
     }
 
 }
@@ -0,0 +1,382 @@
+/*
+ * Métricas del juego: contadores e histogramas de latencia para el bucle de turnos, el barajado, el
+ * reparto, la validación de jugadas y la entrada y salida de la interfaz.
+ * Registrar un evento no bloquea ni crea objetos: los contadores son LongAdder y los histogramas
+ * cuentan en cubos logarítmicos (16 subcubos por potencia de 2, un 6 % de error como mucho) sobre un
+ * AtomicLongArray.
+ * Están desactivadas salvo que se arranque con -Dcinquillo.metricas=true. ACTIVAS es una constante,
+ * así que con las métricas desactivadas el compilador JIT quita las comprobaciones y no cuestan nada.
+ * La instantánea se puede pedir con instantanea(), escribir cada cierto tiempo en un fichero
+ * (-Dcinquillo.metricas.fichero=ruta, -Dcinquillo.metricas.segundos=n) o ver por JMX
+ * (-Dcinquillo.metricas.jmx=true).
+ */
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MXBean;
+import javax.management.ObjectName;
+
+public final class Metricas {
+
+    public static final boolean ACTIVAS = Boolean.getBoolean("cinquillo.metricas");
+
+    // Bucle de turnos de Juego; la validación de turno y el reparto se miden en Partida, que también usa el Servidor
+    public static final Histograma TURNO = new Histograma("turno_ns");
+    // Una validación por turno (si puede colocar algo) y otra por cada carta que elige
+    public static final Histograma VALIDACION_TURNO = new Histograma("validacion_turno_ns");
+    public static final Histograma VALIDACION_CARTA = new Histograma("validacion_carta_ns");
+    public static final Contador JUGADAS = new Contador("jugadas");
+    public static final Contador JUGADAS_NO_VALIDAS = new Contador("jugadas_no_validas");
+    public static final Contador PASES = new Contador("pases");
+    public static final Contador RONDAS = new Contador("rondas");
+    public static final Contador PARTIDAS = new Contador("partidas");
+    public static final Histograma RONDAS_POR_PARTIDA = new Histograma("rondas_por_partida");
+    // Baraja y reparto
+    public static final Histograma BARAJAR = new Histograma("barajar_ns");
+    public static final Histograma REPARTIR = new Histograma("repartir_ns");
+    // Interfaz
+    public static final Histograma ESPERA_ENTRADA = new Histograma("espera_entrada_ns");
+    public static final Histograma SALIDA = new Histograma("salida_ns");
+
+    private static final Contador[] CONTADORES = {JUGADAS, JUGADAS_NO_VALIDAS, PASES, RONDAS, PARTIDAS};
+    private static final Histograma[] HISTOGRAMAS = {TURNO, VALIDACION_TURNO, VALIDACION_CARTA,
+        RONDAS_POR_PARTIDA, BARAJAR, REPARTIR, ESPERA_ENTRADA, SALIDA};
+
+    private static ScheduledExecutorService exportador;
+
+    private Metricas() {
+    }
+
+    /**
+     * Contador de eventos.
+     */
+    public static final class Contador {
+
+        private final String nombre;
+        private final LongAdder valor = new LongAdder();
+
+        private Contador(String nombre) {
+            this.nombre = nombre;
+        }
+
+        /**
+         * Suma 1 al contador, si las métricas están activas.
+         */
+        public void incrementar() {
+            if (ACTIVAS) {
+                valor.increment();
+            }
+        }
+
+        /**
+         * Devuelve el nombre del contador.
+         *
+         * @return El nombre, como String.
+         */
+        public String getNombre() {
+            return nombre;
+        }
+
+        /**
+         * Devuelve lo que lleva contado.
+         *
+         * @return La cuenta, como long.
+         */
+        public long getValor() {
+            return valor.sum();
+        }
+    }
+
+    /**
+     * Histograma de valores no negativos (normalmente nanosegundos) con cubos
+     * logarítmicos: los valores menores que 16 van cada uno en su cubo, y
+     * cada potencia de 2 mayor se parte en 16 cubos iguales.
+     */
+    public static final class Histograma {
+
+        private static final int SUBCUBOS = 16;
+        private static final int BITS_SUBCUBO = 4;
+
+        private final String nombre;
+        private final AtomicLongArray cubos = new AtomicLongArray(64 * SUBCUBOS);
+        private final LongAdder suma = new LongAdder();
+        private final AtomicLong maximo = new AtomicLong();
+
+        private Histograma(String nombre) {
+            this.nombre = nombre;
+        }
+
+        /**
+         * Apunta un valor, si las métricas están activas.
+         *
+         * @param valor El valor, como long.
+         */
+        public void registrar(long valor) {
+            if (ACTIVAS) {
+                if (valor < 0) {
+                    valor = 0;
+                }
+                cubos.incrementAndGet(cubo(valor));
+                suma.add(valor);
+                long max = maximo.get();
+                while (valor > max && !maximo.compareAndSet(max, valor)) {
+                    max = maximo.get();
+                }
+            }
+        }
+
+        /**
+         * Apunta el tiempo pasado desde un instante obtenido con
+         * Metricas.inicio().
+         *
+         * @param inicio El instante, en nanosegundos, como long.
+         */
+        public void registrarDesde(long inicio) {
+            if (ACTIVAS) {
+                registrar(System.nanoTime() - inicio);
+            }
+        }
+
+        /**
+         * Devuelve el nombre del histograma.
+         *
+         * @return El nombre, como String.
+         */
+        public String getNombre() {
+            return nombre;
+        }
+
+        /**
+         * Devuelve cuántos valores se han apuntado.
+         *
+         * @return El número de valores, como long.
+         */
+        public long getCuenta() {
+            long cuenta = 0;
+            for (int i = 0; i < cubos.length(); i++) {
+                cuenta += cubos.get(i);
+            }
+            return cuenta;
+        }
+
+        /**
+         * Devuelve la media de los valores apuntados.
+         *
+         * @return La media, o 0 si no hay valores, como double.
+         */
+        public double getMedia() {
+            long cuenta = getCuenta();
+            return cuenta == 0 ? 0 : (double) suma.sum() / cuenta;
+        }
+
+        /**
+         * Devuelve el mayor valor apuntado.
+         *
+         * @return El máximo, como long.
+         */
+        public long getMaximo() {
+            return maximo.get();
+        }
+
+        /**
+         * Devuelve un percentil aproximado: el límite inferior del cubo donde
+         * cae.
+         *
+         * @param percentil El percentil, entre 0 y 100, como double.
+         * @return El valor del percentil, o 0 si no hay valores, como long.
+         */
+        public long getPercentil(double percentil) {
+            long[] copia = new long[cubos.length()];
+            long cuenta = 0;
+            for (int i = 0; i < copia.length; i++) {
+                copia[i] = cubos.get(i);
+                cuenta += copia[i];
+            }
+            if (cuenta == 0) {
+                return 0;
+            }
+            long objetivo = Math.max(1, (long) Math.ceil(cuenta * percentil / 100));
+            long acumulado = 0;
+            for (int i = 0; i < copia.length; i++) {
+                acumulado += copia[i];
+                if (acumulado >= objetivo) {
+                    return Math.min(limiteInferior(i), maximo.get());
+                }
+            }
+            return maximo.get();
+        }
+
+        private static int cubo(long valor) {
+            if (valor < SUBCUBOS) {
+                return (int) valor;
+            }
+            int exponente = 63 - Long.numberOfLeadingZeros(valor);
+            int subcubo = (int) (valor >>> (exponente - BITS_SUBCUBO)) & (SUBCUBOS - 1);
+            return (exponente - BITS_SUBCUBO + 1) * SUBCUBOS + subcubo;
+        }
+
+        private static long limiteInferior(int cubo) {
+            if (cubo < SUBCUBOS) {
+                return cubo;
+            }
+            int exponente = cubo / SUBCUBOS + BITS_SUBCUBO - 1;
+            return (long) (SUBCUBOS + cubo % SUBCUBOS) << (exponente - BITS_SUBCUBO);
+        }
+    }
+
+    /**
+     * Vista de las métricas por JMX.
+     */
+    @MXBean
+    public interface Vista {
+
+        /**
+         * Devuelve los contadores por nombre.
+         *
+         * @return Los contadores, como Map.
+         */
+        Map<String, Long> getContadores();
+
+        /**
+         * Devuelve la instantánea de todas las métricas en texto.
+         *
+         * @return La instantánea, como String.
+         */
+        String getInstantanea();
+    }
+
+    /**
+     * Devuelve el instante actual para medir un tiempo con
+     * Histograma.registrarDesde, o 0 si las métricas están desactivadas.
+     *
+     * @return El instante, en nanosegundos, como long.
+     */
+    public static long inicio() {
+        return ACTIVAS ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Devuelve los contadores por nombre.
+     *
+     * @return Los contadores, como Map de String a Long.
+     */
+    public static Map<String, Long> contadores() {
+        Map<String, Long> valores = new LinkedHashMap<>();
+        for (Contador contador : CONTADORES) {
+            valores.put(contador.getNombre(), contador.getValor());
+        }
+        return valores;
+    }
+
+    /**
+     * Compone una instantánea de todas las métricas: una línea por contador
+     * y una por histograma, con la cuenta, la media, los percentiles 50, 90 y
+     * 99 y el máximo.
+     *
+     * @return La instantánea, como String.
+     */
+    public static String instantanea() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# metricas ").append(System.currentTimeMillis()).append(ACTIVAS ? "" : " (desactivadas)").append('\n');
+        for (Contador contador : CONTADORES) {
+            sb.append(contador.getNombre()).append(' ').append(contador.getValor()).append('\n');
+        }
+        for (Histograma histograma : HISTOGRAMAS) {
+            sb.append(histograma.getNombre())
+                    .append(" cuenta=").append(histograma.getCuenta())
+                    .append(" media=").append(String.format("%.1f", histograma.getMedia()))
+                    .append(" p50=").append(histograma.getPercentil(50))
+                    .append(" p90=").append(histograma.getPercentil(90))
+                    .append(" p99=").append(histograma.getPercentil(99))
+                    .append(" max=").append(histograma.getMaximo())
+                    .append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Escribe la instantánea en un fichero cada cierto tiempo, desde un hilo
+     * aparte. El fichero se reemplaza entero cada vez, así que quien lo lea
+     * nunca ve una instantánea a medias. Al salir del programa se escribe una
+     * última vez.
+     *
+     * @param fichero El fichero, como Path.
+     * @param segundos Cada cuántos segundos se escribe, como long.
+     */
+    public static synchronized void exportarCada(Path fichero, long segundos) {
+        if (exportador != null) {
+            throw new IllegalStateException("Las métricas ya se están exportando");
+        }
+        exportador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "Metricas-exportador");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        exportador.scheduleAtFixedRate(() -> escribir(fichero), segundos, segundos, TimeUnit.SECONDS);
+        // La última instantánea, al salir
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> escribir(fichero), "Metricas-final"));
+    }
+
+    /**
+     * Publica las métricas por JMX con el nombre Cinquillo:type=Metricas.
+     */
+    public static void registrarJmx() {
+        Vista vista = new Vista() {
+            @Override
+            public Map<String, Long> getContadores() {
+                return contadores();
+            }
+
+            @Override
+            public String getInstantanea() {
+                return instantanea();
+            }
+        };
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(vista, new ObjectName("Cinquillo:type=Metricas"));
+        } catch (JMException exc) {
+            throw new IllegalStateException("No se pudieron publicar las métricas por JMX", exc);
+        }
+    }
+
+    /**
+     * Arranca la exportación a fichero y por JMX según las propiedades del
+     * sistema. No hace nada si las métricas están desactivadas.
+     */
+    public static void exportarSegunPropiedades() {
+        if (!ACTIVAS) {
+            return;
+        }
+        String fichero = System.getProperty("cinquillo.metricas.fichero");
+        if (fichero != null) {
+            exportarCada(Paths.get(fichero), Long.getLong("cinquillo.metricas.segundos", 10));
+        }
+        if (Boolean.getBoolean("cinquillo.metricas.jmx")) {
+            registrarJmx();
+        }
+    }
+
+    private static void escribir(Path fichero) {
+        try {
+            Path temporal = fichero.resolveSibling(fichero.getFileName() + ".tmp");
+            Files.write(temporal, instantanea().getBytes(StandardCharsets.UTF_8));
+            Files.move(temporal, fichero, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exc) {
+            System.err.println("No se pudieron escribir las métricas: " + exc.getMessage());
+        }
+    }
+}
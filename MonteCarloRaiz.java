@@ -0,0 +1,242 @@
+/*
+ * Valora las jugadas de un bot con simulaciones en paralelo desde la raíz: cada simulación reparte al
+ * azar las cartas que el jugador no ve, coloca una de sus cartas legales (por turnos, para que todas
+ * tengan las mismas simulaciones) y juega el resto de la ronda con SimulacionRonda. Las simulaciones
+ * se reparten en trozos con fork-join como en AnalisisReglas; cada trozo tiene su propio núcleo y su
+ * propio generador sacado con split, y al final se suman las visitas y los puntos de cada jugada.
+ * Con la misma semilla sale lo mismo sea cual sea el número de hilos.
+ */
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class MonteCarloRaiz {
+
+    private static final int PUNTOS_RONDA = 4;
+    private static final int SIMULACIONES_POR_TROZO = 4096;
+
+    private final ForkJoinPool pool;
+    private final SimulacionRonda.Eleccion eleccion;
+
+    /**
+     * Crea una nueva búsqueda que usa todos los núcleos.
+     *
+     * @param eleccion Cómo se elige carta en las simulaciones, como
+     * SimulacionRonda.Eleccion.
+     */
+    public MonteCarloRaiz(SimulacionRonda.Eleccion eleccion) {
+        this(ForkJoinPool.commonPool(), eleccion);
+    }
+
+    /**
+     * Crea una nueva búsqueda que usa un pool concreto.
+     *
+     * @param pool El pool donde se juegan las simulaciones, como ForkJoinPool.
+     * @param eleccion Cómo se elige carta en las simulaciones, como
+     * SimulacionRonda.Eleccion.
+     */
+    public MonteCarloRaiz(ForkJoinPool pool, SimulacionRonda.Eleccion eleccion) {
+        this.pool = pool;
+        this.eleccion = eleccion;
+    }
+
+    /**
+     * Valora cada jugada legal del jugador que tiene el turno.
+     *
+     * @param colocadas Las cartas de la mesa, como long.
+     * @param miMano La mano del jugador, como long.
+     * @param cartas Cuántas cartas le quedan a cada asiento, como array de
+     * Entero.
+     * @param orden Los asientos en orden de turno, como array de Entero.
+     * @param turno La posición en el orden del jugador, como Entero.
+     * @param puntosAsDeOros Lo que vale el as de oros en esta ronda, como
+     * Entero.
+     * @param simulaciones El número total de simulaciones, como long.
+     * @param semilla La semilla de la que salen todos los generadores, como
+     * long.
+     * @return Las visitas y los puntos de cada jugada, como Valoracion.
+     */
+    public Valoracion valorar(long colocadas, long miMano, int[] cartas, int[] orden, int turno, int puntosAsDeOros,
+            long simulaciones, long semilla) {
+        long legales = miMano & LoteJugadas.jugables(colocadas);
+        if (legales == 0) {
+            throw new IllegalArgumentException("El jugador no puede colocar ninguna carta");
+        }
+        Raiz raiz = new Raiz(colocadas, miMano, cartas.clone(), orden.clone(), turno, puntosAsDeOros, legales);
+        return pool.invoke(new Trozo(raiz, 0, simulaciones, new SplittableRandom(semilla)));
+    }
+
+    /**
+     * Juega en este hilo las simulaciones de un rango.
+     *
+     * @param raiz La posición de la que se parte, como Raiz.
+     * @param desde La primera simulación del rango, como long.
+     * @param hasta La simulación siguiente a la última, como long.
+     * @param random El generador del rango, como SplittableRandom.
+     * @return Las visitas y los puntos del rango, como Valoracion.
+     */
+    private Valoracion simularRango(Raiz raiz, long desde, long hasta, SplittableRandom random) {
+        SimulacionRonda simulacion = new SimulacionRonda(eleccion);
+        Valoracion valoracion = new Valoracion();
+        long[] manos = new long[raiz.orden.length];
+        int yo = raiz.orden[raiz.turno];
+        int siguiente = raiz.turno + 1 == raiz.orden.length ? 0 : raiz.turno + 1;
+        for (long s = desde; s < hasta; s++) {
+            // Las jugadas se prueban por turnos según el número de simulación
+            int id = raiz.jugadas[(int) (s % raiz.jugadas.length)];
+            simulacion.repartir(raiz.colocadas, yo, raiz.miMano, raiz.cartas, manos, random);
+            long bit = 1L << id;
+            manos[yo] &= ~bit;
+            int puntos = id == EstadoCompacto.AS_DE_OROS ? raiz.puntosAsDeOros : 0;
+            if (manos[yo] == 0) {
+                puntos += PUNTOS_RONDA;
+            } else {
+                int ganador = simulacion.jugar(raiz.colocadas | bit, manos, raiz.orden, siguiente, random);
+                if (ganador == yo) {
+                    puntos += PUNTOS_RONDA;
+                }
+                if (simulacion.getAsientoAsDeOros() == yo) {
+                    puntos += raiz.puntosAsDeOros;
+                }
+            }
+            valoracion.visitas[id]++;
+            valoracion.puntos[id] += puntos;
+        }
+        return valoracion;
+    }
+
+    /**
+     * La posición desde la que se simula, compartida por todos los trozos.
+     */
+    private static class Raiz {
+
+        final long colocadas;
+        final long miMano;
+        final int[] cartas;
+        final int[] orden;
+        final int turno;
+        final int puntosAsDeOros;
+        final int[] jugadas;
+
+        Raiz(long colocadas, long miMano, int[] cartas, int[] orden, int turno, int puntosAsDeOros, long legales) {
+            this.colocadas = colocadas;
+            this.miMano = miMano;
+            this.cartas = cartas;
+            this.orden = orden;
+            this.turno = turno;
+            this.puntosAsDeOros = puntosAsDeOros;
+            this.jugadas = new int[Long.bitCount(legales)];
+            for (int i = 0; legales != 0; i++) {
+                jugadas[i] = Long.numberOfTrailingZeros(legales);
+                legales &= legales - 1;
+            }
+        }
+    }
+
+    /**
+     * Un rango de simulaciones que se parte en dos hasta que es lo bastante
+     * pequeño para jugarlo de seguido.
+     */
+    private class Trozo extends RecursiveTask<Valoracion> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Raiz raiz;
+        private final long desde;
+        private final long hasta;
+        private final SplittableRandom random;
+
+        Trozo(Raiz raiz, long desde, long hasta, SplittableRandom random) {
+            this.raiz = raiz;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.random = random;
+        }
+
+        @Override
+        protected Valoracion compute() {
+            if (hasta - desde <= SIMULACIONES_POR_TROZO) {
+                return simularRango(raiz, desde, hasta, random);
+            }
+            long mitad = (desde + hasta) >>> 1;
+            Trozo izquierda = new Trozo(raiz, desde, mitad, random.split());
+            Trozo derecha = new Trozo(raiz, mitad, hasta, random.split());
+            izquierda.fork();
+            Valoracion resultado = derecha.compute();
+            return resultado.combinar(izquierda.join());
+        }
+    }
+
+    /**
+     * Las visitas y los puntos conseguidos por cada jugada de la raíz.
+     */
+    public static class Valoracion {
+
+        private final long[] visitas = new long[Carta.NUM_CARTAS];
+        private final long[] puntos = new long[Carta.NUM_CARTAS];
+
+        /**
+         * Suma otra valoración de la misma raíz a esta.
+         *
+         * @param otra La otra valoración, como Valoracion.
+         * @return Esta valoración, como Valoracion.
+         */
+        public Valoracion combinar(Valoracion otra) {
+            for (int id = 0; id < Carta.NUM_CARTAS; id++) {
+                visitas[id] += otra.visitas[id];
+                puntos[id] += otra.puntos[id];
+            }
+            return this;
+        }
+
+        /**
+         * Devuelve cuántas simulaciones han empezado con una carta.
+         *
+         * @param id El identificador de la carta, como Entero.
+         * @return Las visitas, como long.
+         */
+        public long getVisitas(int id) {
+            return visitas[id];
+        }
+
+        /**
+         * Devuelve los puntos medios que consigue el jugador empezando con una
+         * carta.
+         *
+         * @param id El identificador de la carta, como Entero.
+         * @return La media de puntos, o 0 si no se ha probado, como double.
+         */
+        public double getMedia(int id) {
+            return visitas[id] == 0 ? 0 : (double) puntos[id] / visitas[id];
+        }
+
+        /**
+         * Devuelve el total de simulaciones.
+         *
+         * @return Las simulaciones, como long.
+         */
+        public long getSimulaciones() {
+            long total = 0;
+            for (long v : visitas) {
+                total += v;
+            }
+            return total;
+        }
+
+        /**
+         * Devuelve la jugada probada con más puntos medios.
+         *
+         * @return El identificador de la carta, como Entero.
+         */
+        public int getMejor() {
+            int mejor = -1;
+            for (int id = 0; id < Carta.NUM_CARTAS; id++) {
+                if (visitas[id] > 0 && (mejor < 0 || getMedia(id) > getMedia(mejor))) {
+                    mejor = id;
+                }
+            }
+            return mejor;
+        }
+    }
+}
@@ -0,0 +1,434 @@
+/*
+ * Representa una partida del Cinquillo-Oro que avanza jugada a jugada, sin bloquear y sin interfaz.
+ * Aquí están las reglas, y Juego las usa por debajo: se juegan rondas hasta que alguien coloca el as
+ * de oros; quien se queda sin cartas gana puntosPartida y quien coloca el as de oros gana
+ * puntosAsDeOros, que sube 2 cada ronda. Los jugadores que no pueden colocar nada pasan solos.
+ * Quien maneje la partida (un servidor, un programa de pruebas...) pregunta a quién le toca, le pide
+ * la carta como quiera y llama a colocar. Un Oyente recibe lo que va pasando en el mismo hilo, y un
+ * BusEventos lo reparte como Evento a quien lo quiera leer en otro hilo.
+ * Con instantanea y restaurar se puede volver atrás o explorar otras ramas de la misma partida; el
+ * generador de números aleatorios no se restaura.
+ */
+
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+public class Partida {
+
+    /**
+     * Recibe lo que va pasando en la partida.
+     */
+    public interface Oyente {
+
+        default void rondaEmpezada(int ronda, int[] orden) {
+        }
+
+        default void jugada(int asiento, Carta carta) {
+        }
+
+        default void pase(int asiento) {
+        }
+
+        default void rondaTerminada(int ganador, int asientoAsDeOros) {
+        }
+
+        default void partidaTerminada() {
+        }
+    }
+
+    private final Baraja baraja;
+    private final Mesa mesa;
+    private final Jugador[] asientos;
+    private final LinkedList<Jugador> jugadores;
+    private final RandomGenerator random;
+    private final int puntosPartida = 4;
+    private int puntosAsDeOros = 2;
+    private int rondas;
+    private boolean terminada;
+    private boolean colocadoAsOros;
+    private int asientoAsDeOrosRonda = -1;
+    private final int[] orden;
+    // Copias que ya se han dado en una instantánea y se pueden compartir mientras no cambien
+    private int[] ordenCompartido;
+    private int[] puntuacionesCompartidas;
+    private Oyente oyente = new Oyente() {
+    };
+    private BusEventos eventos;
+
+    /**
+     * Crea una nueva partida.
+     *
+     * @param nombres Los nombres de los jugadores, 3 o 4, como Collection de
+     * String.
+     * @param random El generador con el que se baraja y se elige al primer
+     * jugador, como RandomGenerator.
+     */
+    public Partida(Collection<String> nombres, RandomGenerator random) {
+        if (nombres.size() != 3 && nombres.size() != 4) {
+            throw new IllegalArgumentException("El juego es para 3 o 4 jugadores");
+        }
+        this.random = random;
+        this.baraja = new Baraja(random);
+        this.mesa = new Mesa();
+        this.asientos = new Jugador[nombres.size()];
+        this.jugadores = new LinkedList<>();
+        this.orden = new int[nombres.size()];
+        int i = 0;
+        for (String nombre : nombres) {
+            asientos[i] = new Jugador(nombre);
+            jugadores.add(asientos[i]);
+            orden[i] = i;
+            i++;
+        }
+    }
+
+    /**
+     * Cambia quién recibe lo que va pasando en la partida.
+     *
+     * @param oyente El oyente, como Oyente.
+     */
+    public void setOyente(Oyente oyente) {
+        this.oyente = oyente;
+    }
+
+    /**
+     * Hace que lo que va pasando en la partida se publique en un bus de
+     * eventos.
+     *
+     * @param eventos El bus, o null para no publicar nada, como BusEventos.
+     */
+    public void setEventos(BusEventos eventos) {
+        this.eventos = eventos;
+    }
+
+    /**
+     * Empieza la partida: reparte la primera ronda y pasa los turnos de
+     * quienes no puedan colocar nada.
+     */
+    public void empezar() {
+        empezarRonda();
+        saltarPases();
+    }
+
+    /**
+     * Devuelve el número de jugadores.
+     *
+     * @return El número de jugadores, como Entero.
+     */
+    public int getNumJugadores() {
+        return asientos.length;
+    }
+
+    /**
+     * Devuelve el jugador sentado en un asiento.
+     *
+     * @param asiento El asiento, como Entero.
+     * @return El jugador, como Jugador.
+     */
+    public Jugador getJugador(int asiento) {
+        return asientos[asiento];
+    }
+
+    /**
+     * Devuelve la mesa de juego.
+     *
+     * @return La mesa, como Mesa.
+     */
+    public Mesa getMesa() {
+        return mesa;
+    }
+
+    /**
+     * Devuelve el número de rondas terminadas.
+     *
+     * @return El número de rondas, como Entero.
+     */
+    public int getRondas() {
+        return rondas;
+    }
+
+    /**
+     * Devuelve lo que vale el as de oros en la ronda actual.
+     *
+     * @return Los puntos del as de oros, como Entero.
+     */
+    public int getPuntosAsDeOros() {
+        return puntosAsDeOros;
+    }
+
+    /**
+     * Te dice si la partida ha terminado.
+     *
+     * @return true si ha terminado, false si no.
+     */
+    public boolean estaTerminada() {
+        return terminada;
+    }
+
+    /**
+     * Devuelve el asiento del jugador al que le toca colocar una carta.
+     *
+     * @return El asiento, como Entero.
+     */
+    public int getAsientoDeTurno() {
+        return asientoDe(jugadores.getFirst());
+    }
+
+    /**
+     * Devuelve los ganadores de la partida.
+     *
+     * @return Los jugadores con más puntos, como LinkedList de Jugador.
+     */
+    public LinkedList<Jugador> getGanadores() {
+        return Juego.ganadores(jugadores);
+    }
+
+    /**
+     * Coloca una carta del jugador de turno y hace avanzar la partida hasta
+     * el siguiente jugador que pueda colocar algo.
+     *
+     * @param indice El índice de la carta en la mano del jugador de turno,
+     * como Entero.
+     * @throws IllegalArgumentException Si el índice no es válido o esa carta
+     * no se puede colocar.
+     * @throws IllegalStateException Si la partida ha terminado.
+     */
+    public void colocar(int indice) {
+        if (terminada) {
+            throw new IllegalStateException("La partida ha terminado");
+        }
+        Jugador actual = jugadores.getFirst();
+        if (indice < 0 || indice >= actual.getCartasEnMano()) {
+            throw new IllegalArgumentException("No tienes ninguna carta en la posición " + indice);
+        }
+        Carta carta = actual.devolverCarta(indice);
+        if (!mesa.puedeColocarCarta(carta)) {
+            throw new IllegalArgumentException("No puedes jugar esa carta");
+        }
+        int asiento = asientoDe(actual);
+        boolean asDeOros = actual.colocarCarta(mesa, indice);
+        if (asDeOros) {
+            actual.sumarPuntos(puntosAsDeOros);
+            puntuacionesCompartidas = null;
+            colocadoAsOros = true;
+            asientoAsDeOrosRonda = asiento;
+        }
+        oyente.jugada(asiento, carta);
+        if (eventos != null) {
+            eventos.publicar(Evento.cartaColocada(rondas + 1, asiento, carta));
+            if (asDeOros) {
+                eventos.publicar(Evento.asDeOrosColocado(rondas + 1, asiento, puntosAsDeOros));
+            }
+        }
+        siguienteTurno();
+        saltarPases();
+    }
+
+    /**
+     * Pasa el turno de los jugadores que no pueden colocar nada, hasta que le
+     * toque a uno que sí pueda.
+     */
+    private void saltarPases() {
+        while (!terminada && !puedeColocarAlgo(jugadores.getFirst())) {
+            oyente.pase(asientoDe(jugadores.getFirst()));
+            if (eventos != null) {
+                eventos.publicar(Evento.pase(rondas + 1, asientoDe(jugadores.getFirst())));
+            }
+            siguienteTurno();
+        }
+    }
+
+    /**
+     * Te dice si un jugador puede colocar alguna carta, midiendo cuánto tarda
+     * la comprobación.
+     *
+     * @param jugador El jugador, como Jugador.
+     * @return true si puede colocar alguna, false si no.
+     */
+    private boolean puedeColocarAlgo(Jugador jugador) {
+        long inicio = Metricas.inicio();
+        boolean puede = jugador.puedeColocarAlgo(mesa);
+        Metricas.VALIDACION_TURNO.registrarDesde(inicio);
+        return puede;
+    }
+
+    /**
+     * Pasa al siguiente jugador, o termina la ronda si el actual se ha quedado
+     * sin cartas.
+     */
+    private void siguienteTurno() {
+        if (!jugadores.getFirst().manoVacia()) {
+            jugadores.addLast(jugadores.removeFirst());
+            return;
+        }
+        Jugador ganador = jugadores.getFirst();
+        ganador.sumarPuntos(puntosPartida);
+        puntuacionesCompartidas = null;
+        oyente.rondaTerminada(asientoDe(ganador), asientoAsDeOrosRonda);
+        if (eventos != null) {
+            eventos.publicar(Evento.rondaGanada(rondas + 1, asientoDe(ganador), puntosPartida));
+        }
+        recoger();
+        puntosAsDeOros += 2;
+        rondas++;
+        if (colocadoAsOros) {
+            terminada = true;
+            oyente.partidaTerminada();
+            if (eventos != null) {
+                int[] puntuaciones = new int[asientos.length];
+                for (int i = 0; i < asientos.length; i++) {
+                    puntuaciones[i] = asientos[i].getPuntuacion();
+                }
+                eventos.publicar(Evento.partidaTerminada(rondas, puntuaciones));
+            }
+        } else {
+            empezarRonda();
+        }
+    }
+
+    /**
+     * Elige al primer jugador, baraja y reparte.
+     */
+    private void empezarRonda() {
+        asientoAsDeOrosRonda = -1;
+        ordenCompartido = null;
+        jugadores.addFirst(jugadores.remove(random.nextInt(asientos.length)));
+        baraja.ordenar();
+        baraja.barajarCartas(random);
+        repartir();
+        int turno = 0;
+        for (Jugador jugador : jugadores) {
+            orden[turno++] = asientoDe(jugador);
+        }
+        oyente.rondaEmpezada(rondas + 1, orden);
+        if (eventos != null) {
+            long[] manos = new long[asientos.length];
+            for (int i = 0; i < asientos.length; i++) {
+                manos[i] = asientos[i].getMascaraMano();
+            }
+            eventos.publicar(Evento.rondaEmpezada(rondas + 1, orden, puntosAsDeOros));
+            eventos.publicar(Evento.cartasRepartidas(rondas + 1, manos));
+        }
+    }
+
+    /**
+     * Devuelve a la baraja las cartas de la mesa y de las manos.
+     */
+    void recoger() {
+        mesa.vaciarMesa(baraja);
+        for (Jugador jugador : jugadores) {
+            jugador.vaciarMano(baraja);
+        }
+    }
+
+    /**
+     * Reparte toda la baraja empezando por el primer jugador. Es de paquete,
+     * como recoger, para que Benchmark mida el reparto de verdad.
+     */
+    void repartir() {
+        long inicio = Metricas.inicio();
+        while (!baraja.estaVacia()) {
+            for (Jugador receptor : jugadores) {
+                if (baraja.estaVacia()) {
+                    break;
+                }
+                receptor.insertarCarta(baraja.sacarCarta());
+            }
+        }
+        Metricas.REPARTIR.registrarDesde(inicio);
+    }
+
+    /**
+     * Guarda el estado de la partida para poder volver a él con restaurar.
+     * Solo se copian las manos: lo demás se comparte con las instantáneas
+     * anteriores mientras no cambia.
+     *
+     * @return El estado actual, como Instantanea.
+     */
+    public Instantanea instantanea() {
+        long[] manos = new long[asientos.length];
+        for (int i = 0; i < asientos.length; i++) {
+            manos[i] = asientos[i].getMascaraMano();
+        }
+        if (puntuacionesCompartidas == null) {
+            puntuacionesCompartidas = new int[asientos.length];
+            for (int i = 0; i < asientos.length; i++) {
+                puntuacionesCompartidas[i] = asientos[i].getPuntuacion();
+            }
+        }
+        if (ordenCompartido == null) {
+            ordenCompartido = orden.clone();
+        }
+        return new Instantanea(mesa.getColocadas(), manos, puntuacionesCompartidas, ordenCompartido,
+                getAsientoDeTurno(), puntosAsDeOros, rondas, asientoAsDeOrosRonda, colocadoAsOros, terminada);
+    }
+
+    /**
+     * Vuelve la partida al estado de una instantánea suya. Las cartas que no
+     * están en la mesa ni en las manos vuelven a la baraja. Al oyente no se le
+     * avisa.
+     *
+     * @param instantanea El estado al que volver, como Instantanea.
+     * @throws IllegalArgumentException Si la instantánea es de una partida con
+     * otro número de jugadores.
+     */
+    public void restaurar(Instantanea instantanea) {
+        if (instantanea.getNumJugadores() != asientos.length) {
+            throw new IllegalArgumentException("La instantánea es de una partida de " + instantanea.getNumJugadores() + " jugadores");
+        }
+        long repartidas = instantanea.getColocadas();
+        mesa.restaurar(instantanea.getColocadas());
+        for (int i = 0; i < asientos.length; i++) {
+            asientos[i].restaurar(instantanea.getMano(i), instantanea.getPuntuacion(i));
+            repartidas |= instantanea.getMano(i);
+        }
+        while (!baraja.estaVacia()) {
+            baraja.sacarId();
+        }
+        for (long resto = ~repartidas & EstadoCompacto.TODAS; resto != 0; resto &= resto - 1) {
+            baraja.meterCarta(Carta.of(Long.numberOfTrailingZeros(resto)));
+        }
+
+        ordenCompartido = instantanea.compartirOrden();
+        puntuacionesCompartidas = instantanea.compartirPuntuaciones();
+        System.arraycopy(ordenCompartido, 0, orden, 0, orden.length);
+        jugadores.clear();
+        int primero = 0;
+        while (orden[primero] != instantanea.getAsientoDeTurno()) {
+            primero++;
+        }
+        for (int i = 0; i < orden.length; i++) {
+            jugadores.add(asientos[orden[(primero + i) % orden.length]]);
+        }
+        puntosAsDeOros = instantanea.getPuntosAsDeOros();
+        rondas = instantanea.getRondas();
+        asientoAsDeOrosRonda = instantanea.getAsientoAsDeOrosRonda();
+        colocadoAsOros = instantanea.isColocadoAsOros();
+        terminada = instantanea.estaTerminada();
+    }
+
+    /**
+     * Busca el asiento de un jugador.
+     *
+     * @param jugador El jugador, como Jugador.
+     * @return El asiento, como Entero.
+     */
+    private int asientoDe(Jugador jugador) {
+        int asiento = 0;
+        while (asientos[asiento] != jugador) {
+            asiento++;
+        }
+        return asiento;
+    }
+
+    /**
+     * Devuelve los jugadores por asiento.
+     *
+     * @return Los jugadores, como List de Jugador.
+     */
+    public List<Jugador> getJugadores() {
+        return List.of(asientos);
+    }
+}
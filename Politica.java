@@ -0,0 +1,49 @@
+/*
+ * Representa la forma de jugar de un asiento cuando la partida se juega sin interfaz.
+ * Funcionalidad: elegir qué carta de la mano coloca el jugador en su turno, enterarse de lo que
+ * pasa en la mesa (solo lo que vería un jugador de verdad). Cada asiento necesita su propia instancia.
+ */
+
+public interface Politica {
+
+    /**
+     * Elige la carta que va a colocar el jugador. Solo se llama cuando el
+     * jugador puede colocar alguna carta.
+     *
+     * @param jugador El jugador al que le toca, como Jugador.
+     * @param mesa La mesa en la que se está jugando, como Mesa.
+     * @return El índice en la mano del jugador de una carta que se pueda
+     * colocar, como Entero.
+     */
+    int elegirCarta(Jugador jugador, Mesa mesa);
+
+    /**
+     * Avisa de que empieza una ronda, ya repartida. Cada jugador tiene 48 /
+     * número de jugadores cartas.
+     *
+     * @param asiento El asiento de esta política, como Entero.
+     * @param orden Los asientos en orden de turno, empezando por el primer
+     * jugador, como array de Entero.
+     * @param puntosAsDeOros Lo que vale el as de oros en esta ronda, como
+     * Entero.
+     */
+    default void empezarRonda(int asiento, int[] orden, int puntosAsDeOros) {
+    }
+
+    /**
+     * Avisa de que un jugador ha colocado una carta, incluida esta política.
+     *
+     * @param asiento El asiento del jugador, como Entero.
+     * @param carta La carta colocada, como Carta.
+     */
+    default void jugada(int asiento, Carta carta) {
+    }
+
+    /**
+     * Avisa de que un jugador no ha podido colocar ninguna carta.
+     *
+     * @param asiento El asiento del jugador, como Entero.
+     */
+    default void pase(int asiento) {
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Política que coloca una carta válida cualquiera de la mano, elegida al azar.
+ */
+
+import java.util.random.RandomGenerator;
+
+public class PoliticaAleatoria implements Politica {
+
+    private final RandomGenerator random;
+
+    /**
+     * Crea una nueva política aleatoria.
+     *
+     * @param random El generador de números aleatorios, como RandomGenerator.
+     */
+    public PoliticaAleatoria(RandomGenerator random) {
+        this.random = random;
+    }
+
+    /**
+     * Elige al azar una de las cartas de la mano que se pueden colocar.
+     *
+     * @param jugador El jugador al que le toca, como Jugador.
+     * @param mesa La mesa en la que se está jugando, como Mesa.
+     * @return El índice de la carta elegida, como Entero.
+     */
+    @Override
+    public int elegirCarta(Jugador jugador, Mesa mesa) {
+        long legales = mesa.jugadasLegales(jugador);
+        if (legales == 0) {
+            throw new IllegalStateException(jugador.getNombre() + " no puede colocar ninguna carta");
+        }
+        for (int salto = random.nextInt(Long.bitCount(legales)); salto > 0; salto--) {
+            legales &= legales - 1;
+        }
+        return jugador.indiceDe(Long.numberOfTrailingZeros(legales));
+    }
+}
@@ -0,0 +1,468 @@
+/*
+ * Política que busca con Monte Carlo sobre conjuntos de información (ISMCTS de un solo observador).
+ * Solo sabe lo que sabría un jugador de verdad: su mano, la mesa, cuántas cartas le quedan a cada uno
+ * y qué cartas no tiene quien ha pasado (cuando alguien pasa, no tiene ninguna de las cartas que se
+ * podían colocar en ese momento). En cada iteración reparte las cartas ocultas de forma compatible
+ * con eso, baja por el árbol con UCB contando solo las jugadas posibles en ese reparto, y termina la
+ * ronda al azar con SimulacionRonda.
+ * El árbol se conserva entre turnos: con cada jugada que se ve se baja a la rama correspondiente.
+ * Con varios hilos, cada árbol es una tarea fork-join y al elegir se suman las visitas de la raíz.
+ * Las tareas se lanzan con invokeAll en el pool desde el que se llama (o en el común), así que dentro
+ * de un Torneo o una Liga el hilo que espera ayuda con otras tareas en lugar de quedarse bloqueado.
+ * Cada búsqueda dura como mucho el tiempo indicado por jugada. Como el límite es de reloj, el número de
+ * iteraciones depende de la máquina y de la carga: con la misma semilla no siempre elige lo mismo, y
+ * un Torneo o una Liga con esta política no da el mismo resultado de una ejecución a otra.
+ * Con una TablaJugadas, cuando en la simulación quedan pocas cartas el final de la ronda no se juega al
+ * azar: se consulta en la tabla (o se resuelve y se guarda en ella) cómo acaba con juego perfecto. Para
+ * no pasarse del tiempo, con tabla se mira el reloj en cada iteración, y un final que no está solo se
+ * resuelve si da tiempo antes del límite; si no, se acaba al azar.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinTask;
+import java.util.random.RandomGenerator;
+
+public class PoliticaISMCTS implements Politica {
+
+    private static final int PASE = Carta.NUM_CARTAS;
+    private static final int PUNTOS_RONDA = 4;
+    private static final double EXPLORACION = 0.7;
+
+    private final long nanosPorJugada;
+    private final Arbol[] arboles;
+    private TablaJugadas tabla;
+    private int cartasTabla;
+
+    // Lo que sabe el jugador
+    private int miAsiento;
+    private int numJugadores;
+    private int[] orden;
+    private int turno;
+    private int puntosAsDeOros;
+    private int[] cartas;
+    private long[] noTiene;
+    private EstadoCompacto mesaConocida;
+
+    /**
+     * Crea una nueva política ISMCTS que busca en un solo hilo.
+     *
+     * @param random El generador de números aleatorios, como RandomGenerator.
+     * @param microsPorJugada El tiempo máximo de búsqueda por jugada, en
+     * microsegundos, como long.
+     */
+    public PoliticaISMCTS(RandomGenerator random, long microsPorJugada) {
+        this(random, microsPorJugada, 1);
+    }
+
+    /**
+     * Crea una nueva política ISMCTS.
+     *
+     * @param random El generador de números aleatorios, como RandomGenerator.
+     * @param microsPorJugada El tiempo máximo de búsqueda por jugada, en
+     * microsegundos, como long.
+     * @param hilos El número de árboles que se buscan en paralelo, como
+     * Entero.
+     */
+    public PoliticaISMCTS(RandomGenerator random, long microsPorJugada, int hilos) {
+        this.nanosPorJugada = microsPorJugada * 1000;
+        this.arboles = new Arbol[hilos];
+        for (int i = 0; i < hilos; i++) {
+            arboles[i] = new Arbol(new SplittableRandom(random.nextLong()));
+        }
+    }
+
+    /**
+     * Hace que los finales de ronda de las simulaciones se consulten en una
+     * tabla de jugadas en lugar de jugarse al azar.
+     *
+     * @param tabla La tabla, que pueden compartir varias políticas, o null
+     * para no usarla, como TablaJugadas.
+     * @param cartasMaximas Las cartas que pueden quedar en las manos como
+     * mucho para consultar la tabla, como Entero.
+     */
+    public void setTabla(TablaJugadas tabla, int cartasMaximas) {
+        this.tabla = tabla;
+        this.cartasTabla = cartasMaximas;
+    }
+
+    @Override
+    public void empezarRonda(int asiento, int[] orden, int puntosAsDeOros) {
+        this.miAsiento = asiento;
+        this.orden = orden.clone();
+        this.turno = 0;
+        this.puntosAsDeOros = puntosAsDeOros;
+        if (mesaConocida == null || numJugadores != orden.length) {
+            numJugadores = orden.length;
+            mesaConocida = new EstadoCompacto(numJugadores);
+            cartas = new int[numJugadores];
+            noTiene = new long[numJugadores];
+            for (Arbol arbol : arboles) {
+                arbol.sim = new EstadoCompacto(numJugadores);
+                arbol.restantes = new int[numJugadores];
+            }
+        }
+        mesaConocida.vaciar();
+        for (int i = 0; i < numJugadores; i++) {
+            cartas[i] = Carta.NUM_CARTAS / numJugadores;
+            noTiene[i] = 0;
+        }
+        for (Arbol arbol : arboles) {
+            arbol.raiz = new Nodo(-1, -1);
+        }
+    }
+
+    @Override
+    public void jugada(int asiento, Carta carta) {
+        mesaConocida.colocarEnMesa(carta.getId());
+        cartas[asiento]--;
+        avanzar(carta.getId());
+    }
+
+    @Override
+    public void pase(int asiento) {
+        noTiene[asiento] |= mesaConocida.getJugables();
+        avanzar(PASE);
+    }
+
+    /**
+     * Elige la carta con más visitas después de buscar durante el tiempo
+     * indicado.
+     *
+     * @param jugador El jugador al que le toca, como Jugador.
+     * @param mesa La mesa en la que se está jugando, como Mesa.
+     * @return El índice de la carta elegida, como Entero.
+     */
+    @Override
+    public int elegirCarta(Jugador jugador, Mesa mesa) {
+        if (mesaConocida == null) {
+            throw new IllegalStateException("PoliticaISMCTS necesita que se le avise de la ronda y de las jugadas");
+        }
+        long miMano = jugador.getMascaraMano();
+        long legales = mesa.jugadasLegales(jugador);
+        int elegida;
+        if (Long.bitCount(legales) == 1) {
+            elegida = Long.numberOfTrailingZeros(legales);
+        } else {
+            long fin = System.nanoTime() + nanosPorJugada;
+            buscar(miMano, fin);
+            elegida = masVisitada(legales);
+        }
+        int indice = jugador.indiceDe(elegida);
+        if (indice < 0) {
+            throw new IllegalStateException("La carta elegida no está en la mano");
+        }
+        return indice;
+    }
+
+    /**
+     * Busca con todos los árboles hasta que se acaba el tiempo.
+     *
+     * @param miMano La mano del jugador, como long.
+     * @param fin El instante en que hay que parar, en nanosegundos, como long.
+     */
+    private void buscar(long miMano, long fin) {
+        if (arboles.length == 1) {
+            arboles[0].buscar(miMano, fin);
+            return;
+        }
+        List<ForkJoinTask<?>> tareas = new ArrayList<>(arboles.length);
+        for (Arbol arbol : arboles) {
+            tareas.add(ForkJoinTask.adapt(() -> arbol.buscar(miMano, fin)));
+        }
+        // El primer árbol se busca en este hilo; al esperar a los demás, un hilo de fork-join roba trabajo
+        ForkJoinTask.invokeAll(tareas);
+    }
+
+    /**
+     * Suma las visitas de la raíz de todos los árboles y elige la más visitada.
+     *
+     * @param legales Las cartas que se pueden colocar, como long.
+     * @return El identificador de la carta elegida, como Entero.
+     */
+    private int masVisitada(long legales) {
+        int mejor = Long.numberOfTrailingZeros(legales);
+        long mejorVisitas = -1;
+        while (legales != 0) {
+            int id = Long.numberOfTrailingZeros(legales);
+            legales &= legales - 1;
+            long visitas = 0;
+            for (Arbol arbol : arboles) {
+                Nodo hijo = arbol.raiz.hijos[id];
+                if (hijo != null) {
+                    visitas += hijo.visitas;
+                }
+            }
+            if (visitas > mejorVisitas) {
+                mejorVisitas = visitas;
+                mejor = id;
+            }
+        }
+        return mejor;
+    }
+
+    /**
+     * Baja todos los árboles por la jugada que se acaba de ver y pasa el turno.
+     *
+     * @param movimiento La carta colocada o PASE, como Entero.
+     */
+    private void avanzar(int movimiento) {
+        for (Arbol arbol : arboles) {
+            Nodo hijo = arbol.raiz.hijos[movimiento];
+            if (hijo == null) {
+                hijo = new Nodo(movimiento, orden[turno]);
+            }
+            hijo.padre = null;
+            arbol.raiz = hijo;
+        }
+        turno = turno + 1 == numJugadores ? 0 : turno + 1;
+    }
+
+    /**
+     * Un nodo del árbol: la jugada que lleva a él, quién la hace y sus
+     * estadísticas.
+     */
+    private static class Nodo {
+
+        final int movimiento;
+        final int asiento;
+        Nodo padre;
+        final Nodo[] hijos = new Nodo[Carta.NUM_CARTAS + 1];
+        int visitas;
+        int disponibles;
+        double recompensa;
+
+        Nodo(int movimiento, int asiento) {
+            this.movimiento = movimiento;
+            this.asiento = asiento;
+        }
+
+        Nodo hijo(int movimiento, int asiento) {
+            Nodo hijo = hijos[movimiento];
+            if (hijo == null) {
+                hijo = new Nodo(movimiento, asiento);
+                hijo.padre = this;
+                hijos[movimiento] = hijo;
+            }
+            return hijo;
+        }
+    }
+
+    /**
+     * Un árbol de búsqueda con su propio generador y su propio estado de
+     * simulación, para que cada hilo use uno sin compartir nada.
+     */
+    private class Arbol {
+
+        final SplittableRandom random;
+        Nodo raiz = new Nodo(-1, -1);
+        EstadoCompacto sim;
+        int[] restantes;
+        final int[] ocultas = new int[Carta.NUM_CARTAS];
+        final SimulacionRonda simulacion = new SimulacionRonda(SimulacionRonda.AL_AZAR);
+        Solucionador solucionador;
+        // Lo que ha tardado la resolución más lenta de un final que no estaba en la tabla
+        long peorResolucion;
+
+        Arbol(SplittableRandom random) {
+            this.random = random;
+        }
+
+        void buscar(long miMano, long fin) {
+            // Sin tabla una iteración es muy corta y se mira el reloj cada 16; con tabla puede
+            // resolver un final, y se mira en cada una
+            int cada = tabla == null ? 15 : 0;
+            int iteraciones = 0;
+            do {
+                iterar(miMano, fin);
+                iteraciones++;
+            } while ((iteraciones & cada) != 0 || System.nanoTime() < fin);
+        }
+
+        /**
+         * Una iteración: reparto, selección, expansión, simulación y
+         * propagación.
+         */
+        void iterar(long miMano, long fin) {
+            determinizar(miMano);
+            Nodo nodo = raiz;
+            int t = turno;
+            int ganador = -1;
+            int asOros = -1;
+            boolean expandido = false;
+            while (ganador < 0 && !expandido) {
+                int asiento = orden[t];
+                long legales = sim.jugadasLegales(asiento);
+                Nodo hijo;
+                if (legales == 0) {
+                    hijo = nodo.hijo(PASE, asiento);
+                    hijo.disponibles++;
+                } else {
+                    long sinProbar = 0;
+                    long resto = legales;
+                    while (resto != 0) {
+                        int id = Long.numberOfTrailingZeros(resto);
+                        resto &= resto - 1;
+                        Nodo candidato = nodo.hijos[id];
+                        if (candidato == null) {
+                            sinProbar |= 1L << id;
+                        } else {
+                            candidato.disponibles++;
+                        }
+                    }
+                    if (sinProbar != 0) {
+                        hijo = nodo.hijo(bitAlAzar(sinProbar), asiento);
+                        hijo.disponibles++;
+                        expandido = true;
+                    } else {
+                        hijo = mejorUCB(nodo, legales);
+                    }
+                    sim.colocar(asiento, hijo.movimiento);
+                    if (hijo.movimiento == EstadoCompacto.AS_DE_OROS) {
+                        asOros = asiento;
+                    }
+                    if (sim.manoVacia(asiento)) {
+                        ganador = asiento;
+                    }
+                }
+                nodo = hijo;
+                t = t + 1 == numJugadores ? 0 : t + 1;
+            }
+
+            // Simulación: el resto de la ronda al azar, o con la tabla cuando quedan pocas cartas
+            if (ganador < 0 && tabla == null) {
+                ganador = simulacion.jugar(sim, orden, t, random);
+                asOros = asOrosSimulacion(asOros);
+            } else if (ganador < 0) {
+                ganador = simulacion.jugarHasta(sim, orden, t, cartasTabla, random);
+                asOros = asOrosSimulacion(asOros);
+                if (ganador < 0) {
+                    t = simulacion.getTurno();
+                    Solucion solucion = consultarTabla(t, fin);
+                    if (solucion != null) {
+                        ganador = solucion.getGanador();
+                        if (solucion.getAsientoAsDeOros() >= 0) {
+                            asOros = solucion.getAsientoAsDeOros();
+                        }
+                    } else {
+                        ganador = simulacion.jugar(sim, orden, t, random);
+                        asOros = asOrosSimulacion(asOros);
+                    }
+                }
+            }
+
+            // Propagación: cada nodo suma la recompensa de quien hizo la jugada
+            double maximo = PUNTOS_RONDA + puntosAsDeOros;
+            while (nodo != raiz && nodo != null) {
+                int puntos = (nodo.asiento == ganador ? PUNTOS_RONDA : 0) + (nodo.asiento == asOros ? puntosAsDeOros : 0);
+                nodo.visitas++;
+                nodo.recompensa += puntos / maximo;
+                nodo = nodo.padre;
+            }
+            raiz.visitas++;
+        }
+
+        int asOrosSimulacion(int asOros) {
+            return simulacion.getAsientoAsDeOros() >= 0 ? simulacion.getAsientoAsDeOros() : asOros;
+        }
+
+        /**
+         * Busca en la tabla el final de la simulación. Si no está, se resuelve
+         * y se guarda solo si da tiempo a hacerlo antes del límite, contando
+         * con que tarde como la resolución más lenta vista hasta ahora; si no,
+         * se devuelve null y la ronda se acaba al azar.
+         */
+        Solucion consultarTabla(int t, long fin) {
+            Solucion solucion = tabla.buscar(sim, orden, t, puntosAsDeOros);
+            long inicio = System.nanoTime();
+            if (solucion != null || inicio + peorResolucion >= fin) {
+                return solucion;
+            }
+            if (solucionador == null) {
+                solucionador = new Solucionador(16);
+            }
+            solucion = solucionador.resolver(sim, orden, t, puntosAsDeOros);
+            tabla.guardar(sim, orden, t, puntosAsDeOros, solucion);
+            peorResolucion = Math.max(peorResolucion, System.nanoTime() - inicio);
+            return solucion;
+        }
+
+        Nodo mejorUCB(Nodo nodo, long legales) {
+            Nodo mejor = null;
+            double mejorValor = Double.NEGATIVE_INFINITY;
+            while (legales != 0) {
+                int id = Long.numberOfTrailingZeros(legales);
+                legales &= legales - 1;
+                Nodo hijo = nodo.hijos[id];
+                double valor = hijo.recompensa / hijo.visitas
+                        + EXPLORACION * Math.sqrt(Math.log(hijo.disponibles) / hijo.visitas);
+                if (valor > mejorValor) {
+                    mejorValor = valor;
+                    mejor = hijo;
+                }
+            }
+            return mejor;
+        }
+
+        /**
+         * Reparte las cartas ocultas entre los rivales respetando cuántas tiene
+         * cada uno y las que se sabe que no tienen. Si tras varios intentos no
+         * se consigue, se ignora lo que no tienen.
+         */
+        void determinizar(long miMano) {
+            sim.copiarDe(mesaConocida);
+            sim.setMano(miAsiento, miMano);
+            long desconocidas = EstadoCompacto.TODAS & ~mesaConocida.getCartasEnMesa() & ~miMano;
+            int numOcultas = 0;
+            while (desconocidas != 0) {
+                ocultas[numOcultas++] = Long.numberOfTrailingZeros(desconocidas);
+                desconocidas &= desconocidas - 1;
+            }
+            for (int intento = 0; intento < 8; intento++) {
+                if (repartir(numOcultas, true)) {
+                    return;
+                }
+            }
+            repartir(numOcultas, false);
+        }
+
+        boolean repartir(int numOcultas, boolean conRestricciones) {
+            for (int i = numOcultas - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int aux = ocultas[i];
+                ocultas[i] = ocultas[j];
+                ocultas[j] = aux;
+            }
+            for (int s = 0; s < numJugadores; s++) {
+                restantes[s] = s == miAsiento ? 0 : cartas[s];
+                if (s != miAsiento) {
+                    sim.setMano(s, 0);
+                }
+            }
+            for (int i = 0; i < numOcultas; i++) {
+                int id = ocultas[i];
+                int elegido = -1;
+                int candidatos = 0;
+                for (int s = 0; s < numJugadores; s++) {
+                    if (restantes[s] > 0 && (!conRestricciones || (noTiene[s] >>> id & 1L) == 0)) {
+                        candidatos++;
+                        if (random.nextInt(candidatos) == 0) {
+                            elegido = s;
+                        }
+                    }
+                }
+                if (elegido < 0) {
+                    return false;
+                }
+                restantes[elegido]--;
+                sim.setMano(elegido, sim.getMano(elegido) | 1L << id);
+            }
+            return true;
+        }
+
+        int bitAlAzar(long mascara) {
+            return SimulacionRonda.bitAlAzar(mascara, random);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+/*
+ * Política que coloca siempre la primera carta válida de la mano.
+ */
+
+public class PoliticaPrimeraCarta implements Politica {
+
+    /**
+     * Elige la primera carta de la mano que se pueda colocar en la mesa.
+     *
+     * @param jugador El jugador al que le toca, como Jugador.
+     * @param mesa La mesa en la que se está jugando, como Mesa.
+     * @return El índice de la primera carta que se puede colocar, como Entero.
+     */
+    @Override
+    public int elegirCarta(Jugador jugador, Mesa mesa) {
+        long legales = mesa.jugadasLegales(jugador);
+        if (legales != 0) {
+            // La mano va ordenada por identificador: la primera válida es la de menor identificador
+            return jugador.indiceDe(Long.numberOfTrailingZeros(legales));
+        }
+        throw new IllegalStateException(jugador.getNombre() + " no puede colocar ninguna carta");
+    }
+}
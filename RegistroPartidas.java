@@ -0,0 +1,177 @@
+/*
+ * Guarda partidas en un fichero binario compacto, añadiendo siempre al final.
+ * Formato (todos los números en big-endian):
+ *   fichero: "CQL1" y después partidas una detrás de otra
+ *   partida: PARTIDA, semilla (long, SIN_SEMILLA si se jugó sin semilla), numJugadores (byte), rondas...,
+ *            FIN_PARTIDA, puntos (int por asiento)
+ *   ronda:   RONDA, orden de turno (un byte de asiento por jugador), mano repartida (6 bytes por
+ *            asiento, los 48 bits de la mano), jugadas..., FIN_RONDA, puntos de la ronda (short por asiento)
+ *   jugada:  un byte: el identificador de la carta colocada (0-47) o PASE
+ * Los turnos siguen el orden de la ronda, así que con las manos y las jugadas se puede
+ * reconstruir cada Mesa exactamente (ver LectorRegistro).
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class RegistroPartidas implements Closeable {
+
+    /**
+     * La semilla que se guarda para una partida que no se jugó con semilla,
+     * como la de Juego: solo se puede reproducir con sus manos y jugadas.
+     */
+    public static final long SIN_SEMILLA = Long.MIN_VALUE;
+
+    static final int CABECERA = 0x43514C31; // "CQL1"
+    static final byte PASE = 0x40;
+    static final byte RONDA = (byte) 0xFC;
+    static final byte FIN_RONDA = (byte) 0xFD;
+    static final byte PARTIDA = (byte) 0xFE;
+    static final byte FIN_PARTIDA = (byte) 0xFF;
+
+    private static final int TAMANO_BUFFER = 1 << 16;
+
+    private final FileChannel canal;
+    private final ByteBuffer buffer;
+    private int numJugadores;
+
+    /**
+     * Abre un registro para añadir partidas. Si el fichero no existe se crea.
+     *
+     * @param fichero La ruta del fichero, como Path.
+     * @throws IOException Si no se puede abrir o escribir el fichero.
+     */
+    public RegistroPartidas(Path fichero) throws IOException {
+        canal = FileChannel.open(fichero, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        buffer = ByteBuffer.allocateDirect(TAMANO_BUFFER);
+        if (canal.size() == 0) {
+            buffer.putInt(CABECERA);
+        }
+    }
+
+    /**
+     * Empieza una partida nueva.
+     *
+     * @param semilla La semilla con la que se juega la partida, o
+     * SIN_SEMILLA, como long.
+     * @param numJugadores El número de jugadores, como Entero.
+     */
+    public void empezarPartida(long semilla, int numJugadores) {
+        this.numJugadores = numJugadores;
+        reservar(10);
+        buffer.put(PARTIDA).putLong(semilla).put((byte) numJugadores);
+    }
+
+    /**
+     * Empieza una ronda nueva, ya repartida.
+     *
+     * @param orden Los asientos en orden de turno, empezando por el primer
+     * jugador, como array de Entero.
+     * @param manos La mano repartida a cada asiento, como array de long.
+     */
+    public void empezarRonda(int[] orden, long[] manos) {
+        reservar(1 + 7 * numJugadores);
+        buffer.put(RONDA);
+        for (int i = 0; i < numJugadores; i++) {
+            buffer.put((byte) orden[i]);
+        }
+        for (int i = 0; i < numJugadores; i++) {
+            long mano = manos[i];
+            buffer.putShort((short) (mano >>> 32)).putInt((int) mano);
+        }
+    }
+
+    /**
+     * Anota que el jugador de turno ha colocado una carta.
+     *
+     * @param id El identificador de la carta, como Entero.
+     */
+    public void jugada(int id) {
+        reservar(1);
+        buffer.put((byte) id);
+    }
+
+    /**
+     * Anota que el jugador de turno no ha podido colocar ninguna carta.
+     */
+    public void pase() {
+        reservar(1);
+        buffer.put(PASE);
+    }
+
+    /**
+     * Termina la ronda actual.
+     *
+     * @param puntosRonda Los puntos ganados en la ronda por cada asiento, como
+     * array de Entero.
+     */
+    public void terminarRonda(int[] puntosRonda) {
+        reservar(1 + 2 * numJugadores);
+        buffer.put(FIN_RONDA);
+        for (int i = 0; i < numJugadores; i++) {
+            buffer.putShort((short) puntosRonda[i]);
+        }
+    }
+
+    /**
+     * Termina la partida actual.
+     *
+     * @param puntuaciones Los puntos finales de cada asiento, como array de
+     * Entero.
+     */
+    public void terminarPartida(int[] puntuaciones) {
+        reservar(1 + 4 * numJugadores);
+        buffer.put(FIN_PARTIDA);
+        for (int i = 0; i < numJugadores; i++) {
+            buffer.putInt(puntuaciones[i]);
+        }
+    }
+
+    /**
+     * Escribe en el fichero lo que quede en memoria.
+     *
+     * @throws IOException Si no se puede escribir el fichero.
+     */
+    public void vaciar() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Escribe lo que quede en memoria y cierra el fichero.
+     *
+     * @throws IOException Si no se puede escribir el fichero.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            vaciar();
+        } finally {
+            canal.close();
+        }
+    }
+
+    /**
+     * Se asegura de que caben unos bytes en el buffer, escribiéndolo si hace
+     * falta.
+     *
+     * @param bytes Los bytes que se van a escribir, como Entero.
+     */
+    private void reservar(int bytes) {
+        if (buffer.remaining() < bytes) {
+            try {
+                vaciar();
+            } catch (IOException exc) {
+                throw new UncheckedIOException(exc);
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Representa el resultado de una partida jugada sin interfaz.
+ * Los jugadores se identifican por su asiento, de 0 al número de jugadores menos 1.
+ */
+
+public class ResultadoPartida {
+
+    private final int[] puntuaciones;
+    private final boolean[] ganadores;
+    private final int rondas;
+    private final int asientoAsDeOros;
+    private final int asientoInicial;
+    private final int rondasGanadasAbriendo;
+
+    /**
+     * Crea un nuevo resultado de partida.
+     *
+     * @param puntuaciones Los puntos finales de cada asiento, como array de
+     * Entero.
+     * @param ganadores Qué asientos han ganado la partida, como array de
+     * booleanos.
+     * @param rondas El número de rondas jugadas, como Entero.
+     * @param asientoAsDeOros El asiento que colocó el as de oros, como Entero.
+     */
+    public ResultadoPartida(int[] puntuaciones, boolean[] ganadores, int rondas, int asientoAsDeOros) {
+        this(puntuaciones, ganadores, rondas, asientoAsDeOros, -1, 0);
+    }
+
+    /**
+     * Crea un nuevo resultado de partida sabiendo quién abrió cada ronda.
+     *
+     * @param puntuaciones Los puntos finales de cada asiento, como array de
+     * Entero.
+     * @param ganadores Qué asientos han ganado la partida, como array de
+     * booleanos.
+     * @param rondas El número de rondas jugadas, como Entero.
+     * @param asientoAsDeOros El asiento que colocó el as de oros, como Entero.
+     * @param asientoInicial El asiento que abrió la primera ronda, como
+     * Entero.
+     * @param rondasGanadasAbriendo Cuántas rondas ganó el jugador que las
+     * abrió, como Entero.
+     */
+    public ResultadoPartida(int[] puntuaciones, boolean[] ganadores, int rondas, int asientoAsDeOros,
+            int asientoInicial, int rondasGanadasAbriendo) {
+        this.puntuaciones = puntuaciones;
+        this.ganadores = ganadores;
+        this.rondas = rondas;
+        this.asientoAsDeOros = asientoAsDeOros;
+        this.asientoInicial = asientoInicial;
+        this.rondasGanadasAbriendo = rondasGanadasAbriendo;
+    }
+
+    /**
+     * Devuelve el número de jugadores de la partida.
+     *
+     * @return El número de jugadores, como Entero.
+     */
+    public int getNumJugadores() {
+        return puntuaciones.length;
+    }
+
+    /**
+     * Devuelve la puntuación final de un asiento.
+     *
+     * @param asiento El asiento del jugador, como Entero.
+     * @return La puntuación final del jugador, como Entero.
+     */
+    public int getPuntuacion(int asiento) {
+        return puntuaciones[asiento];
+    }
+
+    /**
+     * Te dice si un asiento está entre los ganadores de la partida.
+     *
+     * @param asiento El asiento del jugador, como Entero.
+     * @return true si el jugador ha ganado (o empatado en cabeza), false si no.
+     */
+    public boolean esGanador(int asiento) {
+        return ganadores[asiento];
+    }
+
+    /**
+     * Devuelve el número de rondas que ha durado la partida.
+     *
+     * @return El número de rondas, como Entero.
+     */
+    public int getRondas() {
+        return rondas;
+    }
+
+    /**
+     * Devuelve el asiento del jugador que colocó el as de oros.
+     *
+     * @return El asiento del jugador, como Entero.
+     */
+    public int getAsientoAsDeOros() {
+        return asientoAsDeOros;
+    }
+
+    /**
+     * Devuelve el asiento del jugador que abrió la primera ronda.
+     *
+     * @return El asiento del jugador, o -1 si no se sabe, como Entero.
+     */
+    public int getAsientoInicial() {
+        return asientoInicial;
+    }
+
+    /**
+     * Devuelve cuántas rondas ganó el mismo jugador que las abrió.
+     *
+     * @return El número de rondas, como Entero.
+     */
+    public int getRondasGanadasAbriendo() {
+        return rondasGanadasAbriendo;
+    }
+
+    /**
+     * Pasa el resultado a un formato de String.
+     *
+     * @return Los puntos de cada asiento y las rondas jugadas, como String.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Rondas: ").append(rondas).append(" | Puntos:");
+        for (int i = 0; i < puntuaciones.length; i++) {
+            sb.append(" ").append(i).append("=").append(puntuaciones[i]);
+            if (ganadores[i]) {
+                sb.append("*");
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Acumula los enfrentamientos de una Liga: para cada par de estrategias, cuántas veces se han
+ * comparado y cuántos medios puntos ha sacado cada una (2 por ganar, 1 por empatar), además de los
+ * puntos medios de cada estrategia por partida.
+ * Cada hilo llena los suyos y al final se juntan con combinar, sin cerrojos.
+ */
+
+public class ResultadosLiga {
+
+    private final int numEstrategias;
+    private final long[][] medios;
+    private final long[][] enfrentamientos;
+    private final MediaOnline[] puntos;
+    private long repartos;
+
+    /**
+     * Crea unos resultados vacíos.
+     *
+     * @param numEstrategias El número de estrategias, como Entero.
+     */
+    public ResultadosLiga(int numEstrategias) {
+        this.numEstrategias = numEstrategias;
+        medios = new long[numEstrategias][numEstrategias];
+        enfrentamientos = new long[numEstrategias][numEstrategias];
+        puntos = new MediaOnline[numEstrategias];
+        for (int i = 0; i < numEstrategias; i++) {
+            puntos[i] = new MediaOnline();
+        }
+    }
+
+    /**
+     * Anota una comparación entre dos estrategias.
+     *
+     * @param a Una estrategia, como Entero.
+     * @param b La otra estrategia, como Entero.
+     * @param puntosA Lo que ha sacado a, como long.
+     * @param puntosB Lo que ha sacado b, como long.
+     */
+    public void anotarEnfrentamiento(int a, int b, long puntosA, long puntosB) {
+        enfrentamientos[a][b]++;
+        enfrentamientos[b][a]++;
+        if (puntosA > puntosB) {
+            medios[a][b] += 2;
+        } else if (puntosA < puntosB) {
+            medios[b][a] += 2;
+        } else {
+            medios[a][b]++;
+            medios[b][a]++;
+        }
+    }
+
+    /**
+     * Anota los puntos que ha hecho una estrategia en una partida.
+     *
+     * @param estrategia La estrategia, como Entero.
+     * @param puntosPartida Los puntos, como Entero.
+     */
+    public void anotarPuntos(int estrategia, int puntosPartida) {
+        puntos[estrategia].anotar(puntosPartida);
+    }
+
+    /**
+     * Cuenta un reparto más.
+     */
+    public void anotarReparto() {
+        repartos++;
+    }
+
+    /**
+     * Junta con estos resultados los de otro trozo de repartos.
+     *
+     * @param otros Los otros resultados, como ResultadosLiga.
+     * @return Estos mismos resultados, como ResultadosLiga.
+     */
+    public ResultadosLiga combinar(ResultadosLiga otros) {
+        for (int i = 0; i < numEstrategias; i++) {
+            for (int j = 0; j < numEstrategias; j++) {
+                medios[i][j] += otros.medios[i][j];
+                enfrentamientos[i][j] += otros.enfrentamientos[i][j];
+            }
+            puntos[i].combinar(otros.puntos[i]);
+        }
+        repartos += otros.repartos;
+        return this;
+    }
+
+    /**
+     * Devuelve el número de estrategias.
+     *
+     * @return El número de estrategias, como Entero.
+     */
+    public int getNumEstrategias() {
+        return numEstrategias;
+    }
+
+    /**
+     * Devuelve el número de repartos jugados.
+     *
+     * @return El número de repartos, como long.
+     */
+    public long getRepartos() {
+        return repartos;
+    }
+
+    /**
+     * Devuelve lo que ha sacado una estrategia contra otra.
+     *
+     * @param a La estrategia, como Entero.
+     * @param b La rival, como Entero.
+     * @return Los puntos de a contra b, 1 por ganar y 0.5 por empatar, como
+     * double.
+     */
+    public double getResultado(int a, int b) {
+        return medios[a][b] / 2.0;
+    }
+
+    /**
+     * Devuelve cuántas veces se han comparado dos estrategias.
+     *
+     * @param a Una estrategia, como Entero.
+     * @param b La otra estrategia, como Entero.
+     * @return El número de comparaciones, como long.
+     */
+    public long getEnfrentamientos(int a, int b) {
+        return enfrentamientos[a][b];
+    }
+
+    /**
+     * Devuelve los puntos por partida de una estrategia.
+     *
+     * @param estrategia La estrategia, como Entero.
+     * @return Los puntos por partida, como MediaOnline.
+     */
+    public MediaOnline getPuntos(int estrategia) {
+        return puntos[estrategia];
+    }
+}
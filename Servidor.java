@@ -0,0 +1,600 @@
+/*
+ * Servidor de muchas mesas del Cinquillo-Oro a la vez, con un protocolo de texto por líneas.
+ * Estructura: un solo hilo con un Selector de NIO atiende todas las conexiones; cada mesa es una
+ * Partida que avanza cuando llega la jugada del jugador de turno, así que una mesa parada no
+ * ocupa ningún hilo. Cada conexión tiene un buffer de entrada y otro de salida de tamaño fijo; si
+ * un cliente no lee y se le llena el buffer, se le desconecta.
+ * Los espectadores de una mesa reciben lo que manda su CanalEspectadores: cada mensaje se compone una
+ * vez y todas las conexiones que miran guardan una vista de los mismos bytes hasta poder escribirla.
+ *
+ * Protocolo (cliente a servidor):
+ *   UNIRSE <nombre> <3|4>   se sienta en la primera mesa libre de ese número de jugadores
+ *   JUGAR <indice>          coloca la carta de esa posición de su última MANO
+ *   MESA                    pide las cartas que hay en la mesa
+ *   MIRAR <mesa>            mira una mesa sin jugar: recibe VISTA y después los mensajes de
+ *                           CanalEspectadores, hasta FIN o ABANDONADA
+ * Protocolo (servidor a cliente):
+ *   SENTADO <mesa> <asiento> <numJugadores>   se repite con el asiento nuevo si alguien se levanta
+ *                                        antes de empezar
+ *   EMPIEZA <nombre>...                  nombres por asiento
+ *   RONDA <ronda> <asiento>...           orden de turno de la ronda
+ *   MANO <id>...                         su mano, en orden; JUGAR usa estas posiciones
+ *   TURNO <asiento>
+ *   JUGADA <asiento> <id>
+ *   PASA <asiento>
+ *   FINRONDA <ganador> <asientoAsDeOros o -1> <puntos>...
+ *   FIN <puntos>...
+ *   MESA <minimo>-<maximo>...            un par por palo, 0-0 si el palo está vacío
+ *   ERROR <texto>
+ * Las cartas van por su identificador (ver Carta.getId).
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+public class Servidor implements Runnable {
+
+    private static final int TAMANO_ENTRADA = 256;
+    private static final int TAMANO_SALIDA = 8192;
+    private static final int MAXIMO_PENDIENTES = 1024;
+
+    private final Selector selector;
+    private final ServerSocketChannel servidor;
+    private final SplittableRandom random;
+    private final MesaServidor[] esperando = new MesaServidor[5];
+    private final Map<Integer, MesaServidor> mesas = new HashMap<>();
+    private int siguienteMesa;
+    private int mesasActivas;
+    private volatile boolean parar;
+
+    /**
+     * Crea un servidor escuchando en un puerto.
+     *
+     * @param puerto El puerto, o 0 para uno libre cualquiera, como Entero.
+     * @param semilla La semilla de las barajas, como long.
+     * @throws IOException Si no se puede abrir el puerto.
+     */
+    public Servidor(int puerto, long semilla) throws IOException {
+        selector = Selector.open();
+        servidor = ServerSocketChannel.open();
+        servidor.bind(new InetSocketAddress("127.0.0.1", puerto), 1024);
+        servidor.configureBlocking(false);
+        servidor.register(selector, SelectionKey.OP_ACCEPT);
+        random = new SplittableRandom(semilla);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int puerto = args.length > 0 ? Integer.parseInt(args[0]) : 5555;
+        Servidor servidor = new Servidor(puerto, System.nanoTime());
+        System.out.println("Servidor escuchando en el puerto " + servidor.getPuerto());
+        servidor.run();
+    }
+
+    /**
+     * Devuelve el puerto en el que escucha el servidor.
+     *
+     * @return El puerto, como Entero.
+     */
+    public int getPuerto() {
+        return servidor.socket().getLocalPort();
+    }
+
+    /**
+     * Devuelve cuántas mesas están jugando ahora mismo.
+     *
+     * @return El número de mesas, como Entero.
+     */
+    public int getMesasActivas() {
+        return mesasActivas;
+    }
+
+    /**
+     * Pide al servidor que se pare.
+     */
+    public void parar() {
+        parar = true;
+        selector.wakeup();
+    }
+
+    /**
+     * Atiende las conexiones hasta que se pide parar.
+     */
+    @Override
+    public void run() {
+        try {
+            while (!parar) {
+                selector.select();
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey clave = it.next();
+                    it.remove();
+                    try {
+                        if (!clave.isValid()) {
+                            continue;
+                        }
+                        if (clave.isAcceptable()) {
+                            aceptar();
+                        }
+                        if (clave.isValid() && clave.isReadable()) {
+                            leer((Conexion) clave.attachment());
+                        }
+                        if (clave.isValid() && clave.isWritable()) {
+                            ((Conexion) clave.attachment()).escribir();
+                        }
+                    } catch (IOException exc) {
+                        if (clave.attachment() instanceof Conexion) {
+                            cerrar((Conexion) clave.attachment());
+                        }
+                    }
+                }
+            }
+        } catch (IOException exc) {
+            throw new UncheckedIOException(exc);
+        } finally {
+            try {
+                for (SelectionKey clave : selector.keys()) {
+                    clave.channel().close();
+                }
+                selector.close();
+            } catch (IOException exc) {
+                // Ya se está cerrando
+            }
+        }
+    }
+
+    /**
+     * Acepta las conexiones pendientes.
+     *
+     * @throws IOException Si falla la conexión.
+     */
+    private void aceptar() throws IOException {
+        SocketChannel canal;
+        while ((canal = servidor.accept()) != null) {
+            canal.configureBlocking(false);
+            canal.socket().setTcpNoDelay(true);
+            Conexion conexion = new Conexion(canal);
+            conexion.clave = canal.register(selector, SelectionKey.OP_READ, conexion);
+        }
+    }
+
+    /**
+     * Lee lo que haya mandado un cliente y atiende las líneas completas.
+     *
+     * @param conexion La conexión del cliente, como Conexion.
+     * @throws IOException Si falla la conexión.
+     */
+    private void leer(Conexion conexion) throws IOException {
+        int leidos = conexion.canal.read(conexion.entrada);
+        if (leidos < 0) {
+            cerrar(conexion);
+            return;
+        }
+        ByteBuffer entrada = conexion.entrada;
+        entrada.flip();
+        int inicio = 0;
+        for (int i = 0; i < entrada.limit(); i++) {
+            if (entrada.get(i) == '\n') {
+                String linea = new String(entrada.array(), inicio, i - inicio, StandardCharsets.UTF_8).trim();
+                inicio = i + 1;
+                atender(conexion, linea);
+                if (!conexion.canal.isOpen()) {
+                    return;
+                }
+            }
+        }
+        entrada.position(inicio);
+        entrada.compact();
+        if (!entrada.hasRemaining()) {
+            cerrar(conexion);
+        }
+    }
+
+    /**
+     * Atiende una orden de un cliente.
+     *
+     * @param conexion La conexión del cliente, como Conexion.
+     * @param linea La orden, como String.
+     */
+    private void atender(Conexion conexion, String linea) {
+        String[] partes = linea.split(" ");
+        switch (partes[0]) {
+            case "UNIRSE":
+                unirse(conexion, partes);
+                break;
+            case "JUGAR":
+                jugar(conexion, partes);
+                break;
+            case "MIRAR":
+                mirar(conexion, partes);
+                break;
+            case "MESA":
+                if (conexion.mesa == null || conexion.mesa.partida == null) {
+                    conexion.enviar("ERROR No estás jugando");
+                } else {
+                    conexion.enviar(describirMesa(conexion.mesa.partida.getMesa()));
+                }
+                break;
+            default:
+                conexion.enviar("ERROR Orden desconocida");
+        }
+    }
+
+    /**
+     * Sienta a un cliente en una mesa y empieza la partida si se llena.
+     *
+     * @param conexion La conexión del cliente, como Conexion.
+     * @param partes La orden partida en palabras, como array de String.
+     */
+    private void unirse(Conexion conexion, String[] partes) {
+        if (conexion.mesa != null || conexion.mirando != null) {
+            conexion.enviar("ERROR Ya estás en una mesa");
+            return;
+        }
+        int numJugadores;
+        try {
+            numJugadores = partes.length == 3 ? Integer.parseInt(partes[2]) : 0;
+        } catch (NumberFormatException exc) {
+            numJugadores = 0;
+        }
+        if (numJugadores != 3 && numJugadores != 4) {
+            conexion.enviar("ERROR Uso: UNIRSE <nombre> <3|4>");
+            return;
+        }
+        MesaServidor mesa = esperando[numJugadores];
+        if (mesa == null) {
+            mesa = new MesaServidor(siguienteMesa++, numJugadores);
+            esperando[numJugadores] = mesa;
+            mesas.put(mesa.id, mesa);
+        }
+        conexion.nombre = partes[1];
+        conexion.mesa = mesa;
+        conexion.asiento = mesa.ocupados;
+        mesa.conexiones[mesa.ocupados++] = conexion;
+        conexion.enviar("SENTADO " + mesa.id + " " + conexion.asiento + " " + numJugadores);
+        if (mesa.ocupados == numJugadores) {
+            esperando[numJugadores] = null;
+            mesa.empezar();
+        }
+    }
+
+    /**
+     * Coloca la carta que pide un cliente.
+     *
+     * @param conexion La conexión del cliente, como Conexion.
+     * @param partes La orden partida en palabras, como array de String.
+     */
+    private void jugar(Conexion conexion, String[] partes) {
+        MesaServidor mesa = conexion.mesa;
+        if (mesa == null || mesa.partida == null) {
+            conexion.enviar("ERROR No estás jugando");
+            return;
+        }
+        if (mesa.partida.getAsientoDeTurno() != conexion.asiento) {
+            conexion.enviar("ERROR No es tu turno");
+            return;
+        }
+        try {
+            mesa.partida.colocar(Integer.parseInt(partes[1]));
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException exc) {
+            conexion.enviar("ERROR Uso: JUGAR <indice>");
+            return;
+        } catch (IllegalArgumentException exc) {
+            conexion.enviar("ERROR " + exc.getMessage());
+            return;
+        }
+        mesa.retransmitir();
+        mesa.avisarTurno();
+    }
+
+    /**
+     * Hace que un cliente mire una mesa como espectador.
+     *
+     * @param conexion La conexión del cliente, como Conexion.
+     * @param partes La orden partida en palabras, como array de String.
+     */
+    private void mirar(Conexion conexion, String[] partes) {
+        if (conexion.mesa != null) {
+            conexion.enviar("ERROR Ya estás jugando");
+            return;
+        }
+        MesaServidor mesa;
+        try {
+            mesa = mesas.get(Integer.parseInt(partes[1]));
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException exc) {
+            conexion.enviar("ERROR Uso: MIRAR <mesa>");
+            return;
+        }
+        if (mesa == null) {
+            conexion.enviar("ERROR No existe esa mesa");
+            return;
+        }
+        if (conexion.mirando != null) {
+            conexion.mirando.dejar(conexion);
+        }
+        conexion.mirando = mesa.espectadores;
+        mesa.espectadores.unir(conexion);
+    }
+
+    /**
+     * Cierra una conexión. Si estaba jugando, la mesa se da por abandonada.
+     *
+     * @param conexion La conexión, como Conexion.
+     */
+    private void cerrar(Conexion conexion) {
+        try {
+            conexion.canal.close();
+        } catch (IOException exc) {
+            // Ya está cerrada
+        }
+        if (conexion.mirando != null) {
+            conexion.mirando.dejar(conexion);
+            conexion.mirando = null;
+        }
+        MesaServidor mesa = conexion.mesa;
+        if (mesa == null) {
+            return;
+        }
+        if (mesa.partida == null) {
+            // Todavía no había empezado: se deja el sitio libre y los de detrás se corren un asiento
+            for (int i = conexion.asiento; i < mesa.ocupados - 1; i++) {
+                mesa.conexiones[i] = mesa.conexiones[i + 1];
+                mesa.conexiones[i].asiento = i;
+            }
+            mesa.conexiones[--mesa.ocupados] = null;
+            conexion.mesa = null;
+            // Se avisa cuando la mesa ya está en orden, por si al avisar se cae otra conexión
+            for (int i = conexion.asiento; i < mesa.ocupados; i++) {
+                Conexion otra = mesa.conexiones[i];
+                otra.enviar("SENTADO " + mesa.id + " " + otra.asiento + " " + mesa.conexiones.length);
+            }
+            return;
+        }
+        mesa.terminar("ERROR Mesa abandonada");
+        mesa.retransmitir();
+        conexion.mesa = null;
+    }
+
+    /**
+     * Describe las cartas de la mesa, un par mínimo-máximo por palo.
+     *
+     * @param mesa La mesa, como Mesa.
+     * @return La línea del protocolo, como String.
+     */
+    private static String describirMesa(Mesa mesa) {
+        EstadoCompacto estado = EstadoCompacto.desde(mesa, List.of());
+        StringBuilder sb = new StringBuilder("MESA");
+        for (int palo = 0; palo < EstadoCompacto.NUM_PALOS; palo++) {
+            sb.append(' ').append(estado.getMinimo(palo)).append('-').append(estado.getMaximo(palo));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Una mesa del servidor: su partida y las conexiones de sus jugadores.
+     */
+    private class MesaServidor implements Partida.Oyente {
+
+        final int id;
+        final Conexion[] conexiones;
+        int ocupados;
+        Partida partida;
+        boolean terminada;
+        final CanalEspectadores espectadores;
+        // Los eventos de la partida se leen en el hilo del servidor después de cada jugada
+        final BusEventos eventos = new BusEventos(256);
+        final BusEventos.Suscripcion suscripcion = eventos.suscribir();
+
+        MesaServidor(int id, int numJugadores) {
+            this.id = id;
+            this.conexiones = new Conexion[numJugadores];
+            this.espectadores = new CanalEspectadores(id, numJugadores);
+        }
+
+        /**
+         * Manda a los espectadores los eventos publicados. Si la mesa ya ha
+         * terminado, después los suelta: el último mensaje que reciben es FIN
+         * o ABANDONADA.
+         */
+        void retransmitir() {
+            suscripcion.sondear(espectadores);
+            if (terminada) {
+                for (CanalEspectadores.Espectador espectador : espectadores.cerrar()) {
+                    ((Conexion) espectador).mirando = null;
+                }
+            }
+        }
+
+        void empezar() {
+            List<String> nombres = new ArrayList<>();
+            StringBuilder sb = new StringBuilder("EMPIEZA");
+            for (Conexion conexion : conexiones) {
+                nombres.add(conexion.nombre);
+                sb.append(' ').append(conexion.nombre);
+            }
+            enviarATodos(sb.toString());
+            partida = new Partida(nombres, random.split());
+            partida.setOyente(this);
+            partida.setEventos(eventos);
+            mesasActivas++;
+            partida.empezar();
+            retransmitir();
+            avisarTurno();
+        }
+
+        void avisarTurno() {
+            if (terminada || partida.estaTerminada()) {
+                return;
+            }
+            int asiento = partida.getAsientoDeTurno();
+            StringBuilder sb = new StringBuilder("MANO");
+            for (Carta carta : partida.getJugador(asiento).getMano()) {
+                sb.append(' ').append(carta.getId());
+            }
+            conexiones[asiento].enviar(sb.toString());
+            enviarATodos("TURNO " + asiento);
+        }
+
+        void terminar(String mensaje) {
+            if (terminada) {
+                return;
+            }
+            terminada = true;
+            mesasActivas--;
+            mesas.remove(id);
+            for (Conexion conexion : conexiones) {
+                if (conexion != null && conexion.mesa == this) {
+                    conexion.enviar(mensaje);
+                    conexion.mesa = null;
+                }
+            }
+        }
+
+        void enviarATodos(String linea) {
+            for (Conexion conexion : conexiones) {
+                if (conexion != null && conexion.mesa == this) {
+                    conexion.enviar(linea);
+                }
+            }
+        }
+
+        @Override
+        public void rondaEmpezada(int ronda, int[] orden) {
+            StringBuilder sb = new StringBuilder("RONDA ").append(ronda);
+            for (int asiento : orden) {
+                sb.append(' ').append(asiento);
+            }
+            enviarATodos(sb.toString());
+        }
+
+        @Override
+        public void jugada(int asiento, Carta carta) {
+            enviarATodos("JUGADA " + asiento + " " + carta.getId());
+        }
+
+        @Override
+        public void pase(int asiento) {
+            enviarATodos("PASA " + asiento);
+        }
+
+        @Override
+        public void rondaTerminada(int ganador, int asientoAsDeOros) {
+            StringBuilder sb = new StringBuilder("FINRONDA ").append(ganador).append(' ').append(asientoAsDeOros);
+            for (Jugador jugador : partida.getJugadores()) {
+                sb.append(' ').append(jugador.getPuntuacion());
+            }
+            enviarATodos(sb.toString());
+        }
+
+        @Override
+        public void partidaTerminada() {
+            StringBuilder sb = new StringBuilder("FIN");
+            for (Jugador jugador : partida.getJugadores()) {
+                sb.append(' ').append(jugador.getPuntuacion());
+            }
+            terminar(sb.toString());
+        }
+    }
+
+    /**
+     * Una conexión con un cliente, con sus buffers de tamaño fijo.
+     */
+    private class Conexion implements CanalEspectadores.Espectador {
+
+        final SocketChannel canal;
+        final ByteBuffer entrada = ByteBuffer.allocate(TAMANO_ENTRADA);
+        final ByteBuffer salida = ByteBuffer.allocate(TAMANO_SALIDA);
+        // Mensajes compartidos con otros espectadores, que van detrás de lo que haya en salida
+        final ArrayDeque<ByteBuffer> pendientes = new ArrayDeque<>();
+        CanalEspectadores mirando;
+        SelectionKey clave;
+        String nombre;
+        MesaServidor mesa;
+        int asiento;
+
+        Conexion(SocketChannel canal) {
+            this.canal = canal;
+        }
+
+        /**
+         * Manda una línea al cliente, o lo desconecta si no cabe.
+         */
+        void enviar(String linea) {
+            if (!canal.isOpen()) {
+                return;
+            }
+            byte[] bytes = (linea + "\n").getBytes(StandardCharsets.UTF_8);
+            if (!pendientes.isEmpty()) {
+                // Para no adelantarse a los mensajes compartidos que esperan
+                recibir(ByteBuffer.wrap(bytes));
+                return;
+            }
+            if (salida.remaining() < bytes.length) {
+                cerrar(this);
+                return;
+            }
+            salida.put(bytes);
+            try {
+                escribir();
+            } catch (IOException exc) {
+                cerrar(this);
+            }
+        }
+
+        /**
+         * Manda un mensaje compartido sin copiarlo, o desconecta al cliente si
+         * tiene demasiados esperando.
+         */
+        @Override
+        public void recibir(ByteBuffer mensaje) {
+            if (!canal.isOpen()) {
+                return;
+            }
+            if (pendientes.size() == MAXIMO_PENDIENTES) {
+                cerrar(this);
+                return;
+            }
+            pendientes.add(mensaje);
+            try {
+                escribir();
+            } catch (IOException exc) {
+                cerrar(this);
+            }
+        }
+
+        /**
+         * Escribe lo que se pueda del buffer de salida y pide avisar cuando se
+         * pueda escribir el resto.
+         */
+        void escribir() throws IOException {
+            salida.flip();
+            canal.write(salida);
+            salida.compact();
+            while (salida.position() == 0 && !pendientes.isEmpty()) {
+                ByteBuffer mensaje = pendientes.peek();
+                canal.write(mensaje);
+                if (mensaje.hasRemaining()) {
+                    break;
+                }
+                pendientes.poll();
+            }
+            if (clave.isValid()) {
+                clave.interestOps(salida.position() > 0 || !pendientes.isEmpty()
+                        ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+            }
+        }
+    }
+}
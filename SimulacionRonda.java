@@ -0,0 +1,246 @@
+/*
+ * Núcleo de simulación para los bots: juega lo que queda de una ronda con una elección ligera de carta,
+ * sobre máscaras de bits y sin crear ningún objeto. Es el mismo bucle de turnos que Juego.jugar (coloca
+ * si puede o pasa, hasta que una mano se queda vacía), pero con la mesa como la máscara de sus cartas
+ * colocadas y las jugadas legales sacadas con LoteJugadas.jugables.
+ * También reparte al azar las cartas que un jugador no ve, para empezar una simulación desde lo que
+ * sabe. Cada hilo necesita su propio SimulacionRonda y su propio generador.
+ * Con jugarHasta la ronda se para cuando en las manos quedan pocas cartas y las jugadas hechas se
+ * pasan al EstadoCompacto, para acabarla de otra forma (por ejemplo con una TablaJugadas).
+ */
+
+import java.util.SplittableRandom;
+
+public final class SimulacionRonda {
+
+    /**
+     * Una forma barata de elegir carta dentro de una simulación.
+     */
+    @FunctionalInterface
+    public interface Eleccion {
+
+        /**
+         * Elige una de las cartas legales.
+         *
+         * @param legales Las cartas que se pueden colocar, al menos una, como
+         * long.
+         * @param mano La mano del jugador, como long.
+         * @param colocadas Las cartas de la mesa, como long.
+         * @param random El generador de la simulación, como SplittableRandom.
+         * @return El identificador de la carta elegida, como Entero.
+         */
+        int elegir(long legales, long mano, long colocadas, SplittableRandom random);
+    }
+
+    /**
+     * Una carta legal cualquiera, todas con la misma probabilidad, como
+     * PoliticaAleatoria.
+     */
+    public static final Eleccion AL_AZAR = (legales, mano, colocadas, random) -> bitAlAzar(legales, random);
+
+    /**
+     * La carta legal de menor identificador, como PoliticaPrimeraCarta.
+     */
+    public static final Eleccion PRIMERA_CARTA = (legales, mano, colocadas, random) -> Long.numberOfTrailingZeros(legales);
+
+    private static final int MAXIMO_JUGADORES = 4;
+
+    private final Eleccion eleccion;
+    private final long[] manos = new long[MAXIMO_JUGADORES];
+    private final int[] ocultas = new int[Carta.NUM_CARTAS];
+    // Las cartas colocadas en la última simulación, en orden
+    private final int[] jugadas = new int[Carta.NUM_CARTAS];
+    private int numJugadas;
+    private int asientoAsDeOros;
+    private int turnoFinal;
+
+    /**
+     * Crea un nuevo núcleo de simulación.
+     *
+     * @param eleccion Cómo se elige carta en las simulaciones, como Eleccion.
+     */
+    public SimulacionRonda(Eleccion eleccion) {
+        this.eleccion = eleccion;
+    }
+
+    /**
+     * Juega el resto de una ronda. Entre la mesa y las manos tienen que estar
+     * todas las cartas, o la ronda podría no acabar.
+     *
+     * @param colocadas Las cartas de la mesa, como long.
+     * @param manos La mano de cada asiento, que no se modifica, como array de
+     * long.
+     * @param orden Los asientos en orden de turno, como array de Entero.
+     * @param turno La posición en el orden del jugador que tiene el turno, como
+     * Entero.
+     * @param random El generador de la simulación, como SplittableRandom.
+     * @return El asiento que gana la ronda, como Entero.
+     */
+    public int jugar(long colocadas, long[] manos, int[] orden, int turno, SplittableRandom random) {
+        System.arraycopy(manos, 0, this.manos, 0, orden.length);
+        return jugar(colocadas, orden, turno, Carta.NUM_CARTAS, random);
+    }
+
+    /**
+     * Juega el resto de la ronda de un EstadoCompacto, sin modificarlo.
+     *
+     * @param estado La mesa y las manos, como EstadoCompacto.
+     * @param orden Los asientos en orden de turno, como array de Entero.
+     * @param turno La posición en el orden del jugador que tiene el turno, como
+     * Entero.
+     * @param random El generador de la simulación, como SplittableRandom.
+     * @return El asiento que gana la ronda, como Entero.
+     */
+    public int jugar(EstadoCompacto estado, int[] orden, int turno, SplittableRandom random) {
+        for (int i = 0; i < orden.length; i++) {
+            manos[i] = estado.getMano(i);
+        }
+        return jugar(estado.getCartasEnMesa(), orden, turno, Carta.NUM_CARTAS, random);
+    }
+
+    /**
+     * Juega la ronda de un EstadoCompacto hasta que alguien gana o hasta que en
+     * las manos quedan como mucho unas cartas, y deja el estado donde se ha
+     * parado.
+     *
+     * @param estado La mesa y las manos, que se modifican, como EstadoCompacto.
+     * @param orden Los asientos en orden de turno, como array de Entero.
+     * @param turno La posición en el orden del jugador que tiene el turno, como
+     * Entero.
+     * @param quedan Las cartas que pueden quedar en las manos como mucho para
+     * parar, como Entero.
+     * @param random El generador de la simulación, como SplittableRandom.
+     * @return El asiento que gana la ronda, o -1 si se ha parado antes (a quién
+     * le toca lo dice getTurno), como Entero.
+     */
+    public int jugarHasta(EstadoCompacto estado, int[] orden, int turno, int quedan, SplittableRandom random) {
+        for (int i = 0; i < orden.length; i++) {
+            manos[i] = estado.getMano(i);
+        }
+        int ganador = jugar(estado.getCartasEnMesa(), orden, turno, Carta.NUM_CARTAS - quedan, random);
+        // En el orden en que se colocaron, para que cada palo crezca por su extremo
+        for (int i = 0; i < numJugadas; i++) {
+            estado.colocarEnMesa(jugadas[i]);
+        }
+        for (int i = 0; i < orden.length; i++) {
+            estado.setMano(i, manos[i]);
+        }
+        return ganador;
+    }
+
+    /**
+     * Devuelve a quién le toca donde se ha parado la última simulación de
+     * jugarHasta.
+     *
+     * @return La posición en el orden de turno, como Entero.
+     */
+    public int getTurno() {
+        return turnoFinal;
+    }
+
+    private int jugar(long colocadas, int[] orden, int turno, int limite, SplittableRandom random) {
+        int n = orden.length;
+        int t = turno;
+        int pasesSeguidos = 0;
+        int enMesa = Long.bitCount(colocadas);
+        asientoAsDeOros = -1;
+        numJugadas = 0;
+        while (true) {
+            if (enMesa >= limite) {
+                turnoFinal = t;
+                return -1;
+            }
+            int asiento = orden[t];
+            long mano = manos[asiento];
+            long legales = mano & LoteJugadas.jugables(colocadas);
+            if (legales != 0) {
+                int id = eleccion.elegir(legales, mano, colocadas, random);
+                long bit = 1L << id;
+                mano &= ~bit;
+                manos[asiento] = mano;
+                colocadas |= bit;
+                jugadas[numJugadas++] = id;
+                enMesa++;
+                pasesSeguidos = 0;
+                if (id == EstadoCompacto.AS_DE_OROS) {
+                    asientoAsDeOros = asiento;
+                }
+                if (mano == 0) {
+                    return asiento;
+                }
+            } else if (++pasesSeguidos == n) {
+                throw new IllegalStateException("Nadie puede colocar: faltan cartas en las manos");
+            }
+            t = t + 1 == n ? 0 : t + 1;
+        }
+    }
+
+    /**
+     * Devuelve quién ha colocado el as de oros en la última simulación.
+     *
+     * @return El asiento, o -1 si no se colocó en la simulación, como Entero.
+     */
+    public int getAsientoAsDeOros() {
+        return asientoAsDeOros;
+    }
+
+    /**
+     * Reparte al azar las cartas que no están en la mesa ni en una mano
+     * conocida entre los demás asientos, a cada uno las que le quedan.
+     *
+     * @param colocadas Las cartas de la mesa, como long.
+     * @param miAsiento El asiento cuya mano se conoce, o -1 para repartir
+     * todas, como Entero.
+     * @param miMano La mano conocida, como long.
+     * @param cartas Cuántas cartas le quedan a cada asiento, como array de
+     * Entero.
+     * @param manos Donde se deja la mano de cada asiento, como array de long.
+     * @param random El generador de la simulación, como SplittableRandom.
+     */
+    public void repartir(long colocadas, int miAsiento, long miMano, int[] cartas, long[] manos, SplittableRandom random) {
+        long desconocidas = EstadoCompacto.TODAS & ~colocadas & ~miMano;
+        int numOcultas = 0;
+        while (desconocidas != 0) {
+            ocultas[numOcultas++] = Long.numberOfTrailingZeros(desconocidas);
+            desconocidas &= desconocidas - 1;
+        }
+        int repartidas = 0;
+        for (int asiento = 0; asiento < cartas.length; asiento++) {
+            repartidas += asiento == miAsiento ? 0 : cartas[asiento];
+        }
+        if (repartidas != numOcultas) {
+            throw new IllegalArgumentException("Las cartas de los jugadores no cuadran con la mesa");
+        }
+        int siguiente = 0;
+        for (int asiento = 0; asiento < cartas.length; asiento++) {
+            if (asiento == miAsiento) {
+                manos[asiento] = miMano;
+                continue;
+            }
+            long mano = 0;
+            for (int k = 0; k < cartas[asiento]; k++) {
+                // Fisher-Yates a medias: solo se baraja lo que se va sacando
+                int j = siguiente + random.nextInt(numOcultas - siguiente);
+                int id = ocultas[j];
+                ocultas[j] = ocultas[siguiente];
+                ocultas[siguiente++] = id;
+                mano |= 1L << id;
+            }
+            manos[asiento] = mano;
+        }
+    }
+
+    /**
+     * Elige al azar uno de los bits de una máscara.
+     *
+     * @param mascara La máscara, con al menos un bit, como long.
+     * @param random El generador, como SplittableRandom.
+     * @return La posición del bit elegido, como Entero.
+     */
+    static int bitAlAzar(long mascara, SplittableRandom random) {
+        for (int salto = random.nextInt(Long.bitCount(mascara)); salto > 0; salto--) {
+            mascara &= mascara - 1;
+        }
+        return Long.numberOfTrailingZeros(mascara);
+    }
+}
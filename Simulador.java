@@ -0,0 +1,315 @@
+/*
+ * Juega partidas completas del Cinquillo-Oro sin interfaz, con las mismas reglas que Juego.
+ * Cada asiento juega con su propia Politica y cada partida devuelve un ResultadoPartida.
+ * La baraja, la mesa y los jugadores se crean una vez y se reutilizan en todas las partidas, así que
+ * jugarPartida(random, puntuaciones) no crea ningún objeto: un hilo con su propio Simulador puede
+ * jugar partida tras partida sin trabajo para el recolector de basura.
+ * Funcionalidad: jugar una partida, jugar muchas partidas seguidas, guardar las partidas en un
+ * RegistroPartidas. Solo se guardan las partidas jugadas con semilla, para que cada una se pueda volver
+ * a jugar igual con jugarPartida(semilla).
+ */
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+public class Simulador {
+
+    private final Politica[] politicas;
+    private final Baraja baraja;
+    private final Mesa mesa;
+    private final int puntosPartida = 4;
+    private RegistroPartidas registro;
+    private final int[] orden;
+    private final long[] manos;
+    private final int[] puntosRonda;
+    // Los jugadores y el estado de la partida se reutilizan de una partida a otra
+    private final Jugador[] asientos;
+    private final int[] cola;
+    private final int[] giro;
+    private final int[] puntuaciones;
+    private int rondas;
+    private int asientoInicial;
+    private int rondasGanadasAbriendo;
+    private int asientoAsDeOros;
+
+    /**
+     * Crea un nuevo simulador.
+     *
+     * @param politicas La política de cada asiento, 3 o 4, como Politica.
+     */
+    public Simulador(Politica... politicas) {
+        if (politicas.length != 3 && politicas.length != 4) {
+            throw new IllegalArgumentException("El juego es para 3 o 4 jugadores");
+        }
+        this.politicas = politicas.clone();
+        this.baraja = new Baraja();
+        this.mesa = new Mesa();
+        this.orden = new int[politicas.length];
+        this.manos = new long[politicas.length];
+        this.puntosRonda = new int[politicas.length];
+        this.asientos = new Jugador[politicas.length];
+        for (int i = 0; i < asientos.length; i++) {
+            asientos[i] = new Jugador("Jugador " + (i + 1));
+        }
+        this.cola = new int[politicas.length];
+        this.giro = new int[politicas.length];
+        this.puntuaciones = new int[politicas.length];
+    }
+
+    /**
+     * Hace que las partidas que se jueguen se guarden en un registro. Con
+     * registro, las partidas se tienen que jugar con jugarPartida(semilla).
+     *
+     * @param registro El registro donde se guardan las partidas, o null para
+     * no guardarlas, como RegistroPartidas.
+     */
+    public void setRegistro(RegistroPartidas registro) {
+        this.registro = registro;
+    }
+
+    /**
+     * Devuelve el número de asientos del simulador.
+     *
+     * @return El número de jugadores, como Entero.
+     */
+    public int getNumJugadores() {
+        return politicas.length;
+    }
+
+    /**
+     * Juega una partida completa con una semilla, que queda guardada en el
+     * registro si lo hay.
+     *
+     * @param semilla La semilla de la partida, como long.
+     * @return El resultado de la partida, como ResultadoPartida.
+     */
+    public ResultadoPartida jugarPartida(long semilla) {
+        return jugarPartida(new SplittableRandom(semilla), semilla);
+    }
+
+    /**
+     * Juega una partida completa: rondas hasta que alguien coloca el as de
+     * oros.
+     *
+     * @param random El generador con el que se baraja y se elige al primer
+     * jugador de cada ronda, como RandomGenerator.
+     * @return El resultado de la partida, como ResultadoPartida.
+     * @throws IllegalStateException Si hay registro: la partida no tendría
+     * semilla con la que volver a jugarla.
+     */
+    public ResultadoPartida jugarPartida(RandomGenerator random) {
+        comprobarSinRegistro();
+        return jugarPartida(random, 0);
+    }
+
+    /**
+     * Juega una partida completa sin crear ningún objeto: los puntos quedan
+     * en un array del que llama. Ganan los asientos con más puntos, como en
+     * Juego.ganadores.
+     *
+     * @param random El generador con el que se baraja y se elige al primer
+     * jugador de cada ronda, como RandomGenerator.
+     * @param puntuaciones Donde se dejan los puntos de cada asiento, como
+     * array de Entero.
+     * @return El número de rondas jugadas, como Entero.
+     * @throws IllegalStateException Si hay registro: la partida no tendría
+     * semilla con la que volver a jugarla.
+     */
+    public int jugarPartida(RandomGenerator random, int[] puntuaciones) {
+        comprobarSinRegistro();
+        jugar(random, 0);
+        System.arraycopy(this.puntuaciones, 0, puntuaciones, 0, this.puntuaciones.length);
+        return rondas;
+    }
+
+    private void comprobarSinRegistro() {
+        if (registro != null) {
+            throw new IllegalStateException("Para guardar una partida en el registro hay que jugarla con semilla");
+        }
+    }
+
+    /**
+     * Juega una partida completa.
+     *
+     * @param random El generador de la partida, como RandomGenerator.
+     * @param semilla La semilla que se guarda en el registro, como long.
+     * @return El resultado de la partida, como ResultadoPartida.
+     */
+    private ResultadoPartida jugarPartida(RandomGenerator random, long semilla) {
+        jugar(random, semilla);
+        boolean[] ganadores = new boolean[asientos.length];
+        Juego.marcarGanadores(asientos, ganadores);
+        return new ResultadoPartida(puntuaciones.clone(), ganadores, rondas, asientoAsDeOros, asientoInicial, rondasGanadasAbriendo);
+    }
+
+    /**
+     * Juega una partida completa con los jugadores, la mesa y la baraja del
+     * simulador, y deja el resultado en sus campos.
+     *
+     * @param random El generador de la partida, como RandomGenerator.
+     * @param semilla La semilla que se guarda en el registro, como long.
+     */
+    private void jugar(RandomGenerator random, long semilla) {
+        int numJugadores = politicas.length;
+        for (int i = 0; i < numJugadores; i++) {
+            asientos[i].reiniciar();
+            // Cada partida empieza con los jugadores en el orden de los asientos
+            cola[i] = i;
+        }
+
+        int puntosAsDeOros = 2;
+        rondas = 0;
+        asientoInicial = -1;
+        rondasGanadasAbriendo = 0;
+        asientoAsDeOros = -1;
+        if (registro != null) {
+            registro.empezarPartida(semilla, numJugadores);
+        }
+
+        do {
+            // Elegir primer jugador: se saca de la cola y se pone delante
+            int elegido = random.nextInt(numJugadores);
+            int primero = cola[elegido];
+            System.arraycopy(cola, 0, cola, 1, elegido);
+            cola[0] = primero;
+
+            // Barajar y repartir
+            baraja.ordenar();
+            baraja.barajarCartas(random);
+            repartirCartas();
+            empezarRonda(puntosAsDeOros);
+            int abre = orden[0];
+            if (asientoInicial < 0) {
+                asientoInicial = abre;
+            }
+
+            int turno = 0;
+            Jugador actual;
+            do {
+                int asiento = cola[turno];
+                actual = asientos[asiento];
+                if (actual.puedeColocarAlgo(mesa)) {
+                    int indiceCarta = politicas[asiento].elegirCarta(actual, mesa);
+                    if (!mesa.puedeColocarCarta(actual.devolverCarta(indiceCarta))) {
+                        throw new IllegalStateException("La política del asiento " + asiento + " ha elegido una carta que no se puede colocar");
+                    }
+                    Carta carta = actual.devolverCarta(indiceCarta);
+                    if (registro != null) {
+                        registro.jugada(carta.getId());
+                    }
+                    for (Politica politica : politicas) {
+                        politica.jugada(asiento, carta);
+                    }
+                    if (actual.colocarCarta(mesa, indiceCarta)) {
+                        actual.sumarPuntos(puntosAsDeOros);
+                        asientoAsDeOros = asiento;
+                        puntosRonda[asiento] += puntosAsDeOros;
+                    }
+                } else {
+                    if (registro != null) {
+                        registro.pase();
+                    }
+                    for (Politica politica : politicas) {
+                        politica.pase(asiento);
+                    }
+                }
+                if (!actual.manoVacia()) {
+                    turno = turno + 1 == numJugadores ? 0 : turno + 1;
+                }
+            } while (!actual.manoVacia());
+
+            actual.sumarPuntos(puntosPartida);
+            if (actual == asientos[abre]) {
+                rondasGanadasAbriendo++;
+            }
+            if (registro != null) {
+                puntosRonda[cola[turno]] += puntosPartida;
+                registro.terminarRonda(puntosRonda);
+            }
+            Arrays.fill(puntosRonda, 0);
+            mesa.vaciarMesa(baraja);
+            for (int i = 0; i < numJugadores; i++) {
+                asientos[cola[i]].vaciarMano(baraja);
+            }
+            // La cola sigue girada como acabó la ronda: el ganador queda delante
+            girarCola(turno);
+            puntosAsDeOros += 2;
+            rondas++;
+        } while (asientoAsDeOros < 0);
+
+        for (int i = 0; i < numJugadores; i++) {
+            puntuaciones[i] = asientos[i].getPuntuacion();
+        }
+        if (registro != null) {
+            registro.terminarPartida(puntuaciones);
+        }
+    }
+
+    /**
+     * Gira la cola de turnos para que un puesto pase a ser el primero.
+     *
+     * @param puesto El puesto que pasa delante, como Entero.
+     */
+    private void girarCola(int puesto) {
+        int n = cola.length;
+        for (int i = 0; i < n; i++) {
+            giro[i] = cola[(puesto + i) % n];
+        }
+        System.arraycopy(giro, 0, cola, 0, n);
+    }
+
+    /**
+     * Juega varias partidas seguidas y devuelve la puntuación acumulada de
+     * cada asiento.
+     *
+     * @param numPartidas El número de partidas a jugar, como Entero.
+     * @param random El generador de números aleatorios, como RandomGenerator.
+     * @return Los puntos acumulados por asiento, como array de Entero.
+     */
+    public long[] jugarPartidas(int numPartidas, RandomGenerator random) {
+        long[] acumulado = new long[politicas.length];
+        for (int p = 0; p < numPartidas; p++) {
+            ResultadoPartida resultado = jugarPartida(random);
+            for (int i = 0; i < acumulado.length; i++) {
+                acumulado[i] += resultado.getPuntuacion(i);
+            }
+        }
+        return acumulado;
+    }
+
+    /**
+     * Reparte toda la baraja entre los jugadores, empezando por el primero de
+     * la cola.
+     */
+    private void repartirCartas() {
+        while (!baraja.estaVacia()) {
+            for (int i = 0; i < cola.length; i++) {
+                if (baraja.estaVacia()) {
+                    break;
+                }
+                asientos[cola[i]].insertarCarta(baraja.sacarCarta());
+            }
+        }
+    }
+
+    /**
+     * Avisa a las políticas de que empieza la ronda y anota en el registro el
+     * orden de turno y las manos repartidas.
+     *
+     * @param puntosAsDeOros Lo que vale el as de oros en esta ronda, como
+     * Entero.
+     */
+    private void empezarRonda(int puntosAsDeOros) {
+        System.arraycopy(cola, 0, orden, 0, cola.length);
+        for (int i = 0; i < politicas.length; i++) {
+            politicas[i].empezarRonda(i, orden, puntosAsDeOros);
+        }
+        if (registro != null) {
+            for (int i = 0; i < asientos.length; i++) {
+                manos[i] = asientos[i].getMascaraMano();
+            }
+            registro.empezarRonda(orden, manos);
+        }
+    }
+}
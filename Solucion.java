@@ -0,0 +1,103 @@
+/*
+ * Representa el resultado de resolver una posición con todas las manos a la vista:
+ * la mejor jugada del jugador de turno y cómo acaba la ronda si todos juegan lo mejor posible.
+ */
+
+public class Solucion {
+
+    public static final int PASE = -1;
+
+    private final int mejorCarta;
+    private final int ganador;
+    private final int asientoAsDeOros;
+    private final int puntosAsDeOros;
+    private final long nodos;
+
+    /**
+     * Crea una nueva solución.
+     *
+     * @param mejorCarta El identificador de la mejor carta, o PASE, como
+     * Entero.
+     * @param ganador El asiento que gana la ronda, como Entero.
+     * @param asientoAsDeOros El asiento que coloca el as de oros en lo que
+     * queda de ronda, o -1 si nadie lo coloca, como Entero.
+     * @param puntosAsDeOros Los puntos que vale el as de oros en esta ronda,
+     * como Entero.
+     * @param nodos El número de posiciones visitadas, como long.
+     */
+    public Solucion(int mejorCarta, int ganador, int asientoAsDeOros, int puntosAsDeOros, long nodos) {
+        this.mejorCarta = mejorCarta;
+        this.ganador = ganador;
+        this.asientoAsDeOros = asientoAsDeOros;
+        this.puntosAsDeOros = puntosAsDeOros;
+        this.nodos = nodos;
+    }
+
+    /**
+     * Devuelve la mejor carta para el jugador de turno.
+     *
+     * @return El identificador de la carta, o PASE si no puede colocar nada,
+     * como Entero.
+     */
+    public int getMejorCarta() {
+        return mejorCarta;
+    }
+
+    /**
+     * Devuelve el asiento que gana la ronda con juego perfecto.
+     *
+     * @return El asiento del ganador, como Entero.
+     */
+    public int getGanador() {
+        return ganador;
+    }
+
+    /**
+     * Devuelve el asiento que coloca el as de oros con juego perfecto.
+     *
+     * @return El asiento, o -1 si el as de oros no se coloca, como Entero.
+     */
+    public int getAsientoAsDeOros() {
+        return asientoAsDeOros;
+    }
+
+    /**
+     * Te dice si el as de oros se coloca en lo que queda de ronda.
+     *
+     * @return true si se coloca, false si no.
+     */
+    public boolean seColocaAsDeOros() {
+        return asientoAsDeOros >= 0;
+    }
+
+    /**
+     * Devuelve los puntos que gana un asiento en lo que queda de ronda.
+     *
+     * @param asiento El asiento, como Entero.
+     * @return Los puntos, como Entero.
+     */
+    public int getPuntos(int asiento) {
+        return (asiento == ganador ? 4 : 0) + (asiento == asientoAsDeOros ? puntosAsDeOros : 0);
+    }
+
+    /**
+     * Devuelve cuántas posiciones se han visitado para llegar a la solución.
+     *
+     * @return El número de nodos, como long.
+     */
+    public long getNodos() {
+        return nodos;
+    }
+
+    /**
+     * Pasa la solución a un formato de String.
+     *
+     * @return La mejor carta y el desenlace, como String.
+     */
+    @Override
+    public String toString() {
+        String carta = mejorCarta == PASE ? "pasar" : Carta.of(mejorCarta).toString();
+        return "Mejor jugada: " + carta + " | Gana: " + ganador + " | As de oros: "
+                + (asientoAsDeOros < 0 ? "nadie" : String.valueOf(asientoAsDeOros));
+    }
+}
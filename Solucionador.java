@@ -0,0 +1,291 @@
+/*
+ * Resuelve una posición de una ronda viendo todas las manos: búsqueda max-n (cada jugador
+ * maximiza sus propios puntos de la ronda) sobre un EstadoCompacto, con tabla de transposiciones.
+ * Estructura: la tabla tiene un tamaño fijo (potencia de 2) en cubos de dos entradas, indexada por
+ * un hash de Zobrist de las manos, el jugador de turno, el orden de turno y lo que vale el as de oros.
+ * Cuando un cubo está lleno se sustituye la entrada con menos cartas por jugar, que es la más barata
+ * de volver a calcular. La mesa no hace falta en el hash: son las cartas que no están en ninguna mano.
+ */
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class Solucionador {
+
+    private static final int PUNTOS_RONDA = 4;
+    private static final int NADIE = 7;
+    private static final int PASE = 63;
+
+    private static final long[][] CLAVES_CARTA = new long[4][Carta.NUM_CARTAS];
+    private static final long[] CLAVES_TURNO = new long[4];
+    private static final long[] CLAVES_ORDEN = new long[16];
+    private static final long CLAVE_PUNTOS;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_C1A0L);
+        for (long[] claves : CLAVES_CARTA) {
+            for (int id = 0; id < claves.length; id++) {
+                claves[id] = random.nextLong();
+            }
+        }
+        for (int i = 0; i < CLAVES_TURNO.length; i++) {
+            CLAVES_TURNO[i] = random.nextLong();
+        }
+        for (int i = 0; i < CLAVES_ORDEN.length; i++) {
+            CLAVES_ORDEN[i] = random.nextLong();
+        }
+        CLAVE_PUNTOS = random.nextLong();
+    }
+
+    private final long[] claves;
+    private final int[] valores;
+    private final int mascara;
+
+    private EstadoCompacto estado;
+    private int[] orden;
+    private int numJugadores;
+    private int puntosAsDeOros;
+    private long claveFija;
+    private long nodos;
+
+    /**
+     * Crea un solucionador con una tabla de 2^20 entradas (unos 12 MB).
+     */
+    public Solucionador() {
+        this(20);
+    }
+
+    /**
+     * Crea un solucionador con una tabla de transposiciones de tamaño fijo.
+     *
+     * @param bitsTabla El logaritmo en base 2 del número de entradas, como
+     * Entero.
+     */
+    public Solucionador(int bitsTabla) {
+        claves = new long[1 << bitsTabla];
+        valores = new int[1 << bitsTabla];
+        mascara = (1 << bitsTabla) - 2;
+    }
+
+    /**
+     * Vacía la tabla de transposiciones.
+     */
+    public void limpiar() {
+        Arrays.fill(claves, 0);
+    }
+
+    /**
+     * Resuelve la posición de una mesa y unas manos.
+     *
+     * @param mesa La mesa, como Mesa.
+     * @param jugadores Los jugadores en orden de turno, empezando por el que
+     * tiene el turno; el asiento de cada uno es su posición en la lista, como
+     * List de Jugador.
+     * @param puntosAsDeOros Lo que vale el as de oros en esta ronda, como
+     * Entero.
+     * @return La solución, como Solucion.
+     */
+    public Solucion resolver(Mesa mesa, List<Jugador> jugadores, int puntosAsDeOros) {
+        int[] enOrden = new int[jugadores.size()];
+        for (int i = 0; i < enOrden.length; i++) {
+            enOrden[i] = i;
+        }
+        return resolver(EstadoCompacto.desde(mesa, jugadores), enOrden, 0, puntosAsDeOros);
+    }
+
+    /**
+     * Resuelve una posición. El estado se usa para buscar, pero queda igual que
+     * estaba al terminar.
+     *
+     * @param estado La mesa y las manos, como EstadoCompacto.
+     * @param orden Los asientos en orden de turno, como array de Entero.
+     * @param turno La posición en el orden del jugador que tiene el turno, como
+     * Entero.
+     * @param puntosAsDeOros Lo que vale el as de oros en esta ronda, como
+     * Entero.
+     * @return La solución, como Solucion.
+     */
+    public Solucion resolver(EstadoCompacto estado, int[] orden, int turno, int puntosAsDeOros) {
+        this.estado = estado;
+        this.orden = orden;
+        this.numJugadores = orden.length;
+        this.puntosAsDeOros = puntosAsDeOros;
+        this.nodos = 0;
+        long clave = CLAVE_PUNTOS * puntosAsDeOros;
+        for (int i = 0; i < orden.length; i++) {
+            clave ^= Long.rotateLeft(CLAVES_ORDEN[orden[i]], i * 13);
+        }
+        this.claveFija = clave;
+
+        for (int asiento = 0; asiento < numJugadores; asiento++) {
+            if (estado.manoVacia(asiento)) {
+                throw new IllegalArgumentException("La ronda ya ha terminado");
+            }
+        }
+        int valor = buscar(turno, hashManos());
+        int carta = movimiento(valor);
+        return new Solucion(carta == PASE ? Solucion.PASE : carta, ganador(valor),
+                asOros(valor) == NADIE ? -1 : asOros(valor), puntosAsDeOros, nodos);
+    }
+
+    /**
+     * Busca el desenlace de la posición con juego perfecto.
+     *
+     * @param turno La posición en el orden del jugador de turno, como Entero.
+     * @param hash El hash de Zobrist de las manos, como long.
+     * @return El desenlace y la mejor jugada empaquetados, como Entero.
+     */
+    private int buscar(int turno, long hash) {
+        nodos++;
+        int asiento = orden[turno];
+        long clave = (hash ^ claveFija ^ CLAVES_TURNO[asiento]) | 1L;
+        int indice = (int) clave & mascara;
+        if (claves[indice] == clave) {
+            return valores[indice] & 0xFFFF;
+        }
+        if (claves[indice + 1] == clave) {
+            return valores[indice + 1] & 0xFFFF;
+        }
+
+        int siguiente = turno + 1 == numJugadores ? 0 : turno + 1;
+        long legales = estado.jugadasLegales(asiento);
+        int mejor;
+        if (legales == 0) {
+            mejor = empaquetar(buscar(siguiente, hash), PASE);
+        } else {
+            int mejorPuntos = -1;
+            mejor = 0;
+            boolean quedaAsDeOros = quedaAsDeOros();
+            int maximoPosible = PUNTOS_RONDA + (quedaAsDeOros ? puntosAsDeOros : 0);
+            while (legales != 0) {
+                int id = Long.numberOfTrailingZeros(legales);
+                legales &= legales - 1;
+
+                estado.colocar(asiento, id);
+                int resultado;
+                if (estado.manoVacia(asiento)) {
+                    resultado = desenlace(asiento, id == EstadoCompacto.AS_DE_OROS ? asiento : NADIE);
+                } else {
+                    resultado = buscar(siguiente, hash ^ CLAVES_CARTA[asiento][id]);
+                    if (id == EstadoCompacto.AS_DE_OROS) {
+                        resultado = desenlace(ganador(resultado), asiento);
+                    }
+                }
+                estado.deshacer(asiento, id);
+
+                int puntos = puntos(resultado, asiento);
+                if (puntos > mejorPuntos) {
+                    mejorPuntos = puntos;
+                    mejor = empaquetar(resultado, id);
+                    if (puntos == maximoPosible) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        guardar(indice, clave, mejor);
+        return mejor;
+    }
+
+    /**
+     * Guarda un valor en la tabla, en la entrada libre del cubo o en la que
+     * tenga menos cartas por jugar.
+     *
+     * @param indice La primera entrada del cubo, como Entero.
+     * @param clave La clave de la posición, como long.
+     * @param valor El valor empaquetado, como Entero.
+     */
+    private void guardar(int indice, long clave, int valor) {
+        int profundidad = cartasEnManos();
+        int conProfundidad = valor | profundidad << 16;
+        if (claves[indice] == 0) {
+            claves[indice] = clave;
+            valores[indice] = conProfundidad;
+        } else if (claves[indice + 1] == 0) {
+            claves[indice + 1] = clave;
+            valores[indice + 1] = conProfundidad;
+        } else {
+            int sustituir = (valores[indice] >>> 16) <= (valores[indice + 1] >>> 16) ? indice : indice + 1;
+            claves[sustituir] = clave;
+            valores[sustituir] = conProfundidad;
+        }
+    }
+
+    /**
+     * Calcula el hash de Zobrist de las manos actuales.
+     *
+     * @return El hash, como long.
+     */
+    private long hashManos() {
+        long hash = 0;
+        for (int asiento = 0; asiento < numJugadores; asiento++) {
+            long mano = estado.getMano(asiento);
+            while (mano != 0) {
+                hash ^= CLAVES_CARTA[asiento][Long.numberOfTrailingZeros(mano)];
+                mano &= mano - 1;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Cuenta las cartas que quedan en todas las manos.
+     *
+     * @return El número de cartas, como Entero.
+     */
+    private int cartasEnManos() {
+        int cartas = 0;
+        for (int asiento = 0; asiento < numJugadores; asiento++) {
+            cartas += Long.bitCount(estado.getMano(asiento));
+        }
+        return cartas;
+    }
+
+    /**
+     * Te dice si el as de oros sigue en alguna mano.
+     *
+     * @return true si nadie lo ha colocado todavía, false si ya está en la
+     * mesa.
+     */
+    private boolean quedaAsDeOros() {
+        for (int asiento = 0; asiento < numJugadores; asiento++) {
+            if ((estado.getMano(asiento) & 1L << EstadoCompacto.AS_DE_OROS) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Calcula los puntos que gana un asiento con un desenlace.
+     *
+     * @param valor El desenlace empaquetado, como Entero.
+     * @param asiento El asiento, como Entero.
+     * @return Los puntos, como Entero.
+     */
+    private int puntos(int valor, int asiento) {
+        return (ganador(valor) == asiento ? PUNTOS_RONDA : 0) + (asOros(valor) == asiento ? puntosAsDeOros : 0);
+    }
+
+    private static int desenlace(int ganador, int asOros) {
+        return ganador | asOros << 3 | PASE << 6;
+    }
+
+    private static int empaquetar(int valor, int movimiento) {
+        return (valor & 0x3F) | movimiento << 6;
+    }
+
+    private static int ganador(int valor) {
+        return valor & 7;
+    }
+
+    private static int asOros(int valor) {
+        return valor >>> 3 & 7;
+    }
+
+    private static int movimiento(int valor) {
+        return valor >>> 6 & 0x3F;
+    }
+}
@@ -0,0 +1,430 @@
+/*
+ * Tabla de jugadas resueltas, compartida por los bots y guardada en disco: para cada posición de final
+ * de ronda (todas las manos a la vista) guarda la mejor jugada y cómo acaba la ronda, para que un bot
+ * conteste con una consulta en lugar de volver a buscar.
+ * Las posiciones se guardan en la forma canónica de Canonizador, con las manos en orden de turno
+ * empezando por quien juega, así que una posición y las que salen de intercambiar bastos, espadas y
+ * copas comparten entrada. Lo que vale el as de oros solo entra en la clave si el as todavía está en
+ * una mano.
+ * Estructura: el fichero es una tabla hash de tamaño fijo proyectada en memoria, con huecos de 16
+ * bytes (clave de 64 bits y datos) agrupados de 8 en 8; una clave solo se busca en su grupo, con sondeo
+ * lineal que da la vuelta dentro del grupo, y si el grupo está lleno se sustituye la primera entrada.
+ * Delante hay una caché en memoria sin objetos: arrays de claves y datos en conjuntos de 4 vías, con
+ * un bit de uso por entrada para sustituir con el algoritmo del reloj.
+ * Para que varios hilos compartan la tabla, los grupos se reparten en franjas con un cerrojo cada
+ * una, y la parte de la caché de cada franja va con el mismo cerrojo: dos consultas solo se esperan
+ * si caen en la misma franja. Cada hilo canoniza con su propio Canonizador.
+ * Uso para llenarla: java TablaJugadas fichero [rondas] [cartas como mucho]
+ */
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+public class TablaJugadas implements AutoCloseable {
+
+    private static final int MAGICO = 0x43515432; // "CQT2"
+    private static final int CABECERA = 16;
+    private static final int HUECO = 16;
+    private static final int SONDEOS = 8;
+    private static final int FRANJAS = 64;
+    private static final int VIAS = 4;
+    private static final int OCUPADO = 1 << 31;
+    // Solo en la caché: la entrada se ha usado desde la última vuelta del reloj
+    private static final int USADO = 1 << 30;
+    private static final int NADIE = 0xF;
+    private static final int PASE = 0xFF;
+
+    private final FileChannel canal;
+    private final MappedByteBuffer tabla;
+    private final int bits;
+    private final Object[] cerrojos = new Object[FRANJAS];
+    private final int conjuntosPorFranja;
+    // En la caché, datos 0 es un hueco libre: los datos guardados siempre llevan OCUPADO
+    private final long[] clavesCache;
+    private final int[] datosCache;
+    private final ThreadLocal<Canonizador> canonizadores = ThreadLocal.withInitial(Canonizador::new);
+    private final LongAdder aciertosCache = new LongAdder();
+    private final LongAdder aciertosFichero = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+
+    /**
+     * Abre una tabla guardada, o la crea vacía si el fichero no existe.
+     *
+     * @param fichero El fichero de la tabla, como Path.
+     * @param bitsCapacidad El logaritmo en base 2 del número de huecos, entre
+     * 10 y 26; si el fichero ya existe se usa el suyo, como Entero.
+     * @param tamCache El número de posiciones en la caché en memoria, que se
+     * redondea a una potencia de 2 de al menos 256, como Entero.
+     * @throws IOException Si no se puede abrir o crear el fichero.
+     */
+    public TablaJugadas(Path fichero, int bitsCapacidad, int tamCache) throws IOException {
+        canal = FileChannel.open(fichero, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (canal.size() == 0) {
+            if (bitsCapacidad < 10 || bitsCapacidad > 26) {
+                canal.close();
+                throw new IllegalArgumentException("Capacidad no válida: 2^" + bitsCapacidad);
+            }
+            bits = bitsCapacidad;
+            tabla = canal.map(FileChannel.MapMode.READ_WRITE, 0, CABECERA + ((long) HUECO << bits));
+            tabla.putInt(0, MAGICO);
+            tabla.putInt(4, bits);
+        } else {
+            tabla = canal.map(FileChannel.MapMode.READ_WRITE, 0, canal.size());
+            bits = tabla.getInt(4);
+            if (tabla.getInt(0) != MAGICO || canal.size() != CABECERA + ((long) HUECO << bits)) {
+                canal.close();
+                throw new IOException(fichero + " no es una tabla de jugadas");
+            }
+        }
+        for (int i = 0; i < FRANJAS; i++) {
+            cerrojos[i] = new Object();
+        }
+        int conjuntos = Math.max(1, tamCache / (FRANJAS * VIAS));
+        conjuntosPorFranja = 1 << (32 - Integer.numberOfLeadingZeros(conjuntos - 1));
+        clavesCache = new long[FRANJAS * conjuntosPorFranja * VIAS];
+        datosCache = new int[clavesCache.length];
+    }
+
+    /**
+     * Busca la solución de una posición.
+     *
+     * @param estado La mesa y las manos, como EstadoCompacto.
+     * @param orden Los asientos en orden de turno, como array de Entero.
+     * @param turno La posición en el orden del jugador que tiene el turno, como
+     * Entero.
+     * @param puntosAsDeOros Lo que vale el as de oros en esta ronda, como
+     * Entero.
+     * @return La solución guardada, o null si no está, como Solucion.
+     */
+    public Solucion buscar(EstadoCompacto estado, int[] orden, int turno, int puntosAsDeOros) {
+        Canonizador canonizador = canonizadores.get();
+        long clave = clave(canonizador, estado, orden, turno, puntosAsDeOros);
+        int datos;
+        synchronized (cerrojos[franja(clave)]) {
+            datos = buscarEnCache(clave);
+            if (datos != 0) {
+                aciertosCache.increment();
+            } else {
+                int hueco = buscarHueco(clave);
+                if (hueco < 0 || !ocupado(hueco)) {
+                    fallos.increment();
+                    return null;
+                }
+                aciertosFichero.increment();
+                datos = tabla.getInt(posicion(hueco) + 8);
+                meterEnCache(clave, datos);
+            }
+        }
+        return solucion(canonizador, datos, orden, turno, puntosAsDeOros);
+    }
+
+    /**
+     * Guarda la solución de una posición.
+     *
+     * @param estado La mesa y las manos, como EstadoCompacto.
+     * @param orden Los asientos en orden de turno, como array de Entero.
+     * @param turno La posición en el orden del jugador que tiene el turno, como
+     * Entero.
+     * @param puntosAsDeOros Lo que vale el as de oros en esta ronda, como
+     * Entero.
+     * @param solucion La solución de la posición, como Solucion.
+     */
+    public void guardar(EstadoCompacto estado, int[] orden, int turno, int puntosAsDeOros, Solucion solucion) {
+        Canonizador canonizador = canonizadores.get();
+        long clave = clave(canonizador, estado, orden, turno, puntosAsDeOros);
+        int mejor = solucion.getMejorCarta() == Solucion.PASE ? PASE : canonizador.aCanonica(solucion.getMejorCarta());
+        int datos = OCUPADO | mejor
+                | posicionEnOrden(solucion.getGanador(), orden, turno) << 8
+                | (solucion.getAsientoAsDeOros() < 0 ? NADIE : posicionEnOrden(solucion.getAsientoAsDeOros(), orden, turno)) << 12;
+        synchronized (cerrojos[franja(clave)]) {
+            int hueco = buscarHueco(clave);
+            if (hueco < 0) {
+                // Grupo lleno: se sustituye la primera entrada
+                hueco = primerHueco(clave);
+            }
+            int pos = posicion(hueco);
+            tabla.putLong(pos, clave);
+            tabla.putInt(pos + 8, datos);
+            int i = buscarIndiceCache(clave);
+            if (i >= 0) {
+                datosCache[i] = datos | USADO;
+            } else {
+                meterEnCache(clave, datos);
+            }
+        }
+    }
+
+    /**
+     * Devuelve la solución de una posición: la de la tabla si está, o la del
+     * solucionador, que se guarda en la tabla.
+     *
+     * @param solucionador El solucionador para las posiciones que no están,
+     * como Solucionador.
+     * @param estado La mesa y las manos, como EstadoCompacto.
+     * @param orden Los asientos en orden de turno, como array de Entero.
+     * @param turno La posición en el orden del jugador que tiene el turno, como
+     * Entero.
+     * @param puntosAsDeOros Lo que vale el as de oros en esta ronda, como
+     * Entero.
+     * @return La solución, como Solucion.
+     */
+    public Solucion resolver(Solucionador solucionador, EstadoCompacto estado, int[] orden, int turno, int puntosAsDeOros) {
+        Solucion solucion = buscar(estado, orden, turno, puntosAsDeOros);
+        if (solucion == null) {
+            // Se busca sin ningún cerrojo: los demás hilos pueden seguir consultando
+            solucion = solucionador.resolver(estado, orden, turno, puntosAsDeOros);
+            guardar(estado, orden, turno, puntosAsDeOros, solucion);
+        }
+        return solucion;
+    }
+
+    /**
+     * Devuelve cuántas consultas se han contestado desde la caché en memoria.
+     *
+     * @return Los aciertos de la caché, como long.
+     */
+    public long getAciertosCache() {
+        return aciertosCache.sum();
+    }
+
+    /**
+     * Devuelve cuántas consultas se han contestado desde el fichero.
+     *
+     * @return Los aciertos del fichero, como long.
+     */
+    public long getAciertosFichero() {
+        return aciertosFichero.sum();
+    }
+
+    /**
+     * Devuelve cuántas consultas no estaban en la tabla.
+     *
+     * @return Los fallos, como long.
+     */
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    /**
+     * Cuenta las posiciones guardadas en el fichero.
+     *
+     * @return El número de posiciones, como long.
+     */
+    public long contarPosiciones() {
+        long total = 0;
+        for (int grupo = 0; grupo < 1 << (bits - 3); grupo++) {
+            synchronized (cerrojos[grupo & (FRANJAS - 1)]) {
+                for (int hueco = grupo * SONDEOS; hueco < (grupo + 1) * SONDEOS; hueco++) {
+                    if (ocupado(hueco)) {
+                        total++;
+                    }
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Escribe en disco lo que quede pendiente y cierra el fichero. No se
+     * puede llamar mientras otros hilos usan la tabla.
+     *
+     * @throws IOException Si falla al cerrar.
+     */
+    @Override
+    public void close() throws IOException {
+        tabla.force();
+        canal.close();
+    }
+
+    /**
+     * Calcula la clave canónica de una posición; el canonizador se queda con
+     * la permutación para pasar las jugadas de una forma a otra.
+     */
+    private static long clave(Canonizador canonizador, EstadoCompacto estado, int[] orden, int turno, int puntosAsDeOros) {
+        canonizador.canonizar(estado, orden, turno);
+        boolean asEnMano = (canonizador.getMesa() & 1L << EstadoCompacto.AS_DE_OROS) == 0;
+        return canonizador.huella(asEnMano ? puntosAsDeOros : 0);
+    }
+
+    /**
+     * Convierte los datos guardados (en forma canónica) en la solución de la
+     * posición consultada.
+     */
+    private static Solucion solucion(Canonizador canonizador, int datos, int[] orden, int turno, int puntosAsDeOros) {
+        int n = orden.length;
+        int mejor = datos & 0xFF;
+        int ganador = orden[(turno + (datos >>> 8 & 0xF)) % n];
+        int asOros = datos >>> 12 & 0xF;
+        return new Solucion(mejor == PASE ? Solucion.PASE : canonizador.desdeCanonica(mejor), ganador,
+                asOros == NADIE ? -1 : orden[(turno + asOros) % n], puntosAsDeOros, 0);
+    }
+
+    /**
+     * Devuelve la franja de una clave: la de su grupo de huecos.
+     */
+    private int franja(long clave) {
+        return primerHueco(clave) / SONDEOS & (FRANJAS - 1);
+    }
+
+    private int buscarHueco(long clave) {
+        int primero = primerHueco(clave);
+        int grupo = primero & -SONDEOS;
+        for (int sondeo = 0; sondeo < SONDEOS; sondeo++) {
+            int hueco = grupo | (primero + sondeo) & (SONDEOS - 1);
+            if (!ocupado(hueco) || tabla.getLong(posicion(hueco)) == clave) {
+                return hueco;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Devuelve el primer índice del conjunto de una clave en la caché. Los
+     * conjuntos de una franja van seguidos y se eligen con los bits bajos de
+     * la clave, que no se usan para el hueco.
+     */
+    private int conjuntoCache(long clave) {
+        int conjunto = (int) clave & (conjuntosPorFranja - 1);
+        return (franja(clave) * conjuntosPorFranja + conjunto) * VIAS;
+    }
+
+    private int buscarIndiceCache(long clave) {
+        int primero = conjuntoCache(clave);
+        for (int i = primero; i < primero + VIAS; i++) {
+            if (datosCache[i] != 0 && clavesCache[i] == clave) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Busca una clave en la caché y la marca como usada.
+     *
+     * @return Los datos, o 0 si no está, como Entero.
+     */
+    private int buscarEnCache(long clave) {
+        int i = buscarIndiceCache(clave);
+        if (i < 0) {
+            return 0;
+        }
+        datosCache[i] |= USADO;
+        return datosCache[i] & ~USADO;
+    }
+
+    /**
+     * Mete una clave en su conjunto de la caché: en un hueco libre o, con el
+     * reloj, en la primera entrada que no se ha usado desde la última vuelta.
+     */
+    private void meterEnCache(long clave, int datos) {
+        int primero = conjuntoCache(clave);
+        int victima = primero;
+        for (int vuelta = 0; vuelta < 2 * VIAS; vuelta++) {
+            int i = primero + vuelta % VIAS;
+            if ((datosCache[i] & USADO) == 0) {
+                victima = i;
+                break;
+            }
+            datosCache[i] &= ~USADO;
+        }
+        clavesCache[victima] = clave;
+        datosCache[victima] = datos;
+    }
+
+    private int primerHueco(long clave) {
+        return (int) (clave >>> (64 - bits));
+    }
+
+    private boolean ocupado(int hueco) {
+        return (tabla.getInt(posicion(hueco) + 8) & OCUPADO) != 0;
+    }
+
+    private static int posicion(int hueco) {
+        return CABECERA + hueco * HUECO;
+    }
+
+    private static int posicionEnOrden(int asiento, int[] orden, int turno) {
+        int k = 0;
+        while (orden[(turno + k) % orden.length] != asiento) {
+            k++;
+        }
+        return k;
+    }
+
+    /**
+     * Llena una tabla jugando rondas al azar y resolviendo todas las
+     * posiciones por las que pasan cuando quedan pocas cartas.
+     *
+     * @param args El fichero, el número de rondas (1000 si no se da) y cuántas
+     * cartas pueden quedar en las manos como mucho (14 si no se da).
+     * @throws IOException Si falla el fichero.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Uso: java TablaJugadas fichero [rondas] [cartas]");
+            return;
+        }
+        int rondas = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int maxCartas = args.length > 2 ? Integer.parseInt(args[2]) : 14;
+        SplittableRandom random = new SplittableRandom(1);
+        Solucionador solucionador = new Solucionador(18);
+        long inicio = System.nanoTime();
+        try (TablaJugadas tabla = new TablaJugadas(Paths.get(args[0]), 22, 1 << 16)) {
+            for (int r = 0; r < rondas; r++) {
+                int n = 3 + random.nextInt(2);
+                int[] orden = new int[n];
+                for (int i = 0; i < n; i++) {
+                    orden[i] = i;
+                }
+                EstadoCompacto estado = repartir(n, random);
+                int puntosAsDeOros = 2 * (1 + random.nextInt(3));
+                int turno = 0;
+                int cartas = Carta.NUM_CARTAS;
+                while (true) {
+                    int asiento = orden[turno];
+                    if (cartas <= maxCartas) {
+                        tabla.resolver(solucionador, estado, orden, turno, puntosAsDeOros);
+                    }
+                    long legales = estado.jugadasLegales(asiento);
+                    if (legales != 0) {
+                        for (int salto = random.nextInt(Long.bitCount(legales)); salto > 0; salto--) {
+                            legales &= legales - 1;
+                        }
+                        estado.colocar(asiento, Long.numberOfTrailingZeros(legales));
+                        cartas--;
+                        if (estado.manoVacia(asiento)) {
+                            break;
+                        }
+                    }
+                    turno = (turno + 1) % n;
+                }
+            }
+            System.out.printf("%d posiciones en la tabla, %d aciertos, %d nuevas (%.1f s)%n", tabla.contarPosiciones(),
+                    tabla.getAciertosCache() + tabla.getAciertosFichero(), tabla.getFallos(), (System.nanoTime() - inicio) / 1e9);
+        }
+    }
+
+    private static EstadoCompacto repartir(int n, SplittableRandom random) {
+        int[] ids = new int[Carta.NUM_CARTAS];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i;
+        }
+        for (int i = ids.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int aux = ids[i];
+            ids[i] = ids[j];
+            ids[j] = aux;
+        }
+        EstadoCompacto estado = new EstadoCompacto(n);
+        for (int i = 0; i < ids.length; i++) {
+            estado.setMano(i % n, estado.getMano(i % n) | 1L << ids[i]);
+        }
+        return estado;
+    }
+}
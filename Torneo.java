@@ -0,0 +1,123 @@
+/*
+ * Juega muchas partidas sin interfaz repartiéndolas entre todos los núcleos con fork-join.
+ * Cada trozo de partidas tiene su propio SplittableRandom, sus propias políticas, su propio
+ * Simulador y sus propias EstadisticasTorneo, que se suman al final. No hay nada compartido
+ * entre hilos, y con la misma semilla se obtiene el mismo resultado sea cual sea el número de hilos
+ * (salvo con políticas que buscan durante un tiempo, como PoliticaISMCTS).
+ * En cada partida las estrategias rotan de asiento para que ninguna tenga ventaja por su sitio.
+ */
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class Torneo {
+
+    private static final int PARTIDAS_POR_TROZO = 2048;
+
+    private final FabricaPolitica[] estrategias;
+    private final ForkJoinPool pool;
+
+    /**
+     * Crea un nuevo torneo que usa todos los núcleos.
+     *
+     * @param estrategias Una estrategia por asiento, 3 o 4, como
+     * FabricaPolitica.
+     */
+    public Torneo(FabricaPolitica... estrategias) {
+        this(ForkJoinPool.commonPool(), estrategias);
+    }
+
+    /**
+     * Crea un nuevo torneo que usa un pool concreto.
+     *
+     * @param pool El pool donde se juegan las partidas, como ForkJoinPool.
+     * @param estrategias Una estrategia por asiento, 3 o 4, como
+     * FabricaPolitica.
+     */
+    public Torneo(ForkJoinPool pool, FabricaPolitica... estrategias) {
+        if (estrategias.length != 3 && estrategias.length != 4) {
+            throw new IllegalArgumentException("El juego es para 3 o 4 jugadores");
+        }
+        this.pool = pool;
+        this.estrategias = estrategias.clone();
+    }
+
+    /**
+     * Juega un número de partidas en paralelo.
+     *
+     * @param numPartidas El número de partidas, como long.
+     * @param semilla La semilla de la que salen todos los generadores, como
+     * long.
+     * @return Las estadísticas de cada estrategia, como EstadisticasTorneo.
+     */
+    public EstadisticasTorneo jugar(long numPartidas, long semilla) {
+        return pool.invoke(new Trozo(0, numPartidas, new SplittableRandom(semilla)));
+    }
+
+    /**
+     * Juega en este hilo las partidas de un rango.
+     *
+     * @param desde La primera partida del rango, como long.
+     * @param hasta La partida siguiente a la última del rango, como long.
+     * @param random El generador del rango, como SplittableRandom.
+     * @return Las estadísticas del rango, como EstadisticasTorneo.
+     */
+    private EstadisticasTorneo jugarRango(long desde, long hasta, SplittableRandom random) {
+        int n = estrategias.length;
+        Politica[] politicas = new Politica[n];
+        for (int e = 0; e < n; e++) {
+            politicas[e] = estrategias[e].crear(random.split());
+        }
+        // Un simulador por rotación: en la rotación r el asiento s lo ocupa la estrategia (s + r) % n
+        Simulador[] simuladores = new Simulador[n];
+        int[][] estrategiaDeAsiento = new int[n][n];
+        for (int r = 0; r < n; r++) {
+            Politica[] sentados = new Politica[n];
+            for (int s = 0; s < n; s++) {
+                estrategiaDeAsiento[r][s] = (s + r) % n;
+                sentados[s] = politicas[(s + r) % n];
+            }
+            simuladores[r] = new Simulador(sentados);
+        }
+
+        EstadisticasTorneo estadisticas = new EstadisticasTorneo(n);
+        for (long partida = desde; partida < hasta; partida++) {
+            int r = (int) (partida % n);
+            estadisticas.anotar(simuladores[r].jugarPartida(random), estrategiaDeAsiento[r]);
+        }
+        return estadisticas;
+    }
+
+    /**
+     * Un rango de partidas que se parte en dos hasta que es lo bastante pequeño
+     * para jugarlo de seguido.
+     */
+    private class Trozo extends RecursiveTask<EstadisticasTorneo> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long desde;
+        private final long hasta;
+        private final SplittableRandom random;
+
+        Trozo(long desde, long hasta, SplittableRandom random) {
+            this.desde = desde;
+            this.hasta = hasta;
+            this.random = random;
+        }
+
+        @Override
+        protected EstadisticasTorneo compute() {
+            if (hasta - desde <= PARTIDAS_POR_TROZO) {
+                return jugarRango(desde, hasta, random);
+            }
+            long mitad = (desde + hasta) >>> 1;
+            Trozo izquierda = new Trozo(desde, mitad, random.split());
+            Trozo derecha = new Trozo(mitad, hasta, random.split());
+            izquierda.fork();
+            EstadisticasTorneo resultado = derecha.compute();
+            return resultado.sumar(izquierda.join());
+        }
+    }
+}
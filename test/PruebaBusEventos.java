@@ -0,0 +1,105 @@
+/*
+ * Pruebas del anillo de BusEventos: una suscripción que se queda atrás se salta lo sobrescrito y lo
+ * cuenta como perdido, sin desordenar nada; con varios hilos publicando a la vez no se pierde la
+ * cuenta; y al cerrar una suscripción con hilo se entrega todo lo publicado antes.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class PruebaBusEventos {
+
+    private PruebaBusEventos() {
+    }
+
+    /**
+     * Una suscripción que no lee en 100 eventos solo ve los 8 últimos.
+     */
+    static void desbordamiento() {
+        BusEventos bus = new BusEventos(8);
+        BusEventos.Suscripcion lenta = bus.suscribir();
+        for (int i = 0; i < 100; i++) {
+            bus.publicar(Evento.pase(1, i % 3));
+        }
+        List<Long> secuencias = new ArrayList<>();
+        int leidos = lenta.sondear(evento -> secuencias.add(evento.getSecuencia()));
+        Pruebas.comprobarIguales(8, leidos, "Eventos leídos");
+        Pruebas.comprobarIguales(92L, lenta.getPerdidos(), "Eventos perdidos");
+        for (int i = 0; i < secuencias.size(); i++) {
+            Pruebas.comprobarIguales(92L + i, secuencias.get(i), "Secuencia " + i);
+        }
+        Pruebas.comprobarIguales(100L, lenta.getSecuencia(), "Siguiente secuencia de la suscripción");
+        Pruebas.comprobarIguales(0, lenta.sondear(evento -> {
+        }), "Eventos leídos sin publicar nada");
+    }
+
+    /**
+     * Un evento no se puede publicar dos veces.
+     */
+    static void republicar() {
+        BusEventos bus = new BusEventos(8);
+        Evento evento = Evento.pase(1, 0);
+        bus.publicar(evento);
+        Pruebas.comprobarLanza(IllegalArgumentException.class, () -> bus.publicar(evento), "Publicar dos veces");
+    }
+
+    /**
+     * Cuatro hilos publican a la vez en un anillo pequeño mientras otro lee:
+     * lo leído va en orden y lo leído más lo perdido es todo lo publicado.
+     */
+    static void variosPublicadores() throws InterruptedException {
+        int hilos = 4;
+        int porHilo = 200_000;
+        BusEventos bus = new BusEventos(1024);
+        BusEventos.Suscripcion suscripcion = bus.suscribir();
+        long[] ultima = {-1};
+        long[] leidos = {0};
+        boolean[] enOrden = {true};
+        Thread[] publicadores = new Thread[hilos];
+        for (int h = 0; h < hilos; h++) {
+            publicadores[h] = new Thread(() -> {
+                for (int i = 0; i < porHilo; i++) {
+                    bus.publicar(Evento.pase(1, 0));
+                }
+            });
+            publicadores[h].start();
+        }
+        boolean vivos = true;
+        while (vivos) {
+            vivos = false;
+            for (Thread publicador : publicadores) {
+                vivos |= publicador.isAlive();
+            }
+            suscripcion.sondear(evento -> {
+                enOrden[0] &= evento.getSecuencia() > ultima[0];
+                ultima[0] = evento.getSecuencia();
+                leidos[0]++;
+            });
+        }
+        for (Thread publicador : publicadores) {
+            publicador.join();
+        }
+        Pruebas.comprobar(enOrden[0], "Los eventos se tienen que leer en orden de secuencia");
+        Pruebas.comprobarIguales((long) hilos * porHilo, bus.getSiguiente(), "Eventos publicados");
+        Pruebas.comprobarIguales(bus.getSiguiente(), leidos[0] + suscripcion.getPerdidos(), "Leídos más perdidos");
+    }
+
+    /**
+     * Al cerrar una suscripción con hilo, su consumidor ya ha recibido todo lo
+     * publicado antes, en orden.
+     */
+    static void cerrarEntregaTodo() {
+        BusEventos bus = new BusEventos(1 << 14);
+        List<Long> recibidos = new ArrayList<>();
+        BusEventos.Suscripcion suscripcion = bus.suscribir("prueba-bus", evento -> recibidos.add(evento.getSecuencia()));
+        for (int i = 0; i < 10_000; i++) {
+            bus.publicar(Evento.pase(1, 0));
+        }
+        suscripcion.close();
+        Pruebas.comprobarIguales(10_000, recibidos.size(), "Eventos recibidos");
+        for (int i = 0; i < recibidos.size(); i++) {
+            Pruebas.comprobarIguales((long) i, recibidos.get(i), "Secuencia " + i);
+        }
+        Pruebas.comprobarIguales(0L, suscripcion.getPerdidos(), "Eventos perdidos");
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Pruebas de Canonizador: una posición y las que salen de reordenar bastos, espadas y copas tienen la
+ * misma forma canónica y la misma huella, que además es la más pequeña de las seis; las cartas se
+ * pasan a la forma canónica y se vuelven a pasar a la original sin cambiar; y escribirEn deja un
+ * estado con esa misma mesa y esas manos.
+ */
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+final class PruebaCanonizador {
+
+    private static final int POSICIONES = 3000;
+
+    private PruebaCanonizador() {
+    }
+
+    /**
+     * Reordenar los palos no cambia la forma canónica, y la forma canónica es
+     * la menor de todas las reordenaciones.
+     */
+    static void invariante() {
+        SplittableRandom random = new SplittableRandom(22);
+        Canonizador canonizador = new Canonizador();
+        Canonizador otro = new Canonizador();
+        for (int i = 0; i < POSICIONES; i++) {
+            EstadoCompacto estado = posicion(3 + i % 2, random);
+            int n = estado.getNumJugadores();
+            long[] manos = manos(estado);
+            canonizador.canonizar(estado.getCartasEnMesa(), manos, n);
+            long[] canonica = tupla(canonizador);
+            long huella = canonizador.huella(i);
+            for (int p = 0; p < Canonizador.NUM_PERMUTACIONES; p++) {
+                long[] permutadas = new long[n];
+                for (int k = 0; k < n; k++) {
+                    permutadas[k] = Canonizador.permutar(manos[k], p);
+                }
+                long mesa = Canonizador.permutar(estado.getCartasEnMesa(), p);
+                otro.canonizar(mesa, permutadas, n);
+                String que = "Posición " + i + ", permutación " + p;
+                Pruebas.comprobarIguales(Arrays.toString(canonica), Arrays.toString(tupla(otro)), que);
+                Pruebas.comprobarIguales(huella, otro.huella(i), que + ", huella");
+                long[] sinCanonizar = new long[n + 1];
+                sinCanonizar[0] = mesa;
+                System.arraycopy(permutadas, 0, sinCanonizar, 1, n);
+                Pruebas.comprobar(Arrays.compareUnsigned(canonica, sinCanonizar) <= 0, que + ": la forma canónica tiene que ser la menor");
+            }
+        }
+    }
+
+    /**
+     * Cada carta va y vuelve de la forma canónica sin cambiar, lleva a las
+     * cartas de la forma canónica, y escribirEn deja el mismo estado.
+     */
+    static void idaYVuelta() {
+        SplittableRandom random = new SplittableRandom(23);
+        Canonizador canonizador = new Canonizador();
+        for (int i = 0; i < POSICIONES; i++) {
+            EstadoCompacto estado = posicion(3 + i % 2, random);
+            int n = estado.getNumJugadores();
+            int[] orden = new int[n];
+            for (int k = 0; k < n; k++) {
+                orden[k] = (k + i) % n;
+            }
+            int turno = random.nextInt(n);
+            int permutacion = canonizador.canonizar(estado, orden, turno);
+            String que = "Posición " + i;
+            Pruebas.comprobarIguales(Canonizador.inversa(Canonizador.inversa(permutacion)), permutacion, que + ", inversa");
+            for (int id = 0; id < Carta.NUM_CARTAS; id++) {
+                int canonica = canonizador.aCanonica(id);
+                Pruebas.comprobarIguales(id, canonizador.desdeCanonica(canonica), que + ", carta " + id);
+                Pruebas.comprobarIguales(estado.getCartasEnMesa() >>> id & 1L, canonizador.getMesa() >>> canonica & 1L, que + ", mesa, carta " + id);
+                for (int k = 0; k < n; k++) {
+                    long enMano = estado.getMano(orden[(turno + k) % n]) >>> id & 1L;
+                    Pruebas.comprobarIguales(enMano, canonizador.getMano(k) >>> canonica & 1L, que + ", mano " + k + ", carta " + id);
+                }
+            }
+            EstadoCompacto escrito = new EstadoCompacto(n);
+            canonizador.escribirEn(escrito);
+            Pruebas.comprobarIguales(canonizador.getMesa(), escrito.getCartasEnMesa(), que + ", mesa escrita");
+            for (int k = 0; k < n; k++) {
+                Pruebas.comprobarIguales(canonizador.getMano(k), escrito.getMano(k), que + ", mano escrita " + k);
+                Pruebas.comprobarIguales(LoteJugadas.jugables(escrito.getCartasEnMesa()) & escrito.getMano(k),
+                        escrito.jugadasLegales(k), que + ", jugadas legales de la mano escrita " + k);
+            }
+        }
+    }
+
+    /**
+     * Una posición de una ronda jugada al azar un número de turnos al azar.
+     */
+    private static EstadoCompacto posicion(int numJugadores, SplittableRandom random) {
+        long[] manos = new long[numJugadores];
+        int[] cartas = new int[numJugadores];
+        Arrays.fill(cartas, Carta.NUM_CARTAS / numJugadores);
+        new SimulacionRonda(SimulacionRonda.AL_AZAR).repartir(0, -1, 0, cartas, manos, random);
+        EstadoCompacto estado = new EstadoCompacto(numJugadores);
+        for (int i = 0; i < numJugadores; i++) {
+            estado.setMano(i, manos[i]);
+        }
+        int[] orden = new int[numJugadores];
+        for (int i = 0; i < numJugadores; i++) {
+            orden[i] = i;
+        }
+        new SimulacionRonda(SimulacionRonda.AL_AZAR).jugarHasta(estado, orden, 0, 1 + random.nextInt(Carta.NUM_CARTAS), random);
+        return estado;
+    }
+
+    private static long[] manos(EstadoCompacto estado) {
+        long[] manos = new long[estado.getNumJugadores()];
+        for (int k = 0; k < manos.length; k++) {
+            manos[k] = estado.getMano(k);
+        }
+        return manos;
+    }
+
+    private static long[] tupla(Canonizador canonizador) {
+        long[] tupla = new long[canonizador.getNumManos() + 1];
+        tupla[0] = canonizador.getMesa();
+        for (int k = 0; k < canonizador.getNumManos(); k++) {
+            tupla[k + 1] = canonizador.getMano(k);
+        }
+        return tupla;
+    }
+}
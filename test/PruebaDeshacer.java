@@ -0,0 +1,221 @@
+/*
+ * Pruebas de deshacer y rehacer: se juegan rondas al azar guardando el estado antes de cada jugada, se
+ * deshacen todas en orden inverso comprobando que se vuelve a cada estado guardado, y se rehacen hasta
+ * llegar otra vez al final. Se hace con Mesa y Jugada, con EstadoCompacto y con las instantáneas de
+ * Partida, y se comprueba que no se puede quitar una carta que no está en un extremo de su palo.
+ */
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+
+final class PruebaDeshacer {
+
+    private static final int RONDAS = 200;
+    private static final int NUM_JUGADORES = 3;
+
+    private PruebaDeshacer() {
+    }
+
+    /**
+     * Deshace y rehace rondas enteras con Mesa y Jugada.
+     */
+    static void mesaYJugada() {
+        for (int semilla = 0; semilla < RONDAS; semilla++) {
+            SplittableRandom random = new SplittableRandom(semilla);
+            Mesa mesa = new Mesa();
+            Jugador[] jugadores = repartir(new Baraja(semilla));
+            Deque<Jugada> jugadas = new ArrayDeque<>();
+            Deque<String> antes = new ArrayDeque<>();
+            for (int turno = 0; !algunaManoVacia(jugadores); turno = (turno + 1) % NUM_JUGADORES) {
+                Jugador jugador = jugadores[turno];
+                long legales = mesa.jugadasLegales(jugador);
+                if (legales != 0) {
+                    antes.push(describir(mesa, jugadores));
+                    int id = SimulacionRonda.bitAlAzar(legales, random);
+                    jugadas.push(jugador.jugar(mesa, jugador.indiceDe(id)));
+                }
+            }
+            String fin = describir(mesa, jugadores);
+            List<Jugada> deshechas = new ArrayList<>();
+            while (!jugadas.isEmpty()) {
+                Jugada jugada = jugadas.pop();
+                jugada.deshacer();
+                Pruebas.comprobar(jugada.estaDeshecha(), "La jugada " + jugada + " tiene que quedar deshecha");
+                Pruebas.comprobarIguales(antes.pop(), describir(mesa, jugadores), "Semilla " + semilla + ", deshacer " + jugada);
+                deshechas.add(jugada);
+            }
+            Pruebas.comprobarIguales(0L, mesa.getColocadas(), "Semilla " + semilla + ", mesa al deshacer todo");
+            for (int i = deshechas.size() - 1; i >= 0; i--) {
+                deshechas.get(i).rehacer();
+            }
+            Pruebas.comprobarIguales(fin, describir(mesa, jugadores), "Semilla " + semilla + ", rehacer todo");
+        }
+    }
+
+    /**
+     * Una jugada solo se deshace si su carta está en un extremo de su palo, y
+     * el 5 solo cuando es la última carta del palo.
+     */
+    static void mesaFueraDeOrden() {
+        Mesa mesa = new Mesa();
+        Jugador jugador = new Jugador("Prueba");
+        Jugada[] jugadas = new Jugada[4];
+        int[] numeros = {5, 6, 7, 4};
+        for (int numero : numeros) {
+            jugador.insertarCarta(Carta.of(numero, Carta.tipoPalo.BASTOS));
+        }
+        for (int i = 0; i < numeros.length; i++) {
+            jugadas[i] = jugador.jugar(mesa, jugador.indiceDe(Carta.of(numeros[i], Carta.tipoPalo.BASTOS)));
+        }
+        Pruebas.comprobarLanza(IllegalStateException.class, jugadas[0]::deshacer, "Deshacer el 5 con más cartas");
+        Pruebas.comprobarLanza(IllegalStateException.class, jugadas[1]::deshacer, "Deshacer el 6 con el 7 puesto");
+        Pruebas.comprobarIguales(0L, jugador.getMascaraMano(), "Mano tras los intentos fallidos");
+        jugadas[3].deshacer();
+        jugadas[2].deshacer();
+        jugadas[1].deshacer();
+        jugadas[0].deshacer();
+        Pruebas.comprobarIguales(0L, mesa.getColocadas(), "Mesa al deshacer en orden");
+        Pruebas.comprobarLanza(IllegalStateException.class, jugadas[0]::deshacer, "Deshacer dos veces");
+    }
+
+    /**
+     * Deshace rondas enteras con EstadoCompacto.
+     */
+    static void estadoCompacto() {
+        for (int semilla = 0; semilla < RONDAS; semilla++) {
+            SplittableRandom random = new SplittableRandom(semilla);
+            EstadoCompacto estado = EstadoCompacto.desde(new Mesa(), Arrays.asList(repartir(new Baraja(semilla))));
+            EstadoCompacto inicial = new EstadoCompacto(NUM_JUGADORES);
+            inicial.copiarDe(estado);
+            Deque<int[]> jugadas = new ArrayDeque<>();
+            Deque<String> antes = new ArrayDeque<>();
+            for (int turno = 0; !algunaManoVacia(estado); turno = (turno + 1) % NUM_JUGADORES) {
+                long legales = estado.jugadasLegales(turno);
+                if (legales != 0) {
+                    antes.push(describir(estado));
+                    int id = SimulacionRonda.bitAlAzar(legales, random);
+                    estado.colocar(turno, id);
+                    jugadas.push(new int[]{turno, id});
+                }
+            }
+            while (!jugadas.isEmpty()) {
+                int[] jugada = jugadas.pop();
+                estado.deshacer(jugada[0], jugada[1]);
+                Pruebas.comprobarIguales(antes.pop(), describir(estado), "Semilla " + semilla + ", deshacer " + jugada[1]);
+            }
+            Pruebas.comprobarIguales(describir(inicial), describir(estado), "Semilla " + semilla + ", deshacer todo");
+        }
+    }
+
+    /**
+     * EstadoCompacto no quita cartas que no están en un extremo de su palo.
+     */
+    static void estadoCompactoFueraDeOrden() {
+        EstadoCompacto estado = new EstadoCompacto(NUM_JUGADORES);
+        int[] numeros = {5, 6, 7, 4};
+        for (int numero : numeros) {
+            estado.colocarEnMesa(EstadoCompacto.id(numero, 1));
+        }
+        String antes = describir(estado);
+        Pruebas.comprobarLanza(IllegalStateException.class, () -> estado.deshacer(0, EstadoCompacto.id(5, 1)), "Quitar el 5 con más cartas");
+        Pruebas.comprobarLanza(IllegalStateException.class, () -> estado.deshacer(0, EstadoCompacto.id(6, 1)), "Quitar el 6 con el 7 puesto");
+        Pruebas.comprobarLanza(IllegalStateException.class, () -> estado.deshacer(0, EstadoCompacto.id(9, 1)), "Quitar una carta que no está");
+        Pruebas.comprobarLanza(IllegalStateException.class, () -> estado.deshacer(0, EstadoCompacto.id(5, 2)), "Quitar de un palo vacío");
+        Pruebas.comprobarIguales(antes, describir(estado), "Estado tras los intentos fallidos");
+    }
+
+    /**
+     * Una partida vuelve a una instantánea después de jugar varias rondas.
+     */
+    static void instantaneas() {
+        for (int semilla = 0; semilla < 50; semilla++) {
+            SplittableRandom random = new SplittableRandom(semilla);
+            Partida partida = new Partida(List.of("a", "b", "c"), new SplittableRandom(semilla));
+            partida.empezar();
+            for (int i = random.nextInt(40); i > 0 && !partida.estaTerminada(); i--) {
+                jugarAlAzar(partida, random);
+            }
+            if (partida.estaTerminada()) {
+                continue;
+            }
+            Instantanea instantanea = partida.instantanea();
+            String antes = describir(partida);
+            while (!partida.estaTerminada()) {
+                jugarAlAzar(partida, random);
+            }
+            partida.restaurar(instantanea);
+            Pruebas.comprobarIguales(antes, describir(partida), "Semilla " + semilla + ", restaurar");
+        }
+    }
+
+    private static Jugador[] repartir(Baraja baraja) {
+        baraja.barajarCartas();
+        Jugador[] jugadores = new Jugador[NUM_JUGADORES];
+        for (int i = 0; i < NUM_JUGADORES; i++) {
+            jugadores[i] = new Jugador("Jugador " + (i + 1));
+        }
+        for (int i = 0; !baraja.estaVacia(); i = (i + 1) % NUM_JUGADORES) {
+            jugadores[i].insertarCarta(baraja.sacarCarta());
+        }
+        return jugadores;
+    }
+
+    private static void jugarAlAzar(Partida partida, SplittableRandom random) {
+        Jugador jugador = partida.getJugador(partida.getAsientoDeTurno());
+        // Partida salta sola a quien no puede colocar, así que el de turno siempre tiene alguna
+        long legales = partida.getMesa().jugadasLegales(jugador);
+        partida.colocar(jugador.indiceDe(SimulacionRonda.bitAlAzar(legales, random)));
+    }
+
+    private static boolean algunaManoVacia(Jugador[] jugadores) {
+        for (Jugador jugador : jugadores) {
+            if (jugador.manoVacia()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean algunaManoVacia(EstadoCompacto estado) {
+        for (int i = 0; i < NUM_JUGADORES; i++) {
+            if (estado.manoVacia(i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String describir(Mesa mesa, Jugador[] jugadores) {
+        StringBuilder sb = new StringBuilder(Long.toHexString(mesa.getColocadas()));
+        sb.append(' ').append(Long.toHexString(mesa.getJugables()));
+        for (Jugador jugador : jugadores) {
+            sb.append(' ').append(Long.toHexString(jugador.getMascaraMano())).append('/').append(jugador.getCartasEnMano());
+        }
+        return sb.toString();
+    }
+
+    private static String describir(EstadoCompacto estado) {
+        StringBuilder sb = new StringBuilder(Long.toHexString(estado.getCartasEnMesa()));
+        for (int palo = 0; palo < EstadoCompacto.NUM_PALOS; palo++) {
+            sb.append(' ').append(estado.getMinimo(palo)).append('-').append(estado.getMaximo(palo));
+        }
+        for (int i = 0; i < estado.getNumJugadores(); i++) {
+            sb.append(' ').append(Long.toHexString(estado.getMano(i)));
+        }
+        return sb.toString();
+    }
+
+    private static String describir(Partida partida) {
+        StringBuilder sb = new StringBuilder(Long.toHexString(partida.getMesa().getColocadas()));
+        sb.append(" turno ").append(partida.getAsientoDeTurno()).append(" ronda ").append(partida.getRondas());
+        for (int i = 0; i < partida.getNumJugadores(); i++) {
+            Jugador jugador = partida.getJugador(i);
+            sb.append(' ').append(Long.toHexString(jugador.getMascaraMano())).append('/').append(jugador.getPuntuacion());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Pruebas de que las simulaciones sin interfaz son reproducibles: con la misma semilla, Simulador juega
+ * la misma partida, también después de haber jugado otras.
+ */
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+final class PruebaDeterminismo {
+
+    private PruebaDeterminismo() {
+    }
+
+    /**
+     * Dos simuladores con las mismas políticas juegan igual las mismas
+     * semillas, y uno con políticas sin estado vuelve a jugar igual una
+     * semilla anterior aunque entre medias haya jugado otras.
+     */
+    static void simulador() {
+        Simulador a = nuevoSimulador();
+        Simulador b = nuevoSimulador();
+        for (int semilla = 0; semilla < 200; semilla++) {
+            comprobarIguales(a.jugarPartida(semilla), b.jugarPartida(semilla), "Semilla " + semilla);
+        }
+        Simulador c = new Simulador(new PoliticaPrimeraCarta(), new PoliticaPrimeraCarta(), new PoliticaPrimeraCarta(),
+                new PoliticaPrimeraCarta());
+        ResultadoPartida[] primeras = new ResultadoPartida[200];
+        for (int semilla = 0; semilla < primeras.length; semilla++) {
+            primeras[semilla] = c.jugarPartida(semilla);
+        }
+        for (int semilla = primeras.length - 1; semilla >= 0; semilla -= 7) {
+            comprobarIguales(primeras[semilla], c.jugarPartida(semilla), "Semilla " + semilla + " repetida");
+        }
+    }
+
+    private static Simulador nuevoSimulador() {
+        // Las políticas aleatorias llevan su propio generador: la semilla de la partida solo baraja y elige quién abre
+        return new Simulador(new PoliticaAleatoria(new SplittableRandom(1)), new PoliticaPrimeraCarta(),
+                new PoliticaAleatoria(new SplittableRandom(2)));
+    }
+
+    private static void comprobarIguales(ResultadoPartida esperado, ResultadoPartida obtenido, String que) {
+        int n = esperado.getNumJugadores();
+        int[] puntosEsperados = new int[n];
+        int[] puntosObtenidos = new int[n];
+        for (int i = 0; i < n; i++) {
+            puntosEsperados[i] = esperado.getPuntuacion(i);
+            puntosObtenidos[i] = obtenido.getPuntuacion(i);
+        }
+        Pruebas.comprobarIguales(Arrays.toString(puntosEsperados), Arrays.toString(puntosObtenidos), que + ", puntos");
+        Pruebas.comprobarIguales(esperado.getRondas(), obtenido.getRondas(), que + ", rondas");
+        Pruebas.comprobarIguales(esperado.getAsientoAsDeOros(), obtenido.getAsientoAsDeOros(), que + ", as de oros");
+        Pruebas.comprobarIguales(esperado.getAsientoInicial(), obtenido.getAsientoInicial(), que + ", asiento inicial");
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Pruebas de Juego sin consola: con IUSilenciosa cada asiento juega con su Politica, que se entera de
+ * las rondas, las jugadas y los pases como en Simulador, aunque los jugadores se llamen igual.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+final class PruebaJuego {
+
+    private PruebaJuego() {
+    }
+
+    /**
+     * Una partida con PoliticaISMCTS, que necesita los avisos, y tres
+     * jugadores con el mismo nombre: a cada política solo se le pide carta
+     * para el jugador de su asiento.
+     */
+    static void iuSilenciosa() {
+        for (int semilla = 0; semilla < 5; semilla++) {
+            Espia[] espias = new Espia[3];
+            Politica[] politicas = new Politica[3];
+            for (int i = 0; i < espias.length; i++) {
+                Politica debajo = i == 0 ? new PoliticaISMCTS(new SplittableRandom(semilla), 200) : new PoliticaPrimeraCarta();
+                espias[i] = new Espia(debajo);
+                politicas[i] = espias[i];
+            }
+            IUSilenciosa iu = new IUSilenciosa(List.of("bot", "bot", "bot"), politicas);
+            Juego juego = new Juego(iu, new SplittableRandom(semilla));
+            juego.jugar();
+            Pruebas.comprobar(!juego.listarGanadores().isEmpty(), "Semilla " + semilla + ": tiene que haber ganadores");
+            for (int i = 0; i < espias.length; i++) {
+                Espia espia = espias[i];
+                Pruebas.comprobarIguales(i, espia.asiento, "Semilla " + semilla + ", asiento avisado");
+                Pruebas.comprobarIguales(1, espia.jugadores.size(), "Semilla " + semilla + ", jugadores del asiento " + i);
+                for (int j = 0; j < i; j++) {
+                    Pruebas.comprobar(espias[j].jugadores.get(0) != espia.jugadores.get(0),
+                            "Semilla " + semilla + ": los asientos " + j + " y " + i + " juegan por el mismo jugador");
+                }
+                Pruebas.comprobarIguales(espias[0].jugadas, espia.jugadas, "Semilla " + semilla + ", jugadas avisadas");
+                Pruebas.comprobarIguales(espias[0].pases, espia.pases, "Semilla " + semilla + ", pases avisados");
+            }
+            Pruebas.comprobar(espias[0].jugadas > 0, "Semilla " + semilla + ": se tiene que avisar de las jugadas");
+        }
+    }
+
+    /**
+     * Una política que apunta lo que le llega y juega con otra.
+     */
+    private static final class Espia implements Politica {
+
+        private final Politica debajo;
+        private final List<Jugador> jugadores = new ArrayList<>();
+        private int asiento = -1;
+        private int jugadas;
+        private int pases;
+
+        Espia(Politica debajo) {
+            this.debajo = debajo;
+        }
+
+        @Override
+        public int elegirCarta(Jugador jugador, Mesa mesa) {
+            if (!jugadores.contains(jugador)) {
+                jugadores.add(jugador);
+            }
+            return debajo.elegirCarta(jugador, mesa);
+        }
+
+        @Override
+        public void empezarRonda(int asiento, int[] orden, int puntosAsDeOros) {
+            this.asiento = asiento;
+            debajo.empezarRonda(asiento, orden, puntosAsDeOros);
+        }
+
+        @Override
+        public void jugada(int asiento, Carta carta) {
+            jugadas++;
+            debajo.jugada(asiento, carta);
+        }
+
+        @Override
+        public void pase(int asiento) {
+            pases++;
+            debajo.pase(asiento);
+        }
+    }
+}
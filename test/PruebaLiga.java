@@ -0,0 +1,37 @@
+/*
+ * Pruebas de Liga: con la misma semilla, una liga tiene que dar la misma clasificación en un pool de
+ * un hilo que en uno de cuatro.
+ */
+
+import java.util.concurrent.ForkJoinPool;
+
+final class PruebaLiga {
+
+    private static final FabricaPolitica[] ESTRATEGIAS = {
+        PoliticaAleatoria::new,
+        random -> new PoliticaPrimeraCarta(),
+        PoliticaAleatoria::new
+    };
+
+    private PruebaLiga() {
+    }
+
+    /**
+     * Una liga da la misma clasificación en un pool de 1 hilo que en uno de 4.
+     */
+    static void determinismo() {
+        Pruebas.comprobarIguales(jugarLiga(1), jugarLiga(4), "Clasificación");
+    }
+
+    private static String jugarLiga(int hilos) {
+        ForkJoinPool pool = new ForkJoinPool(hilos);
+        try {
+            Liga liga = new Liga(pool, 3, new String[]{"Aleatoria", "PrimeraCarta", "Aleatoria 2"}, ESTRATEGIAS);
+            liga.setRepartosPorTanda(128);
+            liga.setLimites(512, 512);
+            return liga.jugar(11).toString();
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Pruebas de LoteJugadas: el cálculo por lotes, la versión escalar, la versión en paralelo y
+ * EstadoCompacto.jugadasLegales tienen que dar exactamente lo mismo en mesas de partidas de verdad,
+ * con la mano de cada jugador y con manos cualesquiera.
+ */
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+final class PruebaLoteJugadas {
+
+    private static final int RONDAS = 2000;
+
+    private PruebaLoteJugadas() {
+    }
+
+    /**
+     * Juega rondas al azar y apunta, en cada turno, la mesa con la mano de
+     * cada jugador y con una mano al azar; las cuatro formas de calcular las
+     * jugadas legales tienen que coincidir en todas.
+     */
+    static void escalarYPorLotes() {
+        SplittableRandom random = new SplittableRandom(20);
+        long[] colocadas = new long[1024];
+        long[] manos = new long[1024];
+        long[] esperadas = new long[1024];
+        int n = 0;
+        for (int ronda = 0; ronda < RONDAS; ronda++) {
+            int numJugadores = 3 + ronda % 2;
+            EstadoCompacto estado = repartir(numJugadores, random);
+            int turno = 0;
+            while (true) {
+                if (n + numJugadores + 1 > colocadas.length) {
+                    colocadas = Arrays.copyOf(colocadas, colocadas.length * 2);
+                    manos = Arrays.copyOf(manos, manos.length * 2);
+                    esperadas = Arrays.copyOf(esperadas, esperadas.length * 2);
+                }
+                long mesa = estado.getCartasEnMesa();
+                for (int i = 0; i < numJugadores; i++) {
+                    colocadas[n] = mesa;
+                    manos[n] = estado.getMano(i);
+                    esperadas[n++] = estado.jugadasLegales(i);
+                }
+                long cualquiera = random.nextLong() & EstadoCompacto.TODAS & ~mesa;
+                colocadas[n] = mesa;
+                manos[n] = cualquiera;
+                esperadas[n++] = cualquiera & estado.getJugables();
+                long legales = estado.jugadasLegales(turno);
+                if (legales != 0) {
+                    estado.colocar(turno, SimulacionRonda.bitAlAzar(legales, random));
+                    if (estado.manoVacia(turno)) {
+                        break;
+                    }
+                }
+                turno = (turno + 1) % numJugadores;
+            }
+        }
+        colocadas = Arrays.copyOf(colocadas, n);
+        manos = Arrays.copyOf(manos, n);
+        long[] porLotes = new long[n];
+        long[] escalar = new long[n];
+        long[] enParalelo = new long[n];
+        LoteJugadas.jugadasLegales(colocadas, manos, porLotes);
+        LoteJugadas.jugadasLegalesEscalar(colocadas, manos, escalar, 0, n);
+        LoteJugadas.jugadasLegalesEnParalelo(colocadas, manos, enParalelo);
+        for (int i = 0; i < n; i++) {
+            String que = "Mesa " + Long.toHexString(colocadas[i]) + ", mano " + Long.toHexString(manos[i]);
+            Pruebas.comprobarIguales(esperadas[i], porLotes[i], que + ", por lotes");
+            Pruebas.comprobarIguales(esperadas[i], escalar[i], que + ", escalar");
+            Pruebas.comprobarIguales(esperadas[i], enParalelo[i], que + ", en paralelo");
+            Pruebas.comprobarIguales(LoteJugadas.jugablesEscalar(colocadas[i]), LoteJugadas.jugables(colocadas[i]), que + ", jugables");
+        }
+        Pruebas.comprobar(n > 100_000, "Tienen que salir muchas consultas: " + n);
+    }
+
+    private static EstadoCompacto repartir(int numJugadores, SplittableRandom random) {
+        long[] manos = new long[numJugadores];
+        int[] cartas = new int[numJugadores];
+        Arrays.fill(cartas, Carta.NUM_CARTAS / numJugadores);
+        new SimulacionRonda(SimulacionRonda.AL_AZAR).repartir(0, -1, 0, cartas, manos, random);
+        EstadoCompacto estado = new EstadoCompacto(numJugadores);
+        for (int i = 0; i < numJugadores; i++) {
+            estado.setMano(i, manos[i]);
+        }
+        return estado;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Pruebas de RegistroPartidas y LectorRegistro: las partidas que guarda Simulador con su semilla se
+ * tienen que leer enteras y en orden, con sus semillas, sus rondas y sus puntos, y al reproducirlas
+ * sobre EstadoCompacto solo se pasa cuando no se puede colocar nada y cada ronda acaba con una mano vacía.
+ */
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+final class PruebaRegistro {
+
+    private static final int PARTIDAS = 2000;
+
+    private PruebaRegistro() {
+    }
+
+    /**
+     * Guarda partidas de tres y de cuatro jugadores con semilla y las
+     * reproduce comparándolas con los resultados de Simulador.
+     */
+    static void idaYVuelta() throws Exception {
+        Path fichero = Files.createTempFile("registro", ".cql");
+        try {
+            ResultadoPartida[] resultados = new ResultadoPartida[PARTIDAS];
+            Simulador tres = new Simulador(new PoliticaAleatoria(new SplittableRandom(1)), new PoliticaPrimeraCarta(),
+                    new PoliticaAleatoria(new SplittableRandom(2)));
+            Simulador cuatro = new Simulador(new PoliticaPrimeraCarta(), new PoliticaAleatoria(new SplittableRandom(3)),
+                    new PoliticaPrimeraCarta(), new PoliticaAleatoria(new SplittableRandom(4)));
+            try (RegistroPartidas registro = new RegistroPartidas(fichero)) {
+                tres.setRegistro(registro);
+                cuatro.setRegistro(registro);
+                for (int i = 0; i < PARTIDAS; i++) {
+                    resultados[i] = (i % 2 == 0 ? tres : cuatro).jugarPartida(semilla(i));
+                }
+            }
+            LectorRegistro lector = new LectorRegistro(fichero);
+            Pruebas.comprobarIguales((long) PARTIDAS, lector.contarPartidas(), "Partidas contadas");
+            Comprobador comprobador = new Comprobador(resultados);
+            Pruebas.comprobarIguales((long) PARTIDAS, lector.reproducir(comprobador), "Partidas reproducidas");
+            Pruebas.comprobarIguales(PARTIDAS, comprobador.partida, "Partidas terminadas");
+        } finally {
+            Files.delete(fichero);
+        }
+    }
+
+    private static long semilla(int partida) {
+        return 1_000_003L * partida + 7;
+    }
+
+    /**
+     * Recorre las partidas del registro comprobando cada paso con lo que se
+     * jugó.
+     */
+    private static final class Comprobador implements LectorRegistro.Visitante {
+
+        private final ResultadoPartida[] resultados;
+        private int partida;
+        private int rondas;
+        private int[] sumados;
+        private String que;
+
+        Comprobador(ResultadoPartida[] resultados) {
+            this.resultados = resultados;
+        }
+
+        @Override
+        public void empezarPartida(long semilla, int numJugadores) {
+            que = "Partida " + partida;
+            Pruebas.comprobarIguales(semilla(partida), semilla, que + ", semilla");
+            Pruebas.comprobarIguales(resultados[partida].getNumJugadores(), numJugadores, que + ", jugadores");
+            rondas = 0;
+            sumados = new int[numJugadores];
+        }
+
+        @Override
+        public void empezarRonda(EstadoCompacto estado, int[] orden) {
+            long repartidas = 0;
+            for (int i = 0; i < orden.length; i++) {
+                Pruebas.comprobarIguales(0L, repartidas & estado.getMano(i), que + ", cartas repetidas al repartir");
+                repartidas |= estado.getMano(i);
+            }
+            Pruebas.comprobarIguales(EstadoCompacto.TODAS, repartidas, que + ", cartas repartidas");
+        }
+
+        @Override
+        public void pase(EstadoCompacto estado, int asiento) {
+            Pruebas.comprobarIguales(0L, estado.jugadasLegales(asiento), que + ", pase del asiento " + asiento + " pudiendo colocar");
+        }
+
+        @Override
+        public void terminarRonda(EstadoCompacto estado, int[] puntosRonda) {
+            boolean vacia = false;
+            for (int i = 0; i < puntosRonda.length; i++) {
+                vacia |= estado.manoVacia(i);
+                sumados[i] += puntosRonda[i];
+            }
+            Pruebas.comprobar(vacia, que + ": la ronda " + rondas + " acaba sin ninguna mano vacía");
+            rondas++;
+        }
+
+        @Override
+        public void terminarPartida(int[] puntuaciones) {
+            ResultadoPartida resultado = resultados[partida];
+            int[] esperadas = new int[resultado.getNumJugadores()];
+            for (int i = 0; i < esperadas.length; i++) {
+                esperadas[i] = resultado.getPuntuacion(i);
+            }
+            Pruebas.comprobarIguales(Arrays.toString(esperadas), Arrays.toString(puntuaciones), que + ", puntuaciones");
+            Pruebas.comprobarIguales(Arrays.toString(esperadas), Arrays.toString(sumados), que + ", suma de las rondas");
+            Pruebas.comprobarIguales(resultado.getRondas(), rondas, que + ", rondas");
+            partida++;
+        }
+    }
+}
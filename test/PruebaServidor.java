@@ -0,0 +1,411 @@
+/*
+ * Pruebas del Servidor por la red local: clientes de verdad, con sockets, se sientan en una mesa y
+ * juegan una partida entera colocando siempre la primera carta que pueden. Se comprueba que todos
+ * ven el mismo final y que las órdenes mal puestas se contestan con ERROR. Si alguien se levanta antes
+ * de empezar, los de detrás se enteran de su asiento nuevo y la mesa se puede llenar y jugar igual.
+ * Con MIRAR, los espectadores tienen que poder seguir la mesa solo con los cambios hasta el mismo FIN,
+ * o recibir ABANDONADA si un jugador se va, y quedar libres para otra mesa.
+ * Cada prueba arranca su propio servidor en un puerto libre y lo para al terminar.
+ */
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+final class PruebaServidor {
+
+    private static final int ESPERA_MS = 10_000;
+
+    private PruebaServidor() {
+    }
+
+    /**
+     * Tres clientes juegan una partida completa y todos reciben el mismo FIN.
+     */
+    static void partidaCompleta() throws Exception {
+        try (ServidorDePrueba servidor = new ServidorDePrueba()) {
+            List<Cliente> jugadores = new ArrayList<>();
+            List<String> finales;
+            try {
+                for (int asiento = 0; asiento < 3; asiento++) {
+                    jugadores.add(servidor.sentar("bot" + asiento, 3, asiento));
+                }
+                finales = jugarHastaElFinal(jugadores);
+            } finally {
+                cerrar(jugadores);
+            }
+            for (String fin : finales) {
+                Pruebas.comprobarIguales(finales.get(0), fin, "Final de cada jugador");
+            }
+            String[] puntos = finales.get(0).split(" ");
+            Pruebas.comprobarIguales(4, puntos.length, "Puntos en FIN");
+            int total = 0;
+            for (int i = 1; i < puntos.length; i++) {
+                total += Integer.parseInt(puntos[i]);
+            }
+            Pruebas.comprobar(total > 0, "Alguien tiene que haber ganado puntos: " + finales.get(0));
+        }
+    }
+
+    /**
+     * Si el primero se levanta antes de que se llene la mesa, el segundo pasa
+     * al asiento 0 y se entera, y la mesa se llena y se juega entera.
+     */
+    static void levantarseAntesDeEmpezar() throws Exception {
+        try (ServidorDePrueba servidor = new ServidorDePrueba()) {
+            List<Cliente> jugadores = new ArrayList<>();
+            try {
+                Cliente primero = servidor.sentar("bot0", 3, 0);
+                Cliente segundo = servidor.sentar("bot1", 3, 1);
+                primero.close();
+                Pruebas.comprobarIguales("SENTADO 0 0 3", segundo.leer(), "Asiento nuevo del segundo");
+                segundo.asiento = 0;
+                jugadores.add(segundo);
+                jugadores.add(servidor.sentar("bot2", 3, 1));
+                jugadores.add(servidor.sentar("bot3", 3, 2));
+                List<String> finales = jugarHastaElFinal(jugadores);
+                for (String fin : finales) {
+                    Pruebas.comprobarIguales(finales.get(0), fin, "Final de cada jugador");
+                }
+            } finally {
+                cerrar(jugadores);
+            }
+        }
+    }
+
+    /**
+     * Las órdenes que no tocan se contestan con ERROR sin cerrar la conexión.
+     */
+    static void erroresDeProtocolo() throws Exception {
+        try (ServidorDePrueba servidor = new ServidorDePrueba(); Cliente cliente = servidor.conectar()) {
+            cliente.enviar("HOLA");
+            Pruebas.comprobarIguales("ERROR Orden desconocida", cliente.leer(), "Orden desconocida");
+            cliente.enviar("JUGAR 0");
+            Pruebas.comprobarIguales("ERROR No estás jugando", cliente.leer(), "Jugar sin mesa");
+            cliente.enviar("UNIRSE yo 5");
+            Pruebas.comprobarIguales("ERROR Uso: UNIRSE <nombre> <3|4>", cliente.leer(), "Mesa de 5");
+            cliente.enviar("UNIRSE yo 3");
+            Pruebas.comprobarIguales("SENTADO 0 0 3", cliente.leer(), "Sentarse");
+            cliente.enviar("UNIRSE yo 3");
+            Pruebas.comprobarIguales("ERROR Ya estás en una mesa", cliente.leer(), "Sentarse dos veces");
+        }
+    }
+
+    /**
+     * Unos espectadores miran una partida completa desde antes de empezar:
+     * todos los cambios cuadran con la mesa y acaban con el mismo FIN que los
+     * jugadores, y después pueden sentarse en otra mesa.
+     */
+    static void espectadores() throws Exception {
+        try (ServidorDePrueba servidor = new ServidorDePrueba()) {
+            List<Cliente> jugadores = new ArrayList<>();
+            List<Cliente> espectadores = new ArrayList<>();
+            try {
+                jugadores.add(servidor.sentar("bot0", 3, 0));
+                jugadores.add(servidor.sentar("bot1", 3, 1));
+                for (int i = 0; i < 4; i++) {
+                    espectadores.add(servidor.mirar(0, "VISTA 0 3 0 0-0 0-0 0-0 0-0 0 0 0 0 0 0"));
+                }
+                jugadores.add(servidor.sentar("bot2", 3, 2));
+                List<Callable<String>> tareas = new ArrayList<>();
+                for (Cliente jugador : jugadores) {
+                    tareas.add(jugador::jugar);
+                }
+                for (Cliente espectador : espectadores) {
+                    tareas.add(espectador::mirar);
+                }
+                List<String> finales = esperarATodos(tareas);
+                for (String fin : finales) {
+                    Pruebas.comprobarIguales(finales.get(0), fin, "Final de jugadores y espectadores");
+                }
+                for (int i = 0; i < espectadores.size(); i++) {
+                    espectadores.get(i).enviar("UNIRSE espectador" + i + " 4");
+                    Pruebas.comprobarIguales("SENTADO 1 " + i + " 4", espectadores.get(i).leer(), "Sentarse después de mirar");
+                }
+            } finally {
+                cerrar(jugadores);
+                cerrar(espectadores);
+            }
+        }
+    }
+
+    /**
+     * Si un jugador se va a mitad de partida, los espectadores reciben
+     * ABANDONADA y quedan libres.
+     */
+    static void abandono() throws Exception {
+        try (ServidorDePrueba servidor = new ServidorDePrueba()) {
+            List<Cliente> jugadores = new ArrayList<>();
+            List<Cliente> espectadores = new ArrayList<>();
+            try {
+                jugadores.add(servidor.sentar("bot0", 3, 0));
+                jugadores.add(servidor.sentar("bot1", 3, 1));
+                espectadores.add(servidor.mirar(0, "VISTA 0 3 0 0-0 0-0 0-0 0-0 0 0 0 0 0 0"));
+                jugadores.add(servidor.sentar("bot2", 3, 2));
+                Cliente espectador = espectadores.get(0);
+                String linea = espectador.leer();
+                Pruebas.comprobar(linea.startsWith("RONDA 1 "), "Primera línea de la partida: " + linea);
+                jugadores.get(1).close();
+                Pruebas.comprobarIguales("ABANDONADA", espectador.leer(), "Línea de cierre");
+                for (int asiento : new int[]{0, 2}) {
+                    Cliente jugador = jugadores.get(asiento);
+                    do {
+                        linea = jugador.leer();
+                    } while (!linea.startsWith("ERROR"));
+                    Pruebas.comprobarIguales("ERROR Mesa abandonada", linea, "Aviso al asiento " + asiento);
+                }
+                espectador.enviar("MIRAR 0");
+                Pruebas.comprobarIguales("ERROR No existe esa mesa", espectador.leer(), "Mirar una mesa abandonada");
+                espectador.enviar("UNIRSE espectador 3");
+                Pruebas.comprobarIguales("SENTADO 1 0 3", espectador.leer(), "Sentarse después de mirar");
+            } finally {
+                cerrar(jugadores);
+                cerrar(espectadores);
+            }
+        }
+    }
+
+    /**
+     * Juega con cada cliente en su propio hilo hasta el final de la partida.
+     *
+     * @return La línea FIN que ha recibido cada uno.
+     */
+    static List<String> jugarHastaElFinal(List<Cliente> jugadores) throws Exception {
+        List<Callable<String>> tareas = new ArrayList<>();
+        for (Cliente jugador : jugadores) {
+            tareas.add(jugador::jugar);
+        }
+        return esperarATodos(tareas);
+    }
+
+    /**
+     * Ejecuta cada tarea en su propio hilo y espera a todas.
+     *
+     * @return El resultado de cada tarea, en orden.
+     */
+    static List<String> esperarATodos(List<Callable<String>> tareas) throws Exception {
+        ExecutorService hilos = Executors.newFixedThreadPool(tareas.size());
+        try {
+            List<Future<String>> finales = new ArrayList<>();
+            for (Callable<String> tarea : tareas) {
+                finales.add(hilos.submit(tarea));
+            }
+            List<String> lineas = new ArrayList<>();
+            for (Future<String> fin : finales) {
+                lineas.add(fin.get(ESPERA_MS, TimeUnit.MILLISECONDS));
+            }
+            return lineas;
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    static void cerrar(List<Cliente> clientes) throws IOException {
+        for (Cliente cliente : clientes) {
+            cliente.close();
+        }
+    }
+
+    /**
+     * Un Servidor en un puerto libre, atendiendo en su propio hilo.
+     */
+    static final class ServidorDePrueba implements AutoCloseable {
+
+        final Servidor servidor;
+        private final Thread hilo;
+
+        ServidorDePrueba() throws IOException {
+            servidor = new Servidor(0, 3);
+            hilo = new Thread(servidor, "servidor-prueba");
+            hilo.start();
+        }
+
+        Cliente conectar() throws IOException {
+            return new Cliente(servidor.getPuerto());
+        }
+
+        /**
+         * Conecta un cliente y lo sienta en una mesa.
+         */
+        Cliente sentar(String nombre, int numJugadores, int asiento) throws IOException {
+            Cliente cliente = conectar();
+            cliente.enviar("UNIRSE " + nombre + " " + numJugadores);
+            String sentado = cliente.leer();
+            Pruebas.comprobar(sentado.startsWith("SENTADO ") && sentado.endsWith(" " + asiento + " " + numJugadores),
+                    nombre + " tenía que sentarse en el asiento " + asiento + ": " + sentado);
+            cliente.asiento = asiento;
+            return cliente;
+        }
+
+        /**
+         * Conecta un cliente que mira una mesa y comprueba la foto que recibe.
+         */
+        Cliente mirar(int mesa, String vista) throws IOException {
+            Cliente cliente = conectar();
+            cliente.enviar("MIRAR " + mesa);
+            Pruebas.comprobarIguales(vista, cliente.leer(), "Foto al mirar la mesa " + mesa);
+            return cliente;
+        }
+
+        @Override
+        public void close() {
+            servidor.parar();
+            try {
+                hilo.join(ESPERA_MS);
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Un cliente del protocolo de texto, que sabe jugar la primera carta que
+     * puede.
+     */
+    static final class Cliente implements Closeable {
+
+        private final Socket socket;
+        private final BufferedReader entrada;
+        private final PrintWriter salida;
+        int asiento = -1;
+
+        Cliente(int puerto) throws IOException {
+            socket = new Socket("127.0.0.1", puerto);
+            socket.setSoTimeout(ESPERA_MS);
+            entrada = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            salida = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+        }
+
+        void enviar(String linea) {
+            salida.println(linea);
+        }
+
+        String leer() throws IOException {
+            String linea = entrada.readLine();
+            if (linea == null) {
+                throw new EOFException("El servidor ha cerrado la conexión");
+            }
+            return linea;
+        }
+
+        /**
+         * Juega hasta que acaba la partida, colocando siempre la primera carta
+         * de la mano que se puede colocar.
+         *
+         * @return La línea FIN, como String.
+         */
+        String jugar() throws IOException {
+            String[] mano = null;
+            long mesa = 0;
+            while (true) {
+                String linea = leer();
+                String[] partes = linea.split(" ");
+                switch (partes[0]) {
+                    case "SENTADO":
+                        asiento = Integer.parseInt(partes[2]);
+                        break;
+                    case "MANO":
+                        mano = partes;
+                        break;
+                    case "RONDA":
+                        mesa = 0;
+                        break;
+                    case "JUGADA":
+                        mesa |= 1L << Integer.parseInt(partes[2]);
+                        break;
+                    case "TURNO":
+                        if (Integer.parseInt(partes[1]) == asiento) {
+                            enviar("JUGAR " + primeraJugable(mano, mesa));
+                        }
+                        break;
+                    case "FIN":
+                        return linea;
+                    case "ERROR":
+                        throw new AssertionError("El servidor ha contestado " + linea);
+                    default:
+                        break;
+                }
+            }
+        }
+
+        /**
+         * Sigue la mesa como espectador hasta el final de la partida: cada
+         * JUGADA tiene que entrar por el extremo que dice, y el as de oros
+         * se avisa una vez.
+         *
+         * @return La línea FIN, como String.
+         */
+        String mirar() throws IOException {
+            int[] minimo = new int[EstadoCompacto.NUM_PALOS];
+            int[] maximo = new int[EstadoCompacto.NUM_PALOS];
+            int oros = 0;
+            while (true) {
+                String linea = leer();
+                String[] partes = linea.split(" ");
+                switch (partes[0]) {
+                    case "RONDA":
+                        Arrays.fill(minimo, 0);
+                        Arrays.fill(maximo, 0);
+                        break;
+                    case "JUGADA":
+                        int id = Integer.parseInt(partes[2]);
+                        int palo = EstadoCompacto.palo(id);
+                        int numero = EstadoCompacto.numero(id);
+                        String extremo = minimo[palo] == 0 ? "C" : numero < minimo[palo] ? "B" : "A";
+                        Pruebas.comprobarIguales(extremo, partes[3], "Extremo de " + linea);
+                        if (minimo[palo] == 0) {
+                            Pruebas.comprobarIguales(5, numero, "Primera carta del palo en " + linea);
+                            minimo[palo] = 5;
+                            maximo[palo] = 5;
+                        } else if (numero < minimo[palo]) {
+                            Pruebas.comprobarIguales(minimo[palo] - 1, numero, "Carta por abajo en " + linea);
+                            minimo[palo] = numero;
+                        } else {
+                            Pruebas.comprobarIguales(maximo[palo] + 1, numero, "Carta por arriba en " + linea);
+                            maximo[palo] = numero;
+                        }
+                        break;
+                    case "ORO":
+                        oros++;
+                        break;
+                    case "PASA":
+                    case "FINRONDA":
+                        break;
+                    case "FIN":
+                        Pruebas.comprobarIguales(1, oros, "Avisos del as de oros");
+                        return linea;
+                    default:
+                        throw new AssertionError("Un espectador no esperaba " + linea);
+                }
+            }
+        }
+
+        private static int primeraJugable(String[] mano, long mesa) {
+            long jugables = LoteJugadas.jugables(mesa);
+            for (int i = 1; i < mano.length; i++) {
+                if ((jugables >>> Integer.parseInt(mano[i]) & 1) != 0) {
+                    return i - 1;
+                }
+            }
+            throw new AssertionError("Es mi turno y no puedo colocar nada");
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
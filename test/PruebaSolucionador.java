@@ -0,0 +1,106 @@
+/*
+ * Pruebas de Solucionador: en finales de ronda sacados de partidas al azar tiene que dar lo mismo que
+ * una búsqueda max-n sin tabla ni podas, escrita aquí de la forma más directa. Se reutiliza el mismo
+ * solucionador con una tabla pequeña, para que las posiciones se pisen en la tabla.
+ */
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+final class PruebaSolucionador {
+
+    private static final int POSICIONES = 1500;
+    private static final int PUNTOS_RONDA = 4;
+
+    private PruebaSolucionador() {
+    }
+
+    /**
+     * El ganador, quién coloca el as de oros y la mejor jugada coinciden con
+     * la búsqueda directa.
+     */
+    static void comoMaxN() {
+        SplittableRandom random = new SplittableRandom(9);
+        SimulacionRonda simulacion = new SimulacionRonda(SimulacionRonda.AL_AZAR);
+        Solucionador solucionador = new Solucionador(12);
+        int probadas = 0;
+        while (probadas < POSICIONES) {
+            int numJugadores = 3 + probadas % 2;
+            int[] orden = new int[numJugadores];
+            for (int i = 0; i < numJugadores; i++) {
+                orden[i] = (i + probadas) % numJugadores;
+            }
+            EstadoCompacto estado = repartir(numJugadores, random);
+            int quedan = 6 + random.nextInt(7);
+            if (simulacion.jugarHasta(estado, orden, 0, quedan, random) >= 0) {
+                continue;
+            }
+            int turno = simulacion.getTurno();
+            int puntosAsDeOros = 2 * (1 + random.nextInt(4));
+            EstadoCompacto antes = new EstadoCompacto(numJugadores);
+            antes.copiarDe(estado);
+            Solucion solucion = solucionador.resolver(estado, orden, turno, puntosAsDeOros);
+            int[] esperado = maxN(estado, orden, turno, puntosAsDeOros);
+            String que = "Posición " + probadas + " " + describir(estado);
+            Pruebas.comprobarIguales(esperado[0], solucion.getGanador(), que + ", ganador");
+            Pruebas.comprobarIguales(esperado[1], solucion.getAsientoAsDeOros(), que + ", as de oros");
+            Pruebas.comprobarIguales(esperado[2], solucion.getMejorCarta(), que + ", mejor carta");
+            Pruebas.comprobarIguales(describir(antes), describir(estado), que + ", estado al terminar");
+            probadas++;
+        }
+    }
+
+    /**
+     * Búsqueda max-n directa: cada jugador elige la primera de sus jugadas
+     * que más puntos le da.
+     *
+     * @return El ganador, quién coloca el as de oros (o -1) y la mejor carta
+     * del jugador de turno (o Solucion.PASE).
+     */
+    private static int[] maxN(EstadoCompacto estado, int[] orden, int turno, int puntosAsDeOros) {
+        int asiento = orden[turno];
+        int siguiente = (turno + 1) % orden.length;
+        long legales = estado.jugadasLegales(asiento);
+        if (legales == 0) {
+            int[] resultado = maxN(estado, orden, siguiente, puntosAsDeOros);
+            return new int[]{resultado[0], resultado[1], Solucion.PASE};
+        }
+        int[] mejor = null;
+        int mejorPuntos = -1;
+        for (long resto = legales; resto != 0; resto &= resto - 1) {
+            int id = Long.numberOfTrailingZeros(resto);
+            estado.colocar(asiento, id);
+            int[] resultado = estado.manoVacia(asiento)
+                    ? new int[]{asiento, -1, id}
+                    : maxN(estado, orden, siguiente, puntosAsDeOros);
+            estado.deshacer(asiento, id);
+            int asOros = id == EstadoCompacto.AS_DE_OROS ? asiento : resultado[1];
+            int puntos = (resultado[0] == asiento ? PUNTOS_RONDA : 0) + (asOros == asiento ? puntosAsDeOros : 0);
+            if (puntos > mejorPuntos) {
+                mejorPuntos = puntos;
+                mejor = new int[]{resultado[0], asOros, id};
+            }
+        }
+        return mejor;
+    }
+
+    private static EstadoCompacto repartir(int numJugadores, SplittableRandom random) {
+        long[] manos = new long[numJugadores];
+        int[] cartas = new int[numJugadores];
+        Arrays.fill(cartas, Carta.NUM_CARTAS / numJugadores);
+        new SimulacionRonda(SimulacionRonda.AL_AZAR).repartir(0, -1, 0, cartas, manos, random);
+        EstadoCompacto estado = new EstadoCompacto(numJugadores);
+        for (int i = 0; i < numJugadores; i++) {
+            estado.setMano(i, manos[i]);
+        }
+        return estado;
+    }
+
+    private static String describir(EstadoCompacto estado) {
+        StringBuilder sb = new StringBuilder(Long.toHexString(estado.getCartasEnMesa()));
+        for (int i = 0; i < estado.getNumJugadores(); i++) {
+            sb.append(' ').append(Long.toHexString(estado.getMano(i)));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Pruebas de Torneo: con la misma semilla, un torneo tiene que dar las mismas partidas, victorias,
+ * puntos y rondas por estrategia en un pool de un hilo que en uno de cuatro.
+ */
+
+import java.util.concurrent.ForkJoinPool;
+
+final class PruebaTorneo {
+
+    private static final FabricaPolitica[] ESTRATEGIAS = {
+        PoliticaAleatoria::new,
+        random -> new PoliticaPrimeraCarta(),
+        PoliticaAleatoria::new
+    };
+
+    private PruebaTorneo() {
+    }
+
+    /**
+     * Un torneo juega lo mismo en un pool de 1 hilo que en uno de 4.
+     */
+    static void determinismo() {
+        EstadisticasTorneo uno = jugarTorneo(1);
+        EstadisticasTorneo cuatro = jugarTorneo(4);
+        for (int e = 0; e < ESTRATEGIAS.length; e++) {
+            Pruebas.comprobarIguales(uno.getPartidas(e), cuatro.getPartidas(e), "Partidas de la estrategia " + e);
+            Pruebas.comprobarIguales(uno.getVictorias(e), cuatro.getVictorias(e), "Victorias de la estrategia " + e);
+            Pruebas.comprobarIguales(uno.getPuntos(e), cuatro.getPuntos(e), "Puntos de la estrategia " + e);
+        }
+        Pruebas.comprobarIguales(uno.getRondas(), cuatro.getRondas(), "Rondas");
+    }
+
+    private static EstadisticasTorneo jugarTorneo(int hilos) {
+        ForkJoinPool pool = new ForkJoinPool(hilos);
+        try {
+            return new Torneo(pool, ESTRATEGIAS).jugar(5000, 7);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
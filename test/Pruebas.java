@@ -0,0 +1,129 @@
+/*
+ * Ejecuta las pruebas automáticas del juego. No usa ningún framework: cada prueba es un método
+ * estático que lanza AssertionError (o cualquier otra excepción) si algo no cuadra.
+ * Uso, desde la raíz del proyecto:
+ *   javac -encoding UTF-8 -d out *.java test/*.java
+ *   java -cp out Pruebas [nombre...]
+ * Sin argumentos se ejecutan todas; si falla alguna, el programa termina con código 1.
+ */
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+public final class Pruebas {
+
+    /**
+     * Una prueba que se puede ejecutar.
+     */
+    @FunctionalInterface
+    interface Prueba {
+
+        void ejecutar() throws Exception;
+    }
+
+    private Pruebas() {
+    }
+
+    /**
+     * Lanza AssertionError si no se cumple una condición.
+     *
+     * @param condicion La condición que se tiene que cumplir, como boolean.
+     * @param mensaje Lo que se esperaba, como String.
+     */
+    static void comprobar(boolean condicion, String mensaje) {
+        if (!condicion) {
+            throw new AssertionError(mensaje);
+        }
+    }
+
+    /**
+     * Lanza AssertionError si dos valores no son iguales.
+     *
+     * @param esperado El valor esperado, como Object.
+     * @param obtenido El valor obtenido, como Object.
+     * @param que Lo que se compara, como String.
+     */
+    static void comprobarIguales(Object esperado, Object obtenido, String que) {
+        if (!Objects.equals(esperado, obtenido)) {
+            throw new AssertionError(que + ": se esperaba " + esperado + " y sale " + obtenido);
+        }
+    }
+
+    /**
+     * Lanza AssertionError si una acción no lanza la excepción esperada.
+     *
+     * @param tipo El tipo de la excepción, como Class.
+     * @param accion La acción, como Prueba.
+     * @param que Lo que se comprueba, como String.
+     */
+    static void comprobarLanza(Class<? extends Throwable> tipo, Prueba accion, String que) {
+        try {
+            accion.ejecutar();
+        } catch (Throwable exc) {
+            if (tipo.isInstance(exc)) {
+                return;
+            }
+            throw new AssertionError(que + ": se esperaba " + tipo.getSimpleName() + " y sale " + exc, exc);
+        }
+        throw new AssertionError(que + ": se esperaba " + tipo.getSimpleName());
+    }
+
+    public static void main(String[] args) {
+        Map<String, Prueba> pruebas = new LinkedHashMap<>();
+        pruebas.put("Simulador.determinismo", PruebaDeterminismo::simulador);
+        pruebas.put("Torneo.determinismo", PruebaTorneo::determinismo);
+        pruebas.put("Liga.determinismo", PruebaLiga::determinismo);
+        pruebas.put("Juego.iuSilenciosa", PruebaJuego::iuSilenciosa);
+        pruebas.put("Solucionador.comoMaxN", PruebaSolucionador::comoMaxN);
+        pruebas.put("Canonizador.invariante", PruebaCanonizador::invariante);
+        pruebas.put("Canonizador.idaYVuelta", PruebaCanonizador::idaYVuelta);
+        pruebas.put("Mesa.deshacer", PruebaDeshacer::mesaYJugada);
+        pruebas.put("Mesa.deshacerFueraDeOrden", PruebaDeshacer::mesaFueraDeOrden);
+        pruebas.put("EstadoCompacto.deshacer", PruebaDeshacer::estadoCompacto);
+        pruebas.put("EstadoCompacto.deshacerFueraDeOrden", PruebaDeshacer::estadoCompactoFueraDeOrden);
+        pruebas.put("Partida.instantaneas", PruebaDeshacer::instantaneas);
+        pruebas.put("LoteJugadas.escalarYPorLotes", PruebaLoteJugadas::escalarYPorLotes);
+        pruebas.put("Registro.idaYVuelta", PruebaRegistro::idaYVuelta);
+        pruebas.put("BusEventos.desbordamiento", PruebaBusEventos::desbordamiento);
+        pruebas.put("BusEventos.republicar", PruebaBusEventos::republicar);
+        pruebas.put("BusEventos.variosPublicadores", PruebaBusEventos::variosPublicadores);
+        pruebas.put("BusEventos.cerrarEntregaTodo", PruebaBusEventos::cerrarEntregaTodo);
+        pruebas.put("Servidor.partidaCompleta", PruebaServidor::partidaCompleta);
+        pruebas.put("Servidor.levantarseAntesDeEmpezar", PruebaServidor::levantarseAntesDeEmpezar);
+        pruebas.put("Servidor.erroresDeProtocolo", PruebaServidor::erroresDeProtocolo);
+        pruebas.put("Servidor.espectadores", PruebaServidor::espectadores);
+        pruebas.put("Servidor.abandono", PruebaServidor::abandono);
+
+        int fallos = 0;
+        int ejecutadas = 0;
+        for (Map.Entry<String, Prueba> prueba : pruebas.entrySet()) {
+            if (args.length > 0 && !contiene(args, prueba.getKey())) {
+                continue;
+            }
+            ejecutadas++;
+            long inicio = System.nanoTime();
+            try {
+                prueba.getValue().ejecutar();
+                System.out.printf("OK     %s (%d ms)%n", prueba.getKey(), (System.nanoTime() - inicio) / 1_000_000);
+            } catch (Throwable exc) {
+                fallos++;
+                System.out.printf("FALLO  %s%n", prueba.getKey());
+                exc.printStackTrace(System.out);
+            }
+        }
+        System.out.printf("%d pruebas, %d fallos%n", ejecutadas, fallos);
+        if (fallos > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean contiene(String[] nombres, String nombre) {
+        for (String n : nombres) {
+            if (nombre.startsWith(n)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}